@@ -18,4 +18,14 @@
 
 # If you keep the line number information, uncomment this to
 # hide the original source file name.
-#-renamesourcefileattribute SourceFile
\ No newline at end of file
+#-renamesourcefileattribute SourceFile
+# 发布包（release开启了minifyEnabled及proguard-android-optimize.txt）去掉调试日志：
+# v/d/i调用及其参数的计算被整体移除，isLoggable(...)包裹的代码块按false处理
+-assumenosideeffects class com.okg.textrecognition.core.OcrLog {
+    public static void v(...);
+    public static void d(...);
+    public static void i(...);
+}
+-assumevalues class com.okg.textrecognition.core.OcrLog {
+    public static boolean isLoggable(int) return false;
+}
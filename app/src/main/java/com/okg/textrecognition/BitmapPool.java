@@ -0,0 +1,74 @@
+package com.okg.textrecognition;
+
+import android.graphics.Bitmap;
+
+import com.okg.textrecognition.core.LruObjectPool;
+import com.okg.textrecognition.core.MetricsRegistry;
+
+/**
+ * @author okg
+ * @date 2026-10-18
+ * 描述：识别流程中图片的复用池，解码（inBitmap）及旋转、缩放、裁剪的输出图片从池中取，不再使用的图片放回池中，
+ * 连续扫描时尺寸相同的图片反复复用，减少大对象分配及GC停顿
+ * 按尺寸及像素格式复用，以字节数为预算（最大堆的1/8，不超过32MB），超出时淘汰最久未使用的图片并回收
+ * 命中率及池中字节数记入MetricsRegistry的bitmap_pool.*计数器（见LruObjectPool）；离开识别界面时清空
+ */
+public class BitmapPool {
+    private static final long MAX_BYTES = Math.min(Runtime.getRuntime().maxMemory() / 8, 32L * 1024 * 1024);
+    private static final LruObjectPool<Bitmap> POOL = new LruObjectPool<>(MAX_BYTES, new LruObjectPool.Evictor<Bitmap>() {
+        @Override
+        public void evict(Bitmap bitmap) {
+            BitmapTracker.recycle(bitmap, "BitmapPool");
+        }
+    }, MetricsRegistry.getInstance(), "bitmap_pool.");
+
+    private BitmapPool() {
+
+    }
+
+    /**
+     * 从池中取一张尺寸及格式相同的图片，内容未清空，用于inBitmap解码或整张覆盖绘制
+     *
+     * @return 没有可复用的图片时返回null
+     */
+    public static Bitmap get(int width, int height, Bitmap.Config config) {
+        return POOL.get(width, height, config.ordinal());
+    }
+
+    /**
+     * 从池中取一张图片，没有可复用的图片时新建，内容未清空
+     *
+     * @param stage 分配所在的阶段，新建的图片按该阶段记入BitmapTracker
+     */
+    public static Bitmap obtain(int width, int height, Bitmap.Config config, String stage) {
+        Bitmap bitmap = get(width, height, config);
+        if (bitmap == null) {
+            bitmap = BitmapTracker.track(Bitmap.createBitmap(width, height, config), stage);
+        }
+        return bitmap;
+    }
+
+    /**
+     * 放回不再使用的图片，不可修改的图片不能复用，直接回收
+     *
+     * @param bitmap 可为null
+     * @param where  调用位置
+     */
+    public static void release(Bitmap bitmap, String where) {
+        if (bitmap == null) {
+            return;
+        }
+        if (bitmap.isRecycled() || !bitmap.isMutable() || bitmap.getConfig() == null) {
+            BitmapTracker.recycle(bitmap, where);
+            return;
+        }
+        POOL.put(bitmap, bitmap.getWidth(), bitmap.getHeight(), bitmap.getConfig().ordinal(), bitmap.getAllocationByteCount());
+    }
+
+    /**
+     * 回收池中所有图片
+     */
+    public static void clear() {
+        POOL.clear();
+    }
+}
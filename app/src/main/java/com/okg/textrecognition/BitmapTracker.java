@@ -0,0 +1,83 @@
+package com.okg.textrecognition;
+
+import android.graphics.Bitmap;
+
+import com.okg.textrecognition.core.BitmapLedger;
+import com.okg.textrecognition.core.MetricsRegistry;
+
+/**
+ * @author okg
+ * @date 2026-10-18
+ * 描述：识别流程中图片分配、回收、使用的统一入口，统计结果记入MetricsRegistry的bitmap.*计数器（见BitmapLedger）
+ * 识别流程中的图片都通过该类回收，重复回收及使用已回收的图片只记录并告警，不抛出异常
+ */
+public class BitmapTracker {
+    private static final BitmapLedger LEDGER = new BitmapLedger(MetricsRegistry.getInstance());
+
+    private BitmapTracker() {
+
+    }
+
+    /**
+     * 记录新分配的图片
+     *
+     * @param bitmap 可为null
+     * @param stage  分配所在的阶段
+     * @return bitmap本身
+     */
+    public static Bitmap track(Bitmap bitmap, String stage) {
+        if (bitmap != null) {
+            LEDGER.onAllocated(bitmap, stage, bitmap.getAllocationByteCount());
+        }
+        return bitmap;
+    }
+
+    /**
+     * 回收图片，已回收的图片不再回收，只记为重复回收
+     *
+     * @param bitmap 可为null
+     * @param where  调用位置
+     */
+    public static void recycle(Bitmap bitmap, String where) {
+        if (bitmap == null) {
+            return;
+        }
+        boolean alreadyRecycled = bitmap.isRecycled();
+        if (!alreadyRecycled) {
+            bitmap.recycle();
+        }
+        LEDGER.onRecycled(bitmap, alreadyRecycled, where);
+    }
+
+    /**
+     * 使用图片前检查是否已被回收
+     *
+     * @param bitmap
+     * @param where  调用位置
+     * @return 是否可以使用
+     */
+    public static boolean checkUsable(Bitmap bitmap, String where) {
+        if (bitmap == null) {
+            return false;
+        }
+        if (bitmap.isRecycled()) {
+            LEDGER.onUseAfterRecycle(where);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 开始一次扫描，统计本次扫描期间的存活字节数峰值
+     */
+    public static void beginScan() {
+        LEDGER.beginScan();
+    }
+
+    /**
+     * @return 本次扫描期间的存活字节数峰值
+     */
+    public static long endScan() {
+        return LEDGER.endScan();
+    }
+}
@@ -4,7 +4,6 @@ import android.annotation.SuppressLint;
 import android.app.Activity;
 import android.content.Context;
 import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
 import android.graphics.ImageFormat;
 import android.graphics.SurfaceTexture;
 import android.hardware.camera2.CameraAccessException;
@@ -31,6 +30,9 @@ import android.widget.Toast;
 
 import androidx.annotation.NonNull;
 
+import com.okg.textrecognition.core.OcrLog;
+import com.okg.textrecognition.core.StageTimer;
+
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -45,6 +47,14 @@ import java.util.List;
  */
 public class CameraHelper {
     private static final String TAG = "Mlkit-CameraHelper";
+    /**
+     * 预览帧的最大像素数，文字识别不需要更高的分辨率，过大反而增加每帧的识别耗时
+     */
+    private static final long MAX_FRAME_PIXELS = 1920 * 1080;
+    /**
+     * 预览帧Reader的缓冲数：识别中的帧、等待识别的最新一帧及相机正在写入的一帧
+     */
+    private static final int MAX_FRAME_IMAGES = Constant.FRAME_MAX_IN_FLIGHT + 2;
     private Activity mActivity;
     private TextureView mTextureView;
     private CameraManager mCameraManager;
@@ -66,8 +76,32 @@ public class CameraHelper {
     private Size mPreviewSize;
     private Handler mCameraBackgroundHandler;
     private Surface mSurface;
+    /**
+     * 连续识别的预览帧Reader，YUV_420_888格式，挂在预览的重复请求上，不经过JPEG编解码
+     */
+    private ImageReader mFrameReader;
+    /**
+     * 预览帧的Size
+     */
+    private Size mFrameSize;
+    /**
+     * 预览帧旋转角度
+     */
+    private int mFrameRotationDegrees = 0;
 
     private OnTakePictureListener mOnTakePictureListener;
+    /**
+     * 不为null时拍照结果以Image直接回调，不解码为Bitmap
+     */
+    private OnTakeImageListener mOnTakeImageListener;
+    /**
+     * 不为null时预览请求输出预览帧
+     */
+    private volatile OnPreviewFrameListener mOnPreviewFrameListener;
+    /**
+     * 本次拍照的计时，在相机后台线程中标记拍照及解码阶段
+     */
+    private StageTimer mCaptureTimer;
 
     /**
      * 图片旋转角度
@@ -92,6 +126,35 @@ public class CameraHelper {
         void onTakePicture(Bitmap bitmap, int pictureRotationDegrees, int deviceRotationDegrees);
     }
 
+    /**
+     * 拍照回调监听器，直接回调相机输出的Image，省去字节拷贝及Bitmap解码
+     */
+    public interface OnTakeImageListener {
+        /**
+         * 拍照完成回调，回调于相机后台线程
+         * 回调方持有image，使用完成后必须调用image.close()，否则下一次拍照可能取不到图片
+         *
+         * @param image                  JPEG格式的图片
+         * @param pictureRotationDegrees 图片旋转角度
+         * @param deviceRotationDegrees  设备旋转角度
+         */
+        void onTakeImage(Image image, int pictureRotationDegrees, int deviceRotationDegrees);
+    }
+
+    /**
+     * 预览帧回调监听器
+     */
+    public interface OnPreviewFrameListener {
+        /**
+         * 预览帧回调，回调于相机后台线程
+         * 回调方持有image，处理完成（或丢弃）后必须调用image.close()，未关闭的帧占满缓冲后相机不再输出新帧
+         *
+         * @param image           YUV_420_888格式的预览帧
+         * @param rotationDegrees 预览帧旋转角度
+         */
+        void onPreviewFrame(Image image, int rotationDegrees);
+    }
+
     public CameraHelper(Activity activity) {
         mActivity = activity;
     }
@@ -107,6 +170,7 @@ public class CameraHelper {
         initSelectCamera();
         // 根据选中的相机，初始化图片显示的Size
         initHandlerMatchingSize();
+        initFrameSize();
         //initImageReader();
         // 初始化各种监听器
         initTextureViewListener();
@@ -203,7 +267,7 @@ public class CameraHelper {
             DisplayMetrics displayMetrics = mActivity.getResources().getDisplayMetrics();
             int deviceWidth = displayMetrics.widthPixels;
             int deviceHeight = displayMetrics.heightPixels;
-            CommonUtil.log(TAG, "当前屏幕密度宽度=" + deviceWidth + "，高度=" + deviceHeight);
+            OcrLog.d(TAG, "当前屏幕密度宽度={}，高度={}", deviceWidth, deviceHeight);
             for (int j = 1; j < 81; j++) {
                 for (int i = 0; i < sizes.length; i++) {
                     Size itemSize = sizes[i];
@@ -224,19 +288,86 @@ public class CameraHelper {
         } catch (CameraAccessException e) {
             e.printStackTrace();
         }
-        CommonUtil.log(TAG, "当前预览宽度=" + mCurrentSelectSize.getWidth() + "，高度=" + mCurrentSelectSize.getHeight());
+        OcrLog.d(TAG, "当前预览尺寸={}", mCurrentSelectSize);
+    }
+
+    /**
+     * 初始化预览帧的分辨率：与拍照分辨率宽高比相同、像素数不超过MAX_FRAME_PIXELS的最大尺寸，没有同比例的尺寸时不限宽高比
+     */
+    private void initFrameSize() {
+        try {
+            CameraCharacteristics cameraCharacteristics = mCameraManager.getCameraCharacteristics(mCurrentCameraId);
+            StreamConfigurationMap streamConfigurationMap = cameraCharacteristics.get(CameraCharacteristics.SCALER_STREAM_CONFIGURATION_MAP);
+            Size[] sizes = streamConfigurationMap.getOutputSizes(ImageFormat.YUV_420_888);
+            float targetRatio = mCurrentSelectSize == null ? 16f / 9 : (float) mCurrentSelectSize.getWidth() / mCurrentSelectSize.getHeight();
+            Size anyRatioSize = null;
+            for (Size itemSize : sizes) {
+                long pixels = (long) itemSize.getWidth() * itemSize.getHeight();
+                if (pixels > MAX_FRAME_PIXELS) {
+                    continue;
+                }
+                if (anyRatioSize == null || pixels > (long) anyRatioSize.getWidth() * anyRatioSize.getHeight()) {
+                    anyRatioSize = itemSize;
+                }
+                float ratio = (float) itemSize.getWidth() / itemSize.getHeight();
+                if (Math.abs(ratio - targetRatio) > 0.05f) {
+                    continue;
+                }
+                if (mFrameSize == null || pixels > (long) mFrameSize.getWidth() * mFrameSize.getHeight()) {
+                    mFrameSize = itemSize;
+                }
+            }
+            if (mFrameSize == null) {
+                mFrameSize = anyRatioSize != null ? anyRatioSize : sizes[sizes.length - 1];
+            }
+        } catch (CameraAccessException e) {
+            e.printStackTrace();
+        }
+        OcrLog.d(TAG, "预览帧尺寸={}", mFrameSize);
+    }
+
+    /**
+     * 初始化预览帧Reader，只取最新的一帧交给监听器，没有监听器时直接关闭
+     */
+    private void initFrameReader() {
+        mFrameReader = ImageReader.newInstance(mFrameSize.getWidth()
+                , mFrameSize.getHeight()
+                , ImageFormat.YUV_420_888
+                , MAX_FRAME_IMAGES);
+        mFrameReader.setOnImageAvailableListener(new ImageReader.OnImageAvailableListener() {
+            @Override
+            public void onImageAvailable(ImageReader reader) {
+                Image image;
+                try {
+                    image = reader.acquireLatestImage();
+                } catch (IllegalStateException e) {
+                    // 监听器没有及时关闭帧，缓冲已占满
+                    OcrLog.w(TAG, "预览帧缓冲已满，跳过该帧");
+                    return;
+                }
+                if (image == null) {
+                    return;
+                }
+                OnPreviewFrameListener listener = mOnPreviewFrameListener;
+                if (listener == null) {
+                    image.close();
+                    return;
+                }
+                listener.onPreviewFrame(image, mFrameRotationDegrees);
+            }
+        }, mCameraBackgroundHandler);
     }
 
     /**
      * 初始化图片Reader，用于保存图片,在后台线程进行图片处理
      */
     private void initImageReader() {
-        CommonUtil.log(TAG, "初始化图片ImageReader的宽=" + mCurrentSelectSize.getWidth() + "高=" + mCurrentSelectSize.getHeight());
+        OcrLog.d(TAG, "初始化图片ImageReader的尺寸={}", mCurrentSelectSize);
         mImageReader = ImageReader.newInstance(mCurrentSelectSize.getWidth()
                 , mCurrentSelectSize.getHeight()
                 , ImageFormat.JPEG
                 , 2);
-//        CommonUtil.log(TAG, "initImageReader, " + mPreviewSize.toString());
+//        OcrLog.d(TAG, "initImageReader, {}", mPreviewSize);
 //        mImageReader = ImageReader.newInstance(mPreviewSize.getWidth()
 //                , mPreviewSize.getHeight()
 //                , ImageFormat.JPEG
@@ -245,12 +376,29 @@ public class CameraHelper {
         mImageReader.setOnImageAvailableListener(new ImageReader.OnImageAvailableListener() {
             @Override
             public void onImageAvailable(ImageReader reader) {
-                CommonUtil.log(TAG, "onImageAvailable,保存图片，thread=" + Thread.currentThread().getName());
+                OcrLog.d(TAG, "onImageAvailable,保存图片，thread={}", Thread.currentThread().getName());
                 Image image = reader.acquireLatestImage();
+                StageTimer timer = mCaptureTimer;
+                mCaptureTimer = null;
+                if (timer != null) {
+                    timer.mark("capture");
+                }
+                OnTakeImageListener imageListener = mOnTakeImageListener;
+                if (imageListener != null) {
+                    // image交给回调方关闭
+                    if (image != null) {
+                        imageListener.onTakeImage(image, mPictureRotationDegrees, mDeviceRotationDegrees);
+                    }
+                    startPreview();
+                    return;
+                }
                 ByteBuffer byteBuffer = image.getPlanes()[0].getBuffer();
                 byte[] bytes = new byte[byteBuffer.remaining()];
                 byteBuffer.get(bytes);
-                Bitmap bitmap = BitmapFactory.decodeByteArray(bytes, 0, bytes.length);
+                Bitmap bitmap = CommonUtil.decodeJpeg(bytes, bytes.length, image.getWidth(), image.getHeight());
+                if (timer != null) {
+                    timer.mark("decode");
+                }
                 // 不管成功与否，保证均回调
                 if (mOnTakePictureListener != null) {
                     mOnTakePictureListener.onTakePicture(bitmap, mPictureRotationDegrees, mDeviceRotationDegrees);
@@ -268,9 +416,10 @@ public class CameraHelper {
             @Override
             public void onSurfaceTextureAvailable(SurfaceTexture surface, int width, int height) {
                 //当SurfaceTexture可用的时候，设置相机参数并打开相机
-                CommonUtil.log(TAG, "onSurfaceTextureAvailable, w= " + width + ",h=" + height);
+                OcrLog.d(TAG, "onSurfaceTextureAvailable, w={},h={}", width, height);
                 openCamera();
                 initImageReader();
+                initFrameReader();
             }
 
             @Override
@@ -294,13 +443,13 @@ public class CameraHelper {
         mCameraDeviceStateCallback = new CameraDevice.StateCallback() {
             @Override
             public void onOpened(@NonNull CameraDevice camera) {
-                CommonUtil.log(TAG, "相机开启");
+                OcrLog.d(TAG, "相机开启");
                 //相机开启
                 mCameraDevice = camera;
                 try {
                     SurfaceTexture surfaceTexture = mTextureView.getSurfaceTexture();
                     // TODO 是指预览图大小，设置不好会导致预览出现拉伸的情况
-                    CommonUtil.log(TAG, "onOpened:" + mCurrentSelectSize.toString());
+                    OcrLog.d(TAG, "onOpened:{}", mCurrentSelectSize);
                     surfaceTexture.setDefaultBufferSize(mCurrentSelectSize.getWidth(), mCurrentSelectSize.getHeight());
                     mSurface = new Surface(surfaceTexture);
                     // 创建预览请求
@@ -308,7 +457,7 @@ public class CameraHelper {
                     mCaptureRequest.set(CaptureRequest.CONTROL_AF_MODE, CaptureRequest.CONTROL_AF_MODE_CONTINUOUS_PICTURE);
                     mCaptureRequest.set(CaptureRequest.CONTROL_AE_MODE, CaptureRequest.CONTROL_AE_MODE_ON_AUTO_FLASH);//自动爆光
                     mCaptureRequest.addTarget(mSurface);
-                    mCameraDevice.createCaptureSession(Arrays.asList(mSurface, mImageReader.getSurface())
+                    mCameraDevice.createCaptureSession(Arrays.asList(mSurface, mImageReader.getSurface(), mFrameReader.getSurface())
                             , mCameraCaptureSessionStateCallback
                             , mCameraBackgroundHandler);
                 } catch (CameraAccessException e) {
@@ -329,7 +478,7 @@ public class CameraHelper {
                     mActivity.finish();
                 }
                 //Toast.makeText(mActivity, "相机打开失败", Toast.LENGTH_SHORT).show();
-                CommonUtil.log(TAG, "CameraDevice.StateCallback onError : 相机异常 error code=" + error);
+                OcrLog.e(TAG, "CameraDevice.StateCallback onError : 相机异常 error code={}", error);
                 releaseCamera();
             }
         };
@@ -347,7 +496,7 @@ public class CameraHelper {
             public void onConfigureFailed(@NonNull CameraCaptureSession session) {
                 mActivity.finish();
                 Toast.makeText(mActivity, "相机打开失败", Toast.LENGTH_SHORT).show();
-                CommonUtil.log(TAG, "CameraCaptureSession.StateCallback onConfigureFailed : CameraCaptureSession会话通道创建失败");
+                OcrLog.e(TAG, "CameraCaptureSession.StateCallback onConfigureFailed : CameraCaptureSession会话通道创建失败");
             }
         };
     }
@@ -377,7 +526,7 @@ public class CameraHelper {
                 super.onCaptureFailed(session, request, failure);
                 //获取失败
                 //Toast.makeText(mActivity, "拍照失败", Toast.LENGTH_SHORT).show();
-                CommonUtil.log(TAG, "onCaptureFailed,Reason=" + failure.getReason());
+                OcrLog.w(TAG, "onCaptureFailed,Reason={}", failure.getReason());
             }
         };
     }
@@ -403,10 +552,14 @@ public class CameraHelper {
 
 
     /**
-     * 开始预览
+     * 开始预览，开启了连续识别时同时输出预览帧
      */
     private void startPreview() {
+        if (mCameraCaptureSession == null || mCaptureRequest == null) {
+            return;
+        }
         try {
+            setFrameTarget(mCaptureRequest);
             mCameraCaptureSession.setRepeatingRequest(mCaptureRequest.build(), mCameraCaptureSessionCaptureCallback, mCameraBackgroundHandler);
         } catch (CameraAccessException e) {
             e.printStackTrace();
@@ -425,13 +578,132 @@ public class CameraHelper {
 
     }
 
+    /**
+     * 根据是否开启连续识别，在请求中添加或移除预览帧输出
+     */
+    private void setFrameTarget(CaptureRequest.Builder request) {
+        if (mFrameReader == null) {
+            return;
+        }
+        if (mOnPreviewFrameListener != null) {
+            request.addTarget(mFrameReader.getSurface());
+        } else {
+            request.removeTarget(mFrameReader.getSurface());
+        }
+    }
+
+    /**
+     * 开启连续识别，预览期间每一帧都回调给监听器，拍照期间预览暂停，不输出预览帧
+     * 相机会话还未创建时，在会话创建后开始输出
+     *
+     * @param onPreviewFrameListener 预览帧回调
+     */
+    public void startFrameAnalysis(OnPreviewFrameListener onPreviewFrameListener) {
+        if (mCameraManager == null) {
+            return;
+        }
+        try {
+            mFrameRotationDegrees = getJpegOrientation(mCameraManager.getCameraCharacteristics(mCurrentCameraId), getDisplayRotationDegrees());
+        } catch (CameraAccessException e) {
+            e.printStackTrace();
+        }
+        OcrLog.d(TAG, "startFrameAnalysis 预览帧旋转角度={}", mFrameRotationDegrees);
+        mOnPreviewFrameListener = onPreviewFrameListener;
+        restartPreview();
+    }
+
+    /**
+     * 停止连续识别，之后到达的预览帧直接关闭
+     */
+    public void stopFrameAnalysis() {
+        mOnPreviewFrameListener = null;
+        restartPreview();
+    }
+
+    /**
+     * 在相机后台线程中按当前的预览帧设置重新开始预览
+     */
+    private void restartPreview() {
+        Handler handler = mCameraBackgroundHandler;
+        if (handler == null) {
+            return;
+        }
+        handler.post(new Runnable() {
+            @Override
+            public void run() {
+                startPreview();
+            }
+        });
+    }
+
+    /**
+     * 预览帧的Size（传感器方向），相机初始化后可用
+     */
+    public Size getFrameSize() {
+        return mFrameSize;
+    }
+
+    /**
+     * 预览帧旋转角度，startFrameAnalysis()后可用
+     */
+    public int getFrameRotationDegrees() {
+        return mFrameRotationDegrees;
+    }
+
+    /**
+     * 屏幕的旋转角度
+     */
+    private int getDisplayRotationDegrees() {
+        switch (mActivity.getWindowManager().getDefaultDisplay().getRotation()) {
+            case Surface.ROTATION_90:
+                return 90;
+            case Surface.ROTATION_180:
+                return 180;
+            case Surface.ROTATION_270:
+                return 270;
+            default:
+                return 0;
+        }
+    }
+
     /**
      * 拍照
      *
      * @param onTakePictureListener 拍照成功后回调
      */
     public void takePicture(OnTakePictureListener onTakePictureListener) {
+        takePicture(onTakePictureListener, null);
+    }
+
+    /**
+     * 拍照，并在timer中标记拍照（请求到出图）及JPEG解码阶段
+     *
+     * @param onTakePictureListener 拍照成功后回调
+     * @param timer                 可为null
+     */
+    public void takePicture(OnTakePictureListener onTakePictureListener, StageTimer timer) {
         mOnTakePictureListener = onTakePictureListener;
+        mOnTakeImageListener = null;
+        capture(timer);
+    }
+
+    /**
+     * 拍照，直接回调相机输出的JPEG Image，不在相机线程中拷贝及解码，并在timer中标记拍照（请求到出图）阶段
+     *
+     * @param onTakeImageListener 拍照成功后回调
+     * @param timer               可为null
+     */
+    public void takeImage(OnTakeImageListener onTakeImageListener, StageTimer timer) {
+        mOnTakeImageListener = onTakeImageListener;
+        mOnTakePictureListener = null;
+        capture(timer);
+    }
+
+    /**
+     * 停止预览并拍摄一张JPEG图片，结果在mImageReader的回调中处理
+     */
+    private void capture(StageTimer timer) {
+        mCaptureTimer = timer;
         try {
             CaptureRequest.Builder takePictureRequest = mCameraDevice.createCaptureRequest(CameraDevice.TEMPLATE_STILL_CAPTURE);
             takePictureRequest.set(CaptureRequest.CONTROL_AF_MODE, CaptureRequest.CONTROL_AF_MODE_CONTINUOUS_PICTURE);//自动对焦
@@ -440,8 +712,7 @@ public class CameraHelper {
             mDeviceRotationDegrees = mActivity.getWindowManager().getDefaultDisplay().getRotation();
             // 计算图片选装角度
             mPictureRotationDegrees = getJpegOrientation(mCameraManager.getCameraCharacteristics(mCurrentCameraId), mDeviceRotationDegrees);
-            CommonUtil.log(TAG, "takePicture 设备旋转角度=" + mDeviceRotationDegrees);
-            CommonUtil.log(TAG, "takePicture 图片旋转角度=" + mPictureRotationDegrees);
+            OcrLog.d(TAG, "takePicture 设备旋转角度={}，图片旋转角度={}", mDeviceRotationDegrees, mPictureRotationDegrees);
             // takePictureRequest.set(CaptureRequest.JPEG_ORIENTATION, mPictureRotationDegrees);
             Surface surface = mImageReader.getSurface();
             takePictureRequest.addTarget(surface);
@@ -488,11 +759,16 @@ public class CameraHelper {
      * 释放相机资源
      */
     public void releaseCamera() {
-        CommonUtil.log(TAG, "releaseCamera========");
+        OcrLog.d(TAG, "releaseCamera========");
         if (mImageReader != null) {
             mImageReader.close();
             mImageReader = null;
         }
+        mOnPreviewFrameListener = null;
+        if (mFrameReader != null) {
+            mFrameReader.close();
+            mFrameReader = null;
+        }
         if (mCameraCaptureSession != null) {
 //            stopPreview();
 //            try {
@@ -543,6 +819,7 @@ public class CameraHelper {
             //设置开启闪光灯
             flashCaptureRequest.set(CaptureRequest.FLASH_MODE, CaptureRequest.FLASH_MODE_TORCH);
             flashCaptureRequest.addTarget(mSurface);
+            setFrameTarget(flashCaptureRequest);
             //通道设置新循环捕获请求
             mCameraCaptureSession.setRepeatingRequest(flashCaptureRequest.build(), null, null);
         } catch (CameraAccessException e) {
@@ -563,6 +840,7 @@ public class CameraHelper {
             //设置开启闪光灯
             flashCaptureRequest.set(CaptureRequest.FLASH_MODE, CaptureRequest.FLASH_MODE_OFF);
             flashCaptureRequest.addTarget(mSurface);
+            setFrameTarget(flashCaptureRequest);
             //通道设置新循环捕获请求
             mCameraCaptureSession.setRepeatingRequest(flashCaptureRequest.build(), null, null);
         } catch (CameraAccessException e) {
@@ -0,0 +1,112 @@
+package com.okg.textrecognition;
+
+import android.graphics.Rect;
+import android.os.Build;
+
+import com.google.mlkit.vision.text.Text;
+import com.okg.textrecognition.core.DeviceInfo;
+import com.okg.textrecognition.core.OcrCapture;
+import com.okg.textrecognition.core.OcrLog;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * @author okg
+ * @date 2026-10-18
+ * 描述：把ML Kit识别结果按OcrCapture格式保存到目录中，用于收集现场识别失败的样本，离线回放解析
+ * 保存的是识别结果本身（block、line、边界框、角点、文本）及当时的解析结果，不保存图片
+ * 目录中超过最大数量时不再写入，避免调试开关忘记关闭时占满存储
+ */
+public class CaptureRecorder {
+    private static final String TAG = "Mlkit-CaptureRecorder";
+    private static final int DEFAULT_MAX_CAPTURES = 500;
+
+    private final File mDirectory;
+    private final int mMaxCaptures;
+    private int mCaptureCount = -1;
+
+    /**
+     * @param directory 保存目录，不存在时创建
+     */
+    public CaptureRecorder(File directory) {
+        this(directory, DEFAULT_MAX_CAPTURES);
+    }
+
+    public CaptureRecorder(File directory, int maxCaptures) {
+        if (directory == null) {
+            throw new IllegalArgumentException("directory must not be null");
+        }
+        mDirectory = directory;
+        mMaxCaptures = maxCaptures;
+    }
+
+    /**
+     * 保存一次识别结果，写入失败只记录日志
+     *
+     * @param result   识别结果
+     * @param recorded 当时的解析结果，可为null
+     * @return 保存的文件，未保存时返回null
+     */
+    public File record(Text result, DeviceInfo recorded) {
+        return record(result, null, recorded);
+    }
+
+    /**
+     * 保存一次识别结果中参与解析的行，写入失败只记录日志
+     *
+     * @param result   识别结果
+     * @param region   解析时限定的区域，只保存参与解析的块及行（见OcrDocumentFactory.traverse），为null时保存全部
+     * @param recorded 当时的解析结果，可为null
+     * @return 保存的文件，未保存时返回null
+     */
+    public synchronized File record(Text result, Rect region, DeviceInfo recorded) {
+        if (result == null) {
+            return null;
+        }
+        if (mCaptureCount < 0) {
+            if (!mDirectory.isDirectory() && !mDirectory.mkdirs()) {
+                OcrLog.w(TAG, "无法创建采集目录：{}", mDirectory);
+                return null;
+            }
+            String[] names = mDirectory.list();
+            mCaptureCount = names == null ? 0 : names.length;
+        }
+        if (mCaptureCount >= mMaxCaptures) {
+            return null;
+        }
+        long timestamp = System.currentTimeMillis();
+        File file = new File(mDirectory, timestamp + OcrCapture.FILE_EXTENSION);
+        OutputStream output = null;
+        try {
+            output = new BufferedOutputStream(new FileOutputStream(file));
+            write(output, timestamp, result, region, recorded);
+            mCaptureCount++;
+            OcrLog.d(TAG, "已保存识别结果：{}", file.getName());
+            return file;
+        } catch (IOException e) {
+            OcrLog.w(TAG, "保存识别结果失败", e);
+            file.delete();
+            return null;
+        } finally {
+            if (output != null) {
+                try {
+                    output.close();
+                } catch (IOException ignored) {
+                }
+            }
+        }
+    }
+
+    /**
+     * 与OcrDocumentFactory.fromText使用同一次遍历，回放时重建的文档与设备上解析的文档一致
+     */
+    private static void write(OutputStream output, long timestamp, Text result, Rect region, DeviceInfo recorded) throws IOException {
+        OcrCapture.Writer writer = new OcrCapture.Writer(output, timestamp, Build.MANUFACTURER + " " + Build.MODEL + " " + BuildConfig.VERSION_NAME, recorded);
+        OcrDocumentFactory.traverse(result, region, writer);
+        writer.finish();
+    }
+}
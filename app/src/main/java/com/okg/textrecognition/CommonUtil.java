@@ -5,17 +5,27 @@ import android.app.Dialog;
 import android.content.Context;
 import android.content.res.Resources;
 import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.BitmapRegionDecoder;
+import android.graphics.Canvas;
+import android.graphics.Color;
 import android.graphics.Matrix;
+import android.graphics.Paint;
 import android.graphics.Rect;
+import android.graphics.RectF;
 import android.os.Build;
 import android.util.DisplayMetrics;
-import android.util.Log;
+import android.util.Size;
 import android.view.Gravity;
 import android.view.View;
 import android.view.Window;
 import android.view.WindowManager;
 import android.widget.Toast;
 
+import com.okg.textrecognition.core.OcrLog;
+
+import java.io.IOException;
+
 /**
  * @author oukanggui
  * @date 2023/7/25
@@ -25,7 +35,6 @@ import android.widget.Toast;
 public class CommonUtil {
 
     private static final String TAG = "Mlkit-CommonUtil";
-    private static boolean openLog = true;
 
     /**
      * 获取屏幕的宽度
@@ -87,28 +96,7 @@ public class CommonUtil {
     }
 
     /**
-     * 简单的日志打印，用于调试
-     *
-     * @param msg
-     */
-    public static void log(String msg) {
-        log(TAG, msg);
-    }
-
-    /**
-     * 简单的日志打印，用于调试
-     *
-     * @param tag
-     * @param msg
-     */
-    public static void log(String tag, String msg) {
-        if (openLog) {
-            Log.d(tag, msg);
-        }
-    }
-
-    /**
-     * 旋转图片
+     * 旋转图片，新图从BitmapPool中取，原图放回BitmapPool
      *
      * @param originBitmap
      * @param rotationDegrees
@@ -118,18 +106,19 @@ public class CommonUtil {
         if (originBitmap == null) {
             return null;
         }
+        if (rotationDegrees % 360 == 0) {
+            return originBitmap;
+        }
         Matrix matrix = new Matrix();
         matrix.setRotate(rotationDegrees);
-        Bitmap newBitmap = Bitmap.createBitmap(originBitmap, 0, 0, originBitmap.getWidth(), originBitmap.getHeight(), matrix, true);
-        if (newBitmap.equals(originBitmap)) {
-            return newBitmap;
-        }
-        originBitmap.recycle();
-        return newBitmap;
+        RectF bounds = new RectF(0, 0, originBitmap.getWidth(), originBitmap.getHeight());
+        matrix.mapRect(bounds);
+        matrix.postTranslate(-bounds.left, -bounds.top);
+        return transformBitmap(originBitmap, Math.round(bounds.width()), Math.round(bounds.height()), matrix, true, "rotate", "rotateBitmap");
     }
 
     /**
-     * 裁剪图片
+     * 裁剪图片，新图从BitmapPool中取，原图放回BitmapPool
      *
      * @param originBitmap
      * @param cropRect
@@ -142,16 +131,23 @@ public class CommonUtil {
         if (cropRect == null) {
             return originBitmap;
         }
-        Bitmap newBitmap = Bitmap.createBitmap(originBitmap, cropRect.left, cropRect.top, cropRect.width(), cropRect.height());
-        if (newBitmap.equals(originBitmap)) {
-            return newBitmap;
+        if (cropRect.left == 0 && cropRect.top == 0 && cropRect.width() == originBitmap.getWidth() && cropRect.height() == originBitmap.getHeight()) {
+            return originBitmap;
         }
-        originBitmap.recycle();
-        return newBitmap;
+        if (cropRect.width() <= 0 || cropRect.height() <= 0) {
+            throw new IllegalArgumentException("cropRect must not be empty: " + cropRect);
+        }
+        // 与Bitmap.createBitmap一致，裁剪区域不能超出原图
+        if (cropRect.left < 0 || cropRect.top < 0 || cropRect.right > originBitmap.getWidth() || cropRect.bottom > originBitmap.getHeight()) {
+            throw new IllegalArgumentException("cropRect " + cropRect + " exceeds bitmap " + originBitmap.getWidth() + "x" + originBitmap.getHeight());
+        }
+        Matrix matrix = new Matrix();
+        matrix.setTranslate(-cropRect.left, -cropRect.top);
+        return transformBitmap(originBitmap, cropRect.width(), cropRect.height(), matrix, false, "crop", "cropBitmap");
     }
 
     /**
-     * 按比例缩放图片
+     * 按比例缩放图片，新图从BitmapPool中取，原图放回BitmapPool
      *
      * @param originBitmap 原图
      * @param ratio        比例
@@ -161,20 +157,100 @@ public class CommonUtil {
         if (originBitmap == null) {
             return null;
         }
+        if (ratio == 1) {
+            return originBitmap;
+        }
         int width = originBitmap.getWidth();
         int height = originBitmap.getHeight();
+        int newWidth = Math.max(1, Math.round(width * ratio));
+        int newHeight = Math.max(1, Math.round(height * ratio));
+        if (OcrLog.isLoggable(OcrLog.DEBUG)) {
+            OcrLog.d(TAG, "缩放前宽高：{}，缩放后宽高：{}", new Size(width, height), new Size(newWidth, newHeight));
+        }
         Matrix matrix = new Matrix();
-        matrix.preScale(ratio, ratio);
-        Bitmap newBitmap = Bitmap.createBitmap(originBitmap, 0, 0, width, height, matrix, false);
-        log(TAG, "缩放前宽高：" + width + "-" + height);
-        log(TAG, "缩放后宽高：" + newBitmap.getWidth() + "-" + newBitmap.getHeight());
-        if (newBitmap.equals(originBitmap)) {
-            return newBitmap;
-        }
-        originBitmap.recycle();
+        matrix.setScale(ratio, ratio);
+        return transformBitmap(originBitmap, newWidth, newHeight, matrix, false, "scale", "scaleBitmap");
+    }
+
+    /**
+     * 按matrix把原图绘制到从BitmapPool中取出的新图上，原图放回BitmapPool
+     * 池中的图片保留着之前扫描的内容，原图绘制后不能覆盖整张新图时（非90度整数倍旋转的四角、缩放取整多出的一行一列）先清空
+     *
+     * @param filter 是否双线性过滤
+     * @param stage  新建图片时记入BitmapTracker的阶段
+     * @param where  原图放回时的调用位置
+     */
+    private static Bitmap transformBitmap(Bitmap originBitmap, int width, int height, Matrix matrix, boolean filter, String stage, String where) {
+        Bitmap.Config config = originBitmap.getConfig() == null ? Bitmap.Config.ARGB_8888 : originBitmap.getConfig();
+        Bitmap newBitmap = BitmapPool.obtain(width, height, config, stage);
+        RectF drawn = new RectF(0, 0, originBitmap.getWidth(), originBitmap.getHeight());
+        if (!matrix.mapRect(drawn) || !drawn.contains(0, 0, width, height)) {
+            newBitmap.eraseColor(Color.TRANSPARENT);
+        }
+        Canvas canvas = new Canvas(newBitmap);
+        canvas.drawBitmap(originBitmap, matrix, filter ? new Paint(Paint.FILTER_BITMAP_FLAG) : null);
+        BitmapPool.release(originBitmap, where);
         return newBitmap;
     }
 
+    /**
+     * 解码整张JPEG，优先复用BitmapPool中尺寸相同的图片（inBitmap），解码出的图片可修改，之后可放回BitmapPool
+     *
+     * @param data   JPEG数据
+     * @param length data中有效数据的长度
+     * @param width  图片宽度，用于从BitmapPool中取图
+     * @param height 图片高度
+     * @return 解码失败时返回null
+     */
+    public static Bitmap decodeJpeg(byte[] data, int length, int width, int height) {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inMutable = true;
+        options.inBitmap = BitmapPool.get(width, height, Bitmap.Config.ARGB_8888);
+        Bitmap bitmap;
+        try {
+            bitmap = BitmapFactory.decodeByteArray(data, 0, length, options);
+        } catch (IllegalArgumentException e) {
+            // 图片实际尺寸与复用的图片不一致，不复用重新解码
+            OcrLog.w(TAG, "复用图片解码失败，重新解码", e);
+            BitmapPool.release(options.inBitmap, "decodeJpeg");
+            options.inBitmap = null;
+            bitmap = BitmapFactory.decodeByteArray(data, 0, length, options);
+        }
+        return BitmapTracker.track(bitmap, "decode");
+    }
+
+    /**
+     * 只解码JPEG中的指定区域，并按采样倍数缩小，不解码区域外的像素
+     *
+     * @param data       JPEG数据
+     * @param length     data中有效数据的长度
+     * @param region     解码区域，图片坐标
+     * @param sampleSize 采样倍数，见BitmapFactory.Options.inSampleSize
+     * @param config     像素格式
+     * @return 解码失败时返回null
+     */
+    public static Bitmap decodeJpegRegion(byte[] data, int length, Rect region, int sampleSize, Bitmap.Config config) {
+        BitmapRegionDecoder decoder = null;
+        try {
+            decoder = BitmapRegionDecoder.newInstance(data, 0, length, false);
+            BitmapFactory.Options options = new BitmapFactory.Options();
+            options.inSampleSize = sampleSize;
+            options.inPreferredConfig = config;
+            Bitmap bitmap = decoder.decodeRegion(region, options);
+            if (OcrLog.isLoggable(OcrLog.DEBUG) && bitmap != null) {
+                OcrLog.d(TAG, "区域解码：{}，采样倍数：{}，解码后宽高：{}", region, sampleSize, new Size(bitmap.getWidth(), bitmap.getHeight()));
+            }
+            return BitmapTracker.track(bitmap, "decode");
+        } catch (IOException | IllegalArgumentException e) {
+            OcrLog.w(TAG, "区域解码失败", e);
+            return null;
+        } finally {
+            if (decoder != null) {
+                decoder.recycle();
+            }
+        }
+    }
+
     /**
      * 设置全屏显示，需要在setContentView前调用
      *
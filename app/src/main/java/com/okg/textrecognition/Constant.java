@@ -10,4 +10,46 @@ public class Constant {
     public static final String KEY_IMEI1 = "keyImei1";
     public static final String KEY_IMEI2 = "keyImei2";
     public static final String KEY_SN = "keySn";
+    /**
+     * 启动识别界面时传入，为true时进入外箱标签模式：一次拍摄解析标签上所有设备，不做连续识别
+     */
+    public static final String KEY_CARTON_MODE = "keyCartonMode";
+    /**
+     * 外箱标签模式的返回结果，每台设备一条DeviceInfo.toJson()，按标签上从上到下的顺序排列
+     */
+    public static final String KEY_DEVICE_LIST = "keyDeviceList";
+    /**
+     * 是否采集识别结果用于离线回放，保存在应用外部文件目录的captures下
+     */
+    public static final boolean RECORD_CAPTURES = false;
+    public static final String CAPTURE_DIRECTORY = "captures";
+    /**
+     * 是否在识别界面显示各阶段耗时分位数的调试浮层
+     */
+    public static final boolean SHOW_METRICS_OVERLAY = BuildConfig.DEBUG;
+    /**
+     * 是否开启连续识别：预览帧直接送识别，多帧结果一致后自动返回，点击拍照仍按单张识别
+     */
+    public static final boolean CONTINUOUS_RECOGNITION = true;
+    /**
+     * 连续识别时同时识别的最大帧数，识别中到达的帧只保留最新的一帧
+     */
+    public static final int FRAME_MAX_IN_FLIGHT = 1;
+    /**
+     * 拍照识别方式：只解码取景框区域并按字符高度缩小后识别，显示解码后的图片
+     */
+    public static final int STILL_MODE_REGION_DECODE = 0;
+    /**
+     * 拍照识别方式：直接以相机输出的JPEG Image识别整张图片，只解析取景框内的文本，省去应用内的字节拷贝及Bitmap解码
+     */
+    public static final int STILL_MODE_DIRECT_IMAGE = 1;
+    /**
+     * 拍照识别方式：解码整张图片后旋转、缩放、裁剪再识别
+     */
+    public static final int STILL_MODE_FULL_DECODE = 2;
+    public static final int STILL_CAPTURE_MODE = STILL_MODE_REGION_DECODE;
+    /**
+     * 外箱标签模式下估算字符高度时取景框容纳的行数，外箱标签的行数远多于单机标签，解码时少缩小
+     */
+    public static final int CARTON_LINES_PER_REGION = 24;
 }
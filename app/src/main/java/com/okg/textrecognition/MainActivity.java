@@ -8,15 +8,21 @@ import android.os.Bundle;
 import android.view.View;
 import android.widget.Button;
 
+import com.okg.textrecognition.core.OcrLog;
+
+import java.util.ArrayList;
+
 public class MainActivity extends AppCompatActivity {
+    private static final String TAG = "Mlkit-MainActivity";
     private static final int CODE_REQUEST_TEXT_RECOGNITION = 50;
-    private Button btnTextRecognition, btnQRCodeScan;
+    private Button btnTextRecognition, btnCartonLabel, btnQRCodeScan;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_main);
         btnTextRecognition = findViewById(R.id.btn_text_recognition);
+        btnCartonLabel = findViewById(R.id.btn_carton_label);
         btnQRCodeScan = findViewById(R.id.btn_qrcode_scan);
         btnTextRecognition.setOnClickListener(new View.OnClickListener() {
             @Override
@@ -25,6 +31,14 @@ public class MainActivity extends AppCompatActivity {
                         , CODE_REQUEST_TEXT_RECOGNITION);
             }
         });
+        btnCartonLabel.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View view) {
+                Intent intent = new Intent(MainActivity.this, TextRecognitionActivity.class);
+                intent.putExtra(Constant.KEY_CARTON_MODE, true);
+                startActivityForResult(intent, CODE_REQUEST_TEXT_RECOGNITION);
+            }
+        });
         btnQRCodeScan.setOnClickListener(new View.OnClickListener() {
             @Override
             public void onClick(View view) {
@@ -37,12 +51,15 @@ public class MainActivity extends AppCompatActivity {
     protected void onActivityResult(int requestCode, int resultCode, @Nullable Intent data) {
         super.onActivityResult(requestCode, resultCode, data);
         if (requestCode == CODE_REQUEST_TEXT_RECOGNITION && resultCode == RESULT_OK && data != null) {
+            ArrayList<String> deviceList = data.getStringArrayListExtra(Constant.KEY_DEVICE_LIST);
+            if (deviceList != null) {
+                OcrLog.d(TAG, "onActivityResult == :{} devices\n{}", deviceList.size(), deviceList);
+                return;
+            }
             String imei1 = data.getStringExtra(Constant.KEY_IMEI1);
             String imei2 = data.getStringExtra(Constant.KEY_IMEI2);
             String sn = data.getStringExtra(Constant.KEY_SN);
-            CommonUtil.log("Main-onActivityResult == :" + "imei1 = " + imei1 + "\n" +
-                    "imei2 = " + imei2 + "\n" +
-                    "sn = " + sn);
+            OcrLog.d(TAG, "onActivityResult == :imei1 = {}\nimei2 = {}\nsn = {}", imei1, imei2, sn);
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,26 @@
+package com.okg.textrecognition;
+
+import android.app.Application;
+import android.util.Log;
+
+import com.okg.textrecognition.core.OcrLog;
+
+/**
+ * @author okg
+ * @date 2026-10-18
+ * 描述：应用入口，进程启动时设置日志输出，调试包输出DEBUG及以上，发布包只输出WARN及以上
+ * 发布包开启混淆时，v/d/i日志调用会被proguard-rules.pro中的规则整体去掉
+ */
+public class OcrApplication extends Application {
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        OcrLog.setPrinter(new OcrLog.Printer() {
+            @Override
+            public void print(int level, String tag, String msg, Throwable tr) {
+                Log.println(level, tag, tr == null ? msg : msg + '\n' + Log.getStackTraceString(tr));
+            }
+        }, BuildConfig.DEBUG ? OcrLog.DEBUG : OcrLog.WARN);
+    }
+}
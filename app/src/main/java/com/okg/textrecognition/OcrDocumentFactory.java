@@ -0,0 +1,129 @@
+package com.okg.textrecognition;
+
+import android.graphics.Point;
+import android.graphics.Rect;
+
+import com.google.mlkit.vision.text.Text;
+import com.okg.textrecognition.core.OcrDocument;
+import com.okg.textrecognition.core.OcrDocumentSink;
+
+import java.util.List;
+
+/**
+ * @author okg
+ * @date 2026-10-18
+ * 描述：将ML Kit识别结果转换为OcrDocument，每次识别只转换一次
+ * 行优先以角点及角度添加，由OcrDocument估计主基线并把边界框旋转到基线坐标系，倾斜拍摄时横向配对仍然有效
+ */
+public class OcrDocumentFactory {
+
+    private OcrDocumentFactory() {
+
+    }
+
+    /**
+     * 将识别结果转换为紧凑文档模型
+     *
+     * @param result
+     * @return
+     */
+    public static OcrDocument fromText(Text result) {
+        return fromText(result, null);
+    }
+
+    /**
+     * 将识别结果中位于指定区域内的行转换为紧凑文档模型，见traverse
+     *
+     * @param result
+     * @param region 识别图片坐标系中的区域（如取景框），为null时转换全部块及行（包括没有行的块），见isInRegion
+     * @return
+     */
+    public static OcrDocument fromText(Text result, Rect region) {
+        int blockCount = result.getTextBlocks().size();
+        String fullText = result.getText();
+        OcrDocument.Builder builder = new OcrDocument.Builder(blockCount, blockCount * 2, fullText == null ? 0 : fullText.length());
+        traverse(result, region, builder);
+        return builder.build();
+    }
+
+    /**
+     * 按block、line的顺序把识别结果中位于指定区域内的行交给sink，构建文档及保存采集（CaptureRecorder）共用，保证两者一致
+     * 没有行位于区域内的块不加入；块中只有部分行位于区域内时，块的边界框取保留的行的边界框的并集，不包含被过滤掉的行
+     *
+     * @param result
+     * @param region 识别图片坐标系中的区域（如取景框），为null时交出全部块及行（包括没有行的块），见isInRegion
+     * @param sink
+     */
+    public static void traverse(Text result, Rect region, OcrDocumentSink sink) {
+        List<Text.TextBlock> textBlocks = result.getTextBlocks();
+        int blockCount = textBlocks.size();
+        // 角点在addLine时被复制，可复用
+        int[] corners = new int[8];
+        Rect keptBounds = new Rect();
+        for (int i = 0; i < blockCount; i++) {
+            Text.TextBlock textBlock = textBlocks.get(i);
+            Rect blockRect = textBlock.getBoundingBox();
+            List<Text.Line> lines = textBlock.getLines();
+            int lineCount = lines == null ? 0 : lines.size();
+            if (region != null) {
+                int keptCount = 0;
+                keptBounds.setEmpty();
+                for (int j = 0; j < lineCount; j++) {
+                    Rect lineRect = lines.get(j).getBoundingBox();
+                    if (isInRegion(lineRect, region)) {
+                        keptCount++;
+                        if (lineRect != null) {
+                            keptBounds.union(lineRect);
+                        }
+                    }
+                }
+                if (keptCount == 0) {
+                    continue;
+                }
+                if (keptCount < lineCount) {
+                    blockRect = keptBounds.isEmpty() ? null : keptBounds;
+                }
+            }
+            if (blockRect == null) {
+                sink.beginBlock(OcrDocument.NO_BOUND, OcrDocument.NO_BOUND, OcrDocument.NO_BOUND, OcrDocument.NO_BOUND);
+            } else {
+                sink.beginBlock(blockRect.left, blockRect.top, blockRect.right, blockRect.bottom);
+            }
+            for (int j = 0; j < lineCount; j++) {
+                Text.Line line = lines.get(j);
+                Rect lineRect = line.getBoundingBox();
+                if (!isInRegion(lineRect, region)) {
+                    continue;
+                }
+                Point[] cornerPoints = line.getCornerPoints();
+                boolean hasCorners = cornerPoints != null && cornerPoints.length == 4;
+                if (hasCorners) {
+                    for (int k = 0; k < 4; k++) {
+                        corners[k << 1] = cornerPoints[k].x;
+                        corners[(k << 1) + 1] = cornerPoints[k].y;
+                    }
+                }
+                if (lineRect == null) {
+                    sink.addLine(line.getText(), OcrDocument.NO_BOUND, OcrDocument.NO_BOUND, OcrDocument.NO_BOUND, OcrDocument.NO_BOUND,
+                            hasCorners ? corners : null, line.getAngle());
+                } else {
+                    sink.addLine(line.getText(), lineRect.left, lineRect.top, lineRect.right, lineRect.bottom,
+                            hasCorners ? corners : null, line.getAngle());
+                }
+            }
+        }
+    }
+
+    /**
+     * 行是否位于区域内：以边界框中心点判断，部分超出取景框的行仍然保留；没有边界框的行视为在区域内
+     *
+     * @param lineRect 行的边界框，可为null
+     * @param region   为null时不限制区域
+     */
+    public static boolean isInRegion(Rect lineRect, Rect region) {
+        if (region == null || lineRect == null) {
+            return true;
+        }
+        return region.contains(lineRect.centerX(), lineRect.centerY());
+    }
+}
@@ -13,8 +13,13 @@ import android.content.Intent;
 import android.content.pm.PackageManager;
 import android.graphics.Bitmap;
 import android.graphics.Rect;
+import android.media.Image;
+import android.os.Build;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
 import android.text.TextUtils;
+import android.util.Size;
 import android.view.Gravity;
 import android.view.TextureView;
 import android.view.View;
@@ -35,10 +40,24 @@ import com.google.mlkit.vision.text.Text;
 import com.google.mlkit.vision.text.TextRecognition;
 import com.google.mlkit.vision.text.TextRecognizer;
 import com.google.mlkit.vision.text.chinese.ChineseTextRecognizerOptions;
+import com.okg.textrecognition.core.DeviceInfo;
+import com.okg.textrecognition.core.DrainingExecutor;
+import com.okg.textrecognition.core.FrameConsensus;
+import com.okg.textrecognition.core.FrameRegion;
+import com.okg.textrecognition.core.FrameScheduler;
+import com.okg.textrecognition.core.ImeiValidator;
+import com.okg.textrecognition.core.MetricsRegistry;
+import com.okg.textrecognition.core.OcrLog;
+import com.okg.textrecognition.core.StageTimer;
+import com.okg.textrecognition.core.YuvRoiCropper;
 
-import org.json.JSONObject;
-
+import java.io.File;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 
 public class TextRecognitionActivity extends AppCompatActivity implements View.OnClickListener {
     private static final String TAG = "Mlkit-TextRecognitionActivity";
@@ -47,6 +66,14 @@ public class TextRecognitionActivity extends AppCompatActivity implements View.O
 
     private FrameLayout textureViewContainer;
     private TextView tvContent;
+    /**
+     * 调试浮层，显示各阶段耗时分位数
+     */
+    private TextView tvMetrics;
+    /**
+     * ivCrop当前显示的图片，替换或退出时放回BitmapPool
+     */
+    private Bitmap mShownBitmap;
 
     private ViewFinderView frameView;
     private ImageView ivCrop, ivBack, ivTakePicture, ivInput, ivTorch;
@@ -57,7 +84,48 @@ public class TextRecognitionActivity extends AppCompatActivity implements View.O
      */
     private boolean isTorchOpen = false;
 
-    private ArrayList<String> mTextLineList;
+    /**
+     * 识别后处理线程：图片预处理、识别结果回调、解析及跳转数据准备均在该线程执行，主线程只做最终的界面更新
+     * 每次发起识别前登记、识别完成的回调中结束登记，退出时等进行中的识别全部完成后再关闭线程，回调不会被拒绝
+     */
+    private DrainingExecutor mRecognitionExecutor;
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+    /**
+     * 拍照识别及连续识别共用的识别器
+     */
+    private TextRecognizer mRecognizer;
+    /**
+     * 连续识别的多帧投票，只在识别后处理线程中使用
+     */
+    private final FrameConsensus mFrameConsensus = new FrameConsensus();
+    /**
+     * 预览帧调度：识别中的帧数达到上限时只保留最新的一帧待识别，丢弃及过时的帧计入frame.*计数器
+     */
+    private FrameScheduler<Image> mFrameScheduler;
+    /**
+     * 预览帧旋转角度，由相机回调更新
+     */
+    private volatile int mFrameRotationDegrees;
+    /**
+     * 取景框在预览帧中的裁剪区域，界面布局完成后计算一次，计算前到达的帧直接丢弃
+     */
+    private volatile YuvRoiCropper mFrameCropper;
+    /**
+     * 裁剪后的NV21数据缓冲，识别完成后放回复用，数量不超过同时识别的帧数
+     */
+    private final ConcurrentLinkedQueue<byte[]> mFrameBuffers = new ConcurrentLinkedQueue<>();
+    /**
+     * 拍照JPEG数据的复用缓冲，只在识别后处理线程中使用
+     */
+    private byte[] mJpegBuffer;
+    /**
+     * 连续识别是否已得到结果，得到结果后不再处理预览帧
+     */
+    private volatile boolean mFrameResultDelivered;
+    /**
+     * 外箱标签模式，见Constant.KEY_CARTON_MODE
+     */
+    private boolean mCartonMode;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -68,7 +136,29 @@ public class TextRecognitionActivity extends AppCompatActivity implements View.O
         setContentView(R.layout.activity_text_recognition);
         // 隐藏导航键
         CommonUtil.hideNavigationBar(this);
+        mCartonMode = getIntent() != null && getIntent().getBooleanExtra(Constant.KEY_CARTON_MODE, false);
 
+        mRecognitionExecutor = new DrainingExecutor(Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                return new Thread(runnable, "ocr-recognition");
+            }
+        }));
+        mRecognizer = TextRecognition.getClient(new ChineseTextRecognizerOptions.Builder().build());
+        mFrameScheduler = new FrameScheduler<>(Constant.FRAME_MAX_IN_FLIGHT, new FrameScheduler.Processor<Image>() {
+            @Override
+            public void process(Image image, long ticket) {
+                analyzeFrame(image, ticket);
+            }
+        }, new FrameScheduler.Releaser<Image>() {
+            @Override
+            public void release(Image image) {
+                image.close();
+            }
+        }, MetricsRegistry.getInstance(), "frame.");
+        if (Constant.RECORD_CAPTURES) {
+            OCRHelper.getInstance().setCaptureRecorder(new CaptureRecorder(new File(getExternalFilesDir(null), Constant.CAPTURE_DIRECTORY)));
+        }
         initView();
         requestPermission();
     }
@@ -79,6 +169,16 @@ public class TextRecognitionActivity extends AppCompatActivity implements View.O
         if (mCameraHelper != null) {
             mCameraHelper.releaseCamera();
         }
+        mMainHandler.removeCallbacksAndMessages(null);
+        // 先关闭识别器，进行中的识别随之结束，其回调仍在识别后处理线程中执行（关闭image、通知调度器），全部完成后再关闭线程
+        mFrameScheduler.cancel();
+        mRecognizer.close();
+        mRecognitionExecutor.shutdownWhenIdle();
+        ivCrop.setImageDrawable(null);
+        BitmapPool.release(mShownBitmap, "onDestroy");
+        mShownBitmap = null;
+        BitmapPool.clear();
+        OcrLog.i(TAG, "stage metrics {}: {}", Build.MODEL, MetricsRegistry.getInstance().toJson());
     }
 
     @Override
@@ -98,13 +198,18 @@ public class TextRecognitionActivity extends AppCompatActivity implements View.O
         super.onActivityResult(requestCode, resultCode, data);
         if (requestCode == CODE_REQUEST_IMEI_SELECT_ACTIVITY && resultCode == RESULT_OK && data != null) {
             String imei1 = data.getStringExtra(Constant.KEY_IMEI1);
-            CommonUtil.log(TAG, "onActivityResult == :" + "imei1 = " + imei1);
+            OcrLog.d(TAG, "onActivityResult == :imei1 = {}", imei1);
             setResultAndFinish(imei1, null, null);
         }
     }
 
     private void initView() {
         tvContent = findViewById(R.id.tv_content);
+        tvMetrics = findViewById(R.id.tv_metrics);
+        if (Constant.SHOW_METRICS_OVERLAY) {
+            tvMetrics.setVisibility(View.VISIBLE);
+            tvMetrics.setText(MetricsRegistry.getInstance().toText());
+        }
         ivTakePicture = findViewById(R.id.iv_take_picture);
         ivBack = findViewById(R.id.iv_back);
         ivInput = findViewById(R.id.iv_input);
@@ -135,6 +240,41 @@ public class TextRecognitionActivity extends AppCompatActivity implements View.O
     private void setupCamera() {
         mCameraHelper = new CameraHelper(this);
         mCameraHelper.setUpWithTextureView(createTextureView());
+        // 多帧投票只针对单台设备，外箱标签模式只做拍照识别
+        if (Constant.CONTINUOUS_RECOGNITION && !mCartonMode) {
+            mCameraHelper.startFrameAnalysis(new CameraHelper.OnPreviewFrameListener() {
+                @Override
+                public void onPreviewFrame(Image image, int rotationDegrees) {
+                    if (mFrameResultDelivered || mRecognitionExecutor.isShutdownRequested()) {
+                        image.close();
+                        return;
+                    }
+                    mFrameRotationDegrees = rotationDegrees;
+                    mFrameScheduler.submit(image);
+                }
+            });
+            frameView.post(new Runnable() {
+                @Override
+                public void run() {
+                    initFrameCropper();
+                }
+            });
+        }
+    }
+
+    /**
+     * 根据取景框在界面上的位置、预览帧尺寸及旋转角度计算预览帧的裁剪区域，在界面布局完成后调用
+     */
+    private void initFrameCropper() {
+        Size frameSize = mCameraHelper == null ? null : mCameraHelper.getFrameSize();
+        if (frameSize == null || frameView.getWidth() <= 0 || frameView.getHeight() <= 0) {
+            OcrLog.w(TAG, "预览帧尺寸或界面尺寸不可用，连续识别不裁剪取景框区域");
+            return;
+        }
+        YuvRoiCropper cropper = new YuvRoiCropper(frameView.getFrameLeft(), frameView.getFrameTop(), frameView.getFrameRight(), frameView.getFrameBottom()
+                , frameView.getWidth(), frameView.getHeight(), frameSize.getWidth(), frameSize.getHeight(), mCameraHelper.getFrameRotationDegrees());
+        OcrLog.d(TAG, "预览帧裁剪区域 {}x{}，占整帧{}", cropper.getWidth(), cropper.getHeight(), cropper.getAreaRatio());
+        mFrameCropper = cropper;
     }
 
     private TextureView createTextureView() {
@@ -165,89 +305,480 @@ public class TextRecognitionActivity extends AppCompatActivity implements View.O
                 }
                 break;
             case R.id.iv_take_picture:
-                if (mCameraHelper != null) {
-                    mCameraHelper.takePicture(new CameraHelper.OnTakePictureListener() {
+                takePicture();
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * 拍照识别，识别方式见Constant.STILL_CAPTURE_MODE
+     */
+    private void takePicture() {
+        if (mCameraHelper == null) {
+            return;
+        }
+        final StageTimer timer = new StageTimer("recognition");
+        BitmapTracker.beginScan();
+        if (Constant.STILL_CAPTURE_MODE != Constant.STILL_MODE_FULL_DECODE) {
+            mCameraHelper.takeImage(new CameraHelper.OnTakeImageListener() {
+                @Override
+                public void onTakeImage(Image image, int pictureRotationDegrees, int deviceRotationDegrees) {
+                    // 在相机后台线程回调
+                    OcrLog.d(TAG, "onTakeImage , pictureRotationDegrees = {},deviceRotationDegrees={}", pictureRotationDegrees, deviceRotationDegrees);
+                    closeTorchAfterCapture();
+                    if (Constant.STILL_CAPTURE_MODE == Constant.STILL_MODE_DIRECT_IMAGE) {
+                        analyzeImage(image, pictureRotationDegrees, timer);
+                        return;
+                    }
+                    boolean accepted = mRecognitionExecutor.tryExecute(new Runnable() {
                         @Override
-                        public void onTakePicture(Bitmap bitmap, int pictureRotationDegrees, int deviceRotationDegrees) {
-                            CommonUtil.log(TAG, "onTakePicture , bitmap = " + bitmap + ", pictureRotationDegrees = " + pictureRotationDegrees + ",deviceRotationDegrees=" + deviceRotationDegrees);
-                            // 如果打开了手电筒，则拍完照后立即关闭手电筒
-                            if (isTorchOpen) {
-                                closeTorch();
-                            }
-                            analyzeImage(bitmap, pictureRotationDegrees);
+                        public void run() {
+                            timer.mark("queue");
+                            analyzeImageRegion(image, pictureRotationDegrees, timer);
                         }
                     });
+                    if (!accepted) {
+                        image.close();
+                        BitmapTracker.endScan();
+                    }
                 }
-                break;
-            default:
-                break;
+            }, timer);
+            return;
         }
+        mCameraHelper.takePicture(new CameraHelper.OnTakePictureListener() {
+            @Override
+            public void onTakePicture(final Bitmap bitmap, final int pictureRotationDegrees, int deviceRotationDegrees) {
+                // 在相机后台线程回调
+                OcrLog.d(TAG, "onTakePicture , bitmap = {}, pictureRotationDegrees = {},deviceRotationDegrees={}", bitmap, pictureRotationDegrees, deviceRotationDegrees);
+                closeTorchAfterCapture();
+                boolean accepted = mRecognitionExecutor.tryExecute(new Runnable() {
+                    @Override
+                    public void run() {
+                        timer.mark("queue");
+                        analyzeImage(bitmap, pictureRotationDegrees, timer);
+                    }
+                });
+                if (!accepted) {
+                    BitmapPool.release(bitmap, "onTakePicture");
+                    BitmapTracker.endScan();
+                }
+            }
+        }, timer);
+    }
+
+    /**
+     * 如果打开了手电筒，则拍完照后立即关闭手电筒
+     */
+    private void closeTorchAfterCapture() {
+        mMainHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                if (isTorchOpen) {
+                    closeTorch();
+                }
+            }
+        });
     }
 
     /**
-     * 解析文本
+     * 直接识别相机输出的JPEG Image，在相机后台线程中调用，不拷贝字节、不在应用内解码Bitmap
+     * 识别整张图片，只解析中心点在取景框内的行；识别完成（无论成功与否）后关闭image，已退出时直接关闭
      */
     @SuppressLint("UnsafeOptInUsageError")
-    private void analyzeImage(Bitmap bitmap, int rotationDegrees) {
+    private void analyzeImage(Image image, int rotationDegrees, StageTimer timer) {
+        if (!mRecognitionExecutor.tryAcquire()) {
+            image.close();
+            BitmapTracker.endScan();
+            return;
+        }
+        boolean swapped = rotationDegrees == 90 || rotationDegrees == 270;
+        Rect region = getViewfinderRegion(swapped ? image.getHeight() : image.getWidth(), swapped ? image.getWidth() : image.getHeight());
+        InputImage inputImage = InputImage.fromMediaImage(image, rotationDegrees);
+        mRecognizer.process(inputImage).addOnSuccessListener(mRecognitionExecutor, new OnSuccessListener<Text>() {
+            @Override
+            public void onSuccess(Text result) {
+                timer.mark("recognize");
+                onStillRecognized(result, region, null, timer);
+            }
+        }).addOnFailureListener(mRecognitionExecutor, new OnFailureListener() {
+            @Override
+            public void onFailure(@NonNull Exception e) {
+                e.printStackTrace();
+                BitmapTracker.endScan();
+            }
+        }).addOnCompleteListener(mRecognitionExecutor, new OnCompleteListener<Text>() {
+            @Override
+            public void onComplete(@NonNull Task<Text> task) {
+                image.close();
+                mRecognitionExecutor.release();
+            }
+        });
+    }
+
+    /**
+     * 取景框在识别图片（已旋转为界面方向）中的区域，预览充满界面且与拍照分辨率宽高比相同，按比例换算
+     *
+     * @return 界面尚未布局时返回null，不限制区域
+     */
+    private Rect getViewfinderRegion(int imageWidth, int imageHeight) {
+        int viewWidth = frameView.getWidth();
+        int viewHeight = frameView.getHeight();
+        if (viewWidth <= 0 || viewHeight <= 0) {
+            return null;
+        }
+        float scaleX = (float) imageWidth / viewWidth;
+        float scaleY = (float) imageHeight / viewHeight;
+        return new Rect((int) (frameView.getFrameLeft() * scaleX), (int) (frameView.getFrameTop() * scaleY)
+                , (int) (frameView.getFrameRight() * scaleX), (int) (frameView.getFrameBottom() * scaleY));
+    }
+
+    /**
+     * 识别解码后的整张图片，旋转、缩放、裁剪为取景框区域后识别，在识别后处理线程中执行
+     */
+    private void analyzeImage(Bitmap bitmap, int rotationDegrees, StageTimer timer) {
         if (bitmap == null) {
-            CommonUtil.log(TAG, "analyzeImage , bitmap is null !!!!!!!");
+            OcrLog.w(TAG, "analyzeImage , bitmap is null !!!!!!!");
+            BitmapTracker.endScan();
+            return;
+        }
+        recognizeBitmap(handleBitmap(bitmap, rotationDegrees, timer), timer);
+    }
+
+    /**
+     * 只解码JPEG中取景框对应的区域，按估算的字符高度选择采样倍数，以RGB_565解码后旋转为界面方向再识别，在识别后处理线程中执行
+     * 不解码整张图片，也不需要再缩放、裁剪；拷贝出JPEG数据后立即关闭image
+     */
+    private void analyzeImageRegion(Image image, int rotationDegrees, StageTimer timer) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        ByteBuffer buffer = image.getPlanes()[0].getBuffer();
+        int length = buffer.remaining();
+        if (mJpegBuffer == null || mJpegBuffer.length < length) {
+            mJpegBuffer = new byte[length];
+        }
+        buffer.get(mJpegBuffer, 0, length);
+        image.close();
+        Rect decodeRect;
+        int sampleSize;
+        FrameRegion region = getStillRegion(width, height, rotationDegrees);
+        if (region == null) {
+            decodeRect = new Rect(0, 0, width, height);
+            sampleSize = 1;
+        } else {
+            decodeRect = new Rect(region.getLeft(), region.getTop(), region.getRight(), region.getBottom());
+            int linesPerRegion = mCartonMode ? Constant.CARTON_LINES_PER_REGION : FrameRegion.DEFAULT_LINES_PER_REGION;
+            sampleSize = region.computeSampleSize(linesPerRegion, FrameRegion.DEFAULT_MIN_CHAR_PIXELS);
+        }
+        // 文字识别只依赖亮度，RGB_565不影响识别准确率，内存减半
+        Bitmap bitmap = CommonUtil.decodeJpegRegion(mJpegBuffer, length, decodeRect, sampleSize, Bitmap.Config.RGB_565);
+        timer.mark("decode");
+        if (bitmap == null) {
+            BitmapTracker.endScan();
+            return;
+        }
+        Bitmap resultBitmap = CommonUtil.rotateBitmap(bitmap, rotationDegrees);
+        timer.mark("rotate");
+        recognizeBitmap(resultBitmap, timer);
+    }
+
+    /**
+     * 取景框在拍照图片（传感器方向）中的区域
+     *
+     * @return 界面尚未布局时返回null
+     */
+    private FrameRegion getStillRegion(int imageWidth, int imageHeight, int rotationDegrees) {
+        if (frameView.getWidth() <= 0 || frameView.getHeight() <= 0) {
+            return null;
+        }
+        return FrameRegion.fromView(frameView.getFrameLeft(), frameView.getFrameTop(), frameView.getFrameRight(), frameView.getFrameBottom()
+                , frameView.getWidth(), frameView.getHeight(), imageWidth, imageHeight, rotationDegrees, 1);
+    }
+
+    /**
+     * 识别已裁剪为取景框区域的图片，在识别后处理线程中执行，识别任务的回调也绑定到该线程，只有最终的界面更新投递到主线程
+     */
+    private void recognizeBitmap(Bitmap resultBitmap, StageTimer timer) {
+        if (!BitmapTracker.checkUsable(resultBitmap, "recognizeBitmap")) {
+            return;
+        }
+        if (!mRecognitionExecutor.tryAcquire()) {
+            BitmapPool.release(resultBitmap, "recognizeBitmap");
+            BitmapTracker.endScan();
             return;
         }
-        Bitmap resultBitmap = handleBitmap(bitmap, rotationDegrees);
         InputImage inputImage = InputImage.fromBitmap(resultBitmap, 0);
-        TextRecognizer recognizer = TextRecognition.getClient(new ChineseTextRecognizerOptions.Builder().build());
-        recognizer.process(inputImage).addOnSuccessListener(new OnSuccessListener<Text>() {
+        mRecognizer.process(inputImage).addOnSuccessListener(mRecognitionExecutor, new OnSuccessListener<Text>() {
             @Override
             public void onSuccess(Text result) {
-                ivCrop.setImageBitmap(resultBitmap);
-                int blockCount = result.getTextBlocks().size();
-                if (blockCount == 0 || TextUtils.isEmpty(result.getText())) {
+                timer.mark("recognize");
+                // 图片已裁剪为取景框区域，不再限制区域
+                onStillRecognized(result, null, resultBitmap, timer);
+            }
+        }).addOnFailureListener(mRecognitionExecutor, new OnFailureListener() {
+            @Override
+            public void onFailure(@NonNull Exception e) {
+                // 处理识别过程中的错误，原图在裁剪或旋转时已放回BitmapPool，只需放回不会再显示的结果图
+                e.printStackTrace();
+                BitmapPool.release(resultBitmap, "onFailure");
+                BitmapTracker.endScan();
+            }
+        }).addOnCompleteListener(mRecognitionExecutor, new OnCompleteListener<Text>() {
+            @Override
+            public void onComplete(@NonNull Task<Text> task) {
+                mRecognitionExecutor.release();
+            }
+        });
+    }
+
+    /**
+     * 处理拍照识别结果，在识别后处理线程中执行：找到imei/sn时直接返回，否则跳转选择界面；外箱标签模式见onCartonRecognized
+     *
+     * @param result
+     * @param region      只处理中心点在该区域内的行，为null时处理全部
+     * @param shownBitmap 识别的图片，在界面上显示，可为null
+     * @param timer
+     */
+    private void onStillRecognized(Text result, Rect region, Bitmap shownBitmap, StageTimer timer) {
+        int blockCount = result.getTextBlocks().size();
+        if (blockCount == 0 || TextUtils.isEmpty(result.getText())) {
+            postToUi(timer, shownBitmap, new Runnable() {
+                @Override
+                public void run() {
+                    showCropBitmap(shownBitmap);
                     CommonUtil.showToast(TextRecognitionActivity.this, "识别不出内容，请对准拍摄");
-                    return;
                 }
-                JSONObject jsonObject = OCRHelper.getInstance().parseImeiAndSnInfo(result);
-                tvContent.setText(jsonObject.toString());
-                String imei1 = jsonObject.optString(OCRHelper.KEY_IMEI1);
-                String imei2 = jsonObject.optString(OCRHelper.KEY_IMEI2);
-                String sn = jsonObject.optString(OCRHelper.KEY_SN);
-                if (!TextUtils.isEmpty(imei1) || !TextUtils.isEmpty(imei2) || !TextUtils.isEmpty(sn)) {
-                    // 已找到imei/sn信息，则直接返回
+            });
+            return;
+        }
+        if (mCartonMode) {
+            onCartonRecognized(result, region, shownBitmap, timer);
+            return;
+        }
+        DeviceInfo deviceInfo = OCRHelper.getInstance().parseImeiAndSnInfo(result, region);
+        String json = deviceInfo.toJson();
+        String imei1 = deviceInfo.getImei1();
+        String imei2 = deviceInfo.getImei2();
+        String sn = deviceInfo.getSn();
+        if (!TextUtils.isEmpty(imei1) || !TextUtils.isEmpty(imei2) || !TextUtils.isEmpty(sn)) {
+            timer.mark("parse");
+            // 已找到imei/sn信息，则直接返回
+            postToUi(timer, shownBitmap, new Runnable() {
+                @Override
+                public void run() {
+                    showCropBitmap(shownBitmap);
+                    tvContent.setText(json);
                     setResultAndFinish(imei1, imei2, sn);
-                    return;
                 }
-                CommonUtil.log(TAG, "没有识别找到imei/sn信息，则跳转编辑选择编辑界面");
-                if (mTextLineList == null) {
-                    mTextLineList = new ArrayList<>();
+            });
+            return;
+        }
+        OcrLog.d(TAG, "没有识别找到imei/sn信息，则跳转编辑选择编辑界面");
+        ArrayList<String> textLineList = new ArrayList<>();
+        for (int i = 0; i < blockCount; i++) {
+            Text.TextBlock textBlock = result.getTextBlocks().get(i);
+            if (textBlock == null || textBlock.getLines() == null || textBlock.getLines().size() == 0) {
+                continue;
+            }
+            int lineCount = textBlock.getLines().size();
+            for (int j = 0; j < lineCount; j++) {
+                Text.Line line = textBlock.getLines().get(j);
+                String lineText = line.getText();
+                if (!TextUtils.isEmpty(lineText) && OcrDocumentFactory.isInRegion(line.getBoundingBox(), region)) {
+                    textLineList.add(lineText);
                 }
-                mTextLineList.clear();
-                for (int i = 0; i < blockCount; i++) {
-                    Text.TextBlock textBlock = result.getTextBlocks().get(i);
-                    if (textBlock == null || textBlock.getLines() == null || textBlock.getLines().size() == 0) {
-                        continue;
-                    }
-                    int lineCount = textBlock.getLines().size();
-                    for (int j = 0; j < lineCount; j++) {
-                        String lineText = textBlock.getLines().get(j).getText();
-                        if (!TextUtils.isEmpty(lineText)) {
-                            mTextLineList.add(lineText);
-                        }
-                    }
+            }
+        }
+        timer.mark("parse");
+        postToUi(timer, shownBitmap, new Runnable() {
+            @Override
+            public void run() {
+                showCropBitmap(shownBitmap);
+                tvContent.setText(json);
+                if (textLineList.isEmpty()) {
+                    CommonUtil.showToast(TextRecognitionActivity.this, "识别不出内容，请对准拍摄");
+                    return;
                 }
                 Intent intent = new Intent(TextRecognitionActivity.this, ImeiSelectActivity.class);
-                intent.putStringArrayListExtra(Constant.KEY_IMEI_LIST, mTextLineList);
+                intent.putStringArrayListExtra(Constant.KEY_IMEI_LIST, textLineList);
                 startActivityForResult(intent, CODE_REQUEST_IMEI_SELECT_ACTIVITY);
             }
-        }).addOnCompleteListener(new OnCompleteListener<Text>() {
+        });
+    }
+
+    /**
+     * 处理外箱标签模式的拍照识别结果，在识别后处理线程中执行：解析出设备时按标签上的顺序返回所有设备，否则提示重新拍摄
+     */
+    private void onCartonRecognized(Text result, Rect region, Bitmap shownBitmap, StageTimer timer) {
+        List<DeviceInfo> devices = OCRHelper.getInstance().parseCartonLabel(result, region);
+        ArrayList<String> deviceList = new ArrayList<>(devices.size());
+        StringBuilder content = new StringBuilder();
+        for (DeviceInfo device : devices) {
+            String json = device.toJson();
+            deviceList.add(json);
+            content.append(json).append('\n');
+        }
+        timer.mark("parse");
+        OcrLog.d(TAG, "外箱标签解析出{}台设备", devices.size());
+        postToUi(timer, shownBitmap, new Runnable() {
             @Override
-            public void onComplete(@NonNull Task<Text> task) {
-                bitmap.recycle();
+            public void run() {
+                showCropBitmap(shownBitmap);
+                if (deviceList.isEmpty()) {
+                    CommonUtil.showToast(TextRecognitionActivity.this, "识别不出设备信息，请对准外箱标签拍摄");
+                    return;
+                }
+                tvContent.setText(content);
+                Intent dataIntent = new Intent();
+                dataIntent.putStringArrayListExtra(Constant.KEY_DEVICE_LIST, deviceList);
+                setResult(RESULT_OK, dataIntent);
+                finish();
             }
-        }).addOnFailureListener(new OnFailureListener() {
+        });
+    }
+
+    /**
+     * 识别预览帧，由mFrameScheduler调度，在相机后台线程或上一帧完成时的识别后处理线程中调用
+     * 直接在Y/UV平面上裁剪出取景框区域（NV21）送识别，不经过JPEG编解码及Bitmap处理，只拷贝取景框内的像素；
+     * 裁剪后立即关闭image归还相机缓冲，识别完成（无论成功与否）后归还NV21缓冲并通知调度器，已退出时直接关闭image；
+     * 结果已过时（已得到结果或有更新的帧先完成）时不再解析
+     */
+    private void analyzeFrame(Image image, long ticket) {
+        YuvRoiCropper cropper = mFrameCropper;
+        if (cropper == null || cropper.getFrameWidth() != image.getWidth() || cropper.getFrameHeight() != image.getHeight()
+                || !mRecognitionExecutor.tryAcquire()) {
+            image.close();
+            mFrameScheduler.finish(ticket);
+            return;
+        }
+        long cropStartNanos = System.nanoTime();
+        byte[] nv21 = obtainFrameBuffer(cropper.getNv21Size());
+        Image.Plane[] planes = image.getPlanes();
+        cropper.cropToNv21(planes[0].getBuffer(), planes[0].getRowStride(), planes[1].getBuffer(), planes[2].getBuffer()
+                , planes[1].getRowStride(), planes[1].getPixelStride(), nv21);
+        image.close();
+        final long startNanos = System.nanoTime();
+        MetricsRegistry.getInstance().record("frame.crop", startNanos - cropStartNanos);
+        InputImage inputImage = InputImage.fromByteArray(nv21, cropper.getWidth(), cropper.getHeight(), mFrameRotationDegrees, InputImage.IMAGE_FORMAT_NV21);
+        mRecognizer.process(inputImage).addOnSuccessListener(mRecognitionExecutor, new OnSuccessListener<Text>() {
+            @Override
+            public void onSuccess(Text result) {
+                if (mFrameResultDelivered || !mFrameScheduler.acceptResult(ticket)) {
+                    return;
+                }
+                long recognizedNanos = System.nanoTime();
+                MetricsRegistry.getInstance().record("frame.ocr", recognizedNanos - startNanos);
+                onFrameRecognized(result);
+                MetricsRegistry.getInstance().record("frame.parse", System.nanoTime() - recognizedNanos);
+            }
+        }).addOnFailureListener(mRecognitionExecutor, new OnFailureListener() {
             @Override
             public void onFailure(@NonNull Exception e) {
-                // 处理识别过程中的错误
-                e.printStackTrace();
-                bitmap.recycle();
+                OcrLog.w(TAG, "预览帧识别失败", e);
+            }
+        }).addOnCompleteListener(mRecognitionExecutor, new OnCompleteListener<Text>() {
+            @Override
+            public void onComplete(@NonNull Task<Text> task) {
+                mFrameBuffers.offer(nv21);
+                mRecognitionExecutor.release();
+                mFrameScheduler.finish(ticket);
+            }
+        });
+    }
+
+    /**
+     * 取一个长度为size的NV21缓冲，没有可复用的缓冲时新建
+     */
+    private byte[] obtainFrameBuffer(int size) {
+        byte[] buffer = mFrameBuffers.poll();
+        return buffer != null && buffer.length == size ? buffer : new byte[size];
+    }
+
+    /**
+     * 解析预览帧的识别结果并投票，在识别后处理线程中执行
+     * 没有解析出任何字段的帧（还没对准标签）不参与投票；各字段多帧一致且imei校验通过后自动返回结果，
+     * 达到帧数上限仍不一致时（如中途换了标签）清空投票重新开始
+     */
+    private void onFrameRecognized(Text result) {
+        if (mFrameResultDelivered) {
+            return;
+        }
+        DeviceInfo frame = OCRHelper.getInstance().parseImeiAndSnInfo(result);
+        if (!frame.hasAnyValue() || !mFrameConsensus.offer(frame)) {
+            return;
+        }
+        DeviceInfo deviceInfo = mFrameConsensus.getResult();
+        int frameCount = mFrameConsensus.getFrameCount();
+        boolean agreed = mFrameConsensus.isAgreed();
+        mFrameConsensus.reset();
+        if (!agreed || !isValidFrameResult(deviceInfo)) {
+            OcrLog.d(TAG, "连续识别{}帧未得到一致结果，重新投票", frameCount);
+            return;
+        }
+        mFrameResultDelivered = true;
+        mFrameScheduler.cancel();
+        if (mCameraHelper != null) {
+            mCameraHelper.stopFrameAnalysis();
+        }
+        String json = deviceInfo.toJson();
+        OcrLog.d(TAG, "连续识别{}帧得到结果：{}", frameCount, json);
+        mMainHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                if (isFinishing() || isDestroyed()) {
+                    return;
+                }
+                tvContent.setText(json);
+                setResultAndFinish(deviceInfo.getImei1(), deviceInfo.getImei2(), deviceInfo.getSn());
+            }
+        });
+    }
+
+    /**
+     * 一致的投票结果是否可以直接返回：识别出了字段，且识别出的imei均通过校验
+     */
+    private boolean isValidFrameResult(DeviceInfo deviceInfo) {
+        if (deviceInfo == null || !deviceInfo.hasAnyValue()) {
+            return false;
+        }
+        String imei1 = deviceInfo.getImei1();
+        String imei2 = deviceInfo.getImei2();
+        return (TextUtils.isEmpty(imei1) || ImeiValidator.isValid(imei1))
+                && (TextUtils.isEmpty(imei2) || ImeiValidator.isValid(imei2));
+    }
+
+    /**
+     * 将最终的界面更新投递到主线程，并记录排队及主线程耗时，主线程耗时超过一帧时告警
+     * 各阶段耗时记入MetricsRegistry，开启调试浮层时刷新分位数表格
+     * 界面已关闭时不再更新，直接放回要显示的图片并结束本次识别
+     *
+     * @param timer
+     * @param shownBitmap 界面更新中要显示的图片，可为null
+     * @param uiUpdate
+     */
+    private void postToUi(StageTimer timer, Bitmap shownBitmap, Runnable uiUpdate) {
+        mMainHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                timer.mark("dispatch");
+                if (isFinishing() || isDestroyed()) {
+                    BitmapPool.release(shownBitmap, "postToUi");
+                    BitmapTracker.endScan();
+                    return;
+                }
+                uiUpdate.run();
+                long uiNanos = timer.mark("ui");
+                MetricsRegistry metrics = MetricsRegistry.getInstance();
+                metrics.record(timer);
+                BitmapTracker.endScan();
+                if (tvMetrics.getVisibility() == View.VISIBLE) {
+                    tvMetrics.setText(metrics.toText());
+                }
+                OcrLog.d(TAG, "{}", timer);
+                if (uiNanos > StageTimer.FRAME_BUDGET_NANOS) {
+                    OcrLog.w(TAG, "主线程界面更新耗时超过一帧：{}ms", uiNanos / 1000000);
+                }
             }
         });
     }
@@ -257,17 +788,20 @@ public class TextRecognitionActivity extends AppCompatActivity implements View.O
      *
      * @param sourceBitmap
      * @param rotationDegrees
+     * @param timer           依次标记旋转、缩放、裁剪阶段
      * @return
      */
-    private Bitmap handleBitmap(Bitmap sourceBitmap, int rotationDegrees) {
+    private Bitmap handleBitmap(Bitmap sourceBitmap, int rotationDegrees, StageTimer timer) {
         if (sourceBitmap == null || sourceBitmap.getWidth() <= 0 || sourceBitmap.getWidth() <= 0) {
             return sourceBitmap;
         }
         // step1 对bitmap进行旋转
         Bitmap rotateBitmap = CommonUtil.rotateBitmap(sourceBitmap, rotationDegrees);
+        timer.mark("rotate");
         // step2 对bitmap按屏幕宽度进行等比例缩放
         float scaleRatio = CommonUtil.getRealScreenWidth(this) / rotateBitmap.getWidth();
         Bitmap scaleBitmap = CommonUtil.scaleBitmap(rotateBitmap, scaleRatio);
+        timer.mark("scale");
         // step3 对bitmap进行裁剪，需要重新调整裁剪的矩形框
         int bitmapWidth = scaleBitmap.getWidth();
         int bitmapHeight = scaleBitmap.getHeight();
@@ -277,7 +811,24 @@ public class TextRecognitionActivity extends AppCompatActivity implements View.O
         float cropRectRight = bitmapWidth - frameView.getFrameMarginRight();
         float cropRectBottom = bitmapHeight / 2 + rectScaleHeight / 2;
         Rect cropRect = new Rect((int) cropRectLeft, (int) cropRectTop, (int) cropRectRight, (int) cropRectBottom);
-        return CommonUtil.cropBitmap(scaleBitmap, cropRect);
+        Bitmap cropBitmap = CommonUtil.cropBitmap(scaleBitmap, cropRect);
+        timer.mark("crop");
+        return cropBitmap;
+    }
+
+    /**
+     * 显示裁剪后的图片，并把之前显示的图片放回BitmapPool，在主线程调用，bitmap为null时不更新
+     */
+    private void showCropBitmap(Bitmap bitmap) {
+        if (!BitmapTracker.checkUsable(bitmap, "showCropBitmap")) {
+            return;
+        }
+        Bitmap previous = mShownBitmap;
+        ivCrop.setImageBitmap(bitmap);
+        mShownBitmap = bitmap;
+        if (previous != null && previous != bitmap) {
+            BitmapPool.release(previous, "showCropBitmap");
+        }
     }
 
     private void openTorch() {
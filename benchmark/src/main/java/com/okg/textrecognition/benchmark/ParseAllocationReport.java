@@ -0,0 +1,65 @@
+package com.okg.textrecognition.benchmark;
+
+import com.okg.textrecognition.core.ImeiSnParser;
+import com.okg.textrecognition.core.OcrDocument;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Locale;
+
+/**
+ * @author okg
+ * @date 2026-10-18
+ * 描述：统计每次解析在当前线程上分配的字节数，按布局及block数量输出表格
+ * 与ParserBenchmark的gc.alloc.rate.norm相互印证，但不依赖JIT逃逸分析后的结果，能看出每个布局路径上实际创建的对象
+ * 运行：./gradlew :benchmark:allocationReport
+ */
+public final class ParseAllocationReport {
+    private static final int SAMPLE_COUNT = 16;
+    private static final int WARMUP_PARSES = 2000;
+    private static final int MEASURED_PARSES = 2000;
+    private static final int[] BLOCK_COUNTS = {8, 32, 128};
+    private static final int[] LINES_PER_BLOCK = {1, 3};
+    private static final int NOISE_LENGTH = 24;
+
+    private ParseAllocationReport() {
+
+    }
+
+    public static void main(String[] args) {
+        ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        if (!(threadBean instanceof com.sun.management.ThreadMXBean)) {
+            System.out.println("当前JVM不支持按线程统计分配字节数");
+            return;
+        }
+        com.sun.management.ThreadMXBean allocationBean = (com.sun.management.ThreadMXBean) threadBean;
+        long threadId = Thread.currentThread().getId();
+        ImeiSnParser parser = new ImeiSnParser();
+        System.out.println("layout\tblocks\tlines\tbytes/parse");
+        for (SyntheticCorpus.Layout layout : SyntheticCorpus.Layout.values()) {
+            for (int blockCount : BLOCK_COUNTS) {
+                for (int linesPerBlock : LINES_PER_BLOCK) {
+                    OcrDocument[] documents = generate(layout, blockCount, linesPerBlock);
+                    for (int i = 0; i < WARMUP_PARSES; i++) {
+                        parser.parse(documents[i & (SAMPLE_COUNT - 1)]);
+                    }
+                    long before = allocationBean.getThreadAllocatedBytes(threadId);
+                    for (int i = 0; i < MEASURED_PARSES; i++) {
+                        parser.parse(documents[i & (SAMPLE_COUNT - 1)]);
+                    }
+                    long bytes = allocationBean.getThreadAllocatedBytes(threadId) - before;
+                    System.out.println(String.format(Locale.US, "%s\t%d\t%d\t%d", layout, blockCount, linesPerBlock, bytes / MEASURED_PARSES));
+                }
+            }
+        }
+    }
+
+    private static OcrDocument[] generate(SyntheticCorpus.Layout layout, int blockCount, int linesPerBlock) {
+        SyntheticCorpus corpus = new SyntheticCorpus(42);
+        OcrDocument[] documents = new OcrDocument[SAMPLE_COUNT];
+        for (int i = 0; i < SAMPLE_COUNT; i++) {
+            documents[i] = corpus.generate(layout, blockCount, linesPerBlock, NOISE_LENGTH).document;
+        }
+        return documents;
+    }
+}
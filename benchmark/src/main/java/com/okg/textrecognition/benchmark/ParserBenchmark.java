@@ -0,0 +1,71 @@
+package com.okg.textrecognition.benchmark;
+
+import com.okg.textrecognition.core.DeviceInfo;
+import com.okg.textrecognition.core.ImeiSnParser;
+import com.okg.textrecognition.core.OcrDocument;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author okg
+ * @date 2026-10-18
+ * 描述：imei/sn解析引擎的吞吐量测试，覆盖CMD、垂直、横向及只有SN四种布局
+ * OCRHelper.parseImeiAndSnInfo在完成Text到OcrDocument的转换后，全部工作都在ImeiSnParser.parse中完成
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParserBenchmark {
+    /**
+     * 每次调用轮换的样本数量，避免始终解析同一个文档
+     */
+    private static final int SAMPLE_COUNT = 16;
+
+    @Param({"CMD", "VERTICAL", "HORIZONTAL", "SN_ONLY"})
+    public SyntheticCorpus.Layout layout;
+
+    @Param({"8", "32", "128"})
+    public int blockCount;
+
+    @Param({"1", "3"})
+    public int linesPerBlock;
+
+    @Param({"24"})
+    public int noiseLength;
+
+    private final ImeiSnParser mParser = new ImeiSnParser();
+    private OcrDocument[] mDocuments;
+    private int mNext;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SyntheticCorpus corpus = new SyntheticCorpus(42);
+        mDocuments = new OcrDocument[SAMPLE_COUNT];
+        for (int i = 0; i < SAMPLE_COUNT; i++) {
+            mDocuments[i] = corpus.generate(layout, blockCount, linesPerBlock, noiseLength).document;
+        }
+    }
+
+    @Benchmark
+    public DeviceInfo parse() {
+        OcrDocument document = mDocuments[mNext];
+        mNext = (mNext + 1) & (SAMPLE_COUNT - 1);
+        return mParser.parse(document);
+    }
+}
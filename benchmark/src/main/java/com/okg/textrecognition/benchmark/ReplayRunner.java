@@ -0,0 +1,294 @@
+package com.okg.textrecognition.benchmark;
+
+import com.okg.textrecognition.core.DeviceInfo;
+import com.okg.textrecognition.core.ImeiSnParser;
+import com.okg.textrecognition.core.KeywordTable;
+import com.okg.textrecognition.core.LabelRuleTable;
+import com.okg.textrecognition.core.OcrCapture;
+import com.okg.textrecognition.core.VendorLabelRules;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+
+/**
+ * @author okg
+ * @date 2026-10-18
+ * 描述：回放一个目录中的识别结果采集（OcrCapture），输出解析准确率及解析吞吐量
+ * 每个采集文件name.ocrc可以有一个同名的标注文件name.expected（properties格式，键为imei1、imei2、sn，缺省的键表示该字段应为空），
+ * 有标注的采集按字段统计准确率并列出不一致的字段；没有标注的采集只与采集时设备上的解析结果对比，列出解析结果发生变化的采集
+ * 默认使用与应用相同的厂商标签规则（VendorLabelRules），可通过 -rules 文件 改用其他规则（每行一条，格式见LabelRule.parse，#开头为注释）
+ * 运行：./gradlew :benchmark:replay -PcaptureDir=目录 [-PrulesFile=文件]
+ * 有标注字段不一致时以状态码1退出，可用于回归检查
+ */
+public final class ReplayRunner {
+    public static final String EXPECTED_EXTENSION = ".expected";
+
+    private static final int WARMUP_ROUNDS = 20;
+    private static final int MEASURED_ROUNDS = 50;
+    private static final String[] FIELD_KEYS = {DeviceInfo.KEY_IMEI1, DeviceInfo.KEY_IMEI2, DeviceInfo.KEY_SN};
+
+    private ReplayRunner() {
+
+    }
+
+    public static void main(String[] args) throws IOException {
+        File directory = null;
+        File rulesFile = null;
+        for (int i = 0; i < args.length; i++) {
+            if ("-rules".equals(args[i]) && i + 1 < args.length) {
+                rulesFile = new File(args[++i]);
+            } else {
+                directory = new File(args[i]);
+            }
+        }
+        if (directory == null || !directory.isDirectory()) {
+            System.out.println("用法：ReplayRunner [-rules 规则文件] 采集目录");
+            System.exit(2);
+            return;
+        }
+        ImeiSnParser parser = rulesFile == null ? VendorLabelRules.newDefaultParser()
+                : new ImeiSnParser(KeywordTable.newDefaultMatcher(), LabelRuleTable.compile(readRules(rulesFile)));
+        Report report = run(parser, directory);
+        report.print();
+        if (report.getMismatchCount() > 0) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * 回放目录中的所有采集
+     *
+     * @param parser
+     * @param directory
+     * @return
+     */
+    public static Report run(ImeiSnParser parser, File directory) throws IOException {
+        File[] files = directory.listFiles();
+        List<File> captureFiles = new ArrayList<>();
+        if (files != null) {
+            for (File file : files) {
+                if (file.isFile() && file.getName().endsWith(OcrCapture.FILE_EXTENSION)) {
+                    captureFiles.add(file);
+                }
+            }
+        }
+        File[] sorted = captureFiles.toArray(new File[0]);
+        Arrays.sort(sorted);
+        Report report = new Report();
+        List<OcrCapture> captures = new ArrayList<>(sorted.length);
+        for (File file : sorted) {
+            OcrCapture capture;
+            try {
+                capture = readCapture(file);
+            } catch (IOException e) {
+                report.mUnreadable.add(file.getName() + ": " + e.getMessage());
+                continue;
+            }
+            captures.add(capture);
+            DeviceInfo result = parser.parse(capture.getDocument());
+            String name = file.getName().substring(0, file.getName().length() - OcrCapture.FILE_EXTENSION.length());
+            Properties expected = readExpected(new File(directory, name + EXPECTED_EXTENSION));
+            if (expected != null) {
+                report.addLabelled(name, expected, result);
+            } else {
+                report.addUnlabelled(name, capture, result);
+            }
+        }
+        measureThroughput(parser, captures, report);
+        return report;
+    }
+
+    private static void measureThroughput(ImeiSnParser parser, List<OcrCapture> captures, Report report) {
+        if (captures.isEmpty()) {
+            return;
+        }
+        int sink = 0;
+        for (int round = 0; round < WARMUP_ROUNDS; round++) {
+            for (OcrCapture capture : captures) {
+                sink += parser.parse(capture.getDocument()).getLayoutType();
+            }
+        }
+        long start = System.nanoTime();
+        for (int round = 0; round < MEASURED_ROUNDS; round++) {
+            for (OcrCapture capture : captures) {
+                sink += parser.parse(capture.getDocument()).getLayoutType();
+            }
+        }
+        report.mParseNanos = System.nanoTime() - start;
+        report.mParseCount = (long) MEASURED_ROUNDS * captures.size();
+        report.mSink = sink;
+    }
+
+    private static OcrCapture readCapture(File file) throws IOException {
+        InputStream input = new BufferedInputStream(new FileInputStream(file));
+        try {
+            return OcrCapture.read(input);
+        } finally {
+            input.close();
+        }
+    }
+
+    private static Properties readExpected(File file) throws IOException {
+        if (!file.isFile()) {
+            return null;
+        }
+        Properties properties = new Properties();
+        InputStream input = new FileInputStream(file);
+        try {
+            properties.load(input);
+        } finally {
+            input.close();
+        }
+        return properties;
+    }
+
+    private static String[] readRules(File file) throws IOException {
+        List<String> rules = new ArrayList<>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), "UTF-8"));
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.length() > 0 && line.charAt(0) != '#') {
+                    rules.add(line);
+                }
+            }
+        } finally {
+            reader.close();
+        }
+        return rules.toArray(new String[0]);
+    }
+
+    /**
+     * 回放结果
+     */
+    public static final class Report {
+        private int mCaptureCount;
+        private int mLabelledCount;
+        private int mExactCount;
+        private final int[] mFieldCorrect = new int[DeviceInfo.FIELD_COUNT];
+        private int mChangedCount;
+        private final List<String> mMismatches = new ArrayList<>();
+        private final List<String> mChanges = new ArrayList<>();
+        private final List<String> mUnreadable = new ArrayList<>();
+        private long mParseNanos;
+        private long mParseCount;
+        private int mSink;
+
+        private void addLabelled(String name, Properties expected, DeviceInfo result) {
+            mCaptureCount++;
+            mLabelledCount++;
+            boolean exact = true;
+            for (int field = 0; field < DeviceInfo.FIELD_COUNT; field++) {
+                String expectedValue = expected.getProperty(FIELD_KEYS[field], "").trim();
+                String actual = result.getValue(field);
+                if (expectedValue.equalsIgnoreCase(actual)) {
+                    mFieldCorrect[field]++;
+                } else {
+                    exact = false;
+                    mMismatches.add(String.format(Locale.US, "%s\t%s\texpected=%s\tactual=%s", name, FIELD_KEYS[field], expectedValue, actual));
+                }
+            }
+            if (exact) {
+                mExactCount++;
+            }
+        }
+
+        private void addUnlabelled(String name, OcrCapture capture, DeviceInfo result) {
+            mCaptureCount++;
+            for (int field = 0; field < DeviceInfo.FIELD_COUNT; field++) {
+                if (!capture.getRecordedValue(field).equals(result.getValue(field))) {
+                    mChangedCount++;
+                    mChanges.add(String.format(Locale.US, "%s\trecorded=%s\tactual=%s", name, recordedJson(capture), result.toJson()));
+                    return;
+                }
+            }
+        }
+
+        private static String recordedJson(OcrCapture capture) {
+            StringBuilder builder = new StringBuilder();
+            for (int field = 0; field < DeviceInfo.FIELD_COUNT; field++) {
+                builder.append(field == 0 ? "" : ",").append(FIELD_KEYS[field]).append('=').append(capture.getRecordedValue(field));
+            }
+            return builder.toString();
+        }
+
+        public int getCaptureCount() {
+            return mCaptureCount;
+        }
+
+        public int getLabelledCount() {
+            return mLabelledCount;
+        }
+
+        /**
+         * 三个字段都与标注一致的采集数量
+         */
+        public int getExactCount() {
+            return mExactCount;
+        }
+
+        public int getFieldCorrectCount(int field) {
+            return mFieldCorrect[field];
+        }
+
+        /**
+         * 与标注不一致的字段数量
+         */
+        public int getMismatchCount() {
+            return mMismatches.size();
+        }
+
+        /**
+         * 没有标注且解析结果与采集时不同的采集数量
+         */
+        public int getChangedCount() {
+            return mChangedCount;
+        }
+
+        public int getUnreadableCount() {
+            return mUnreadable.size();
+        }
+
+        /**
+         * 每秒解析次数，没有采集时为0
+         */
+        public double getParsesPerSecond() {
+            return mParseNanos == 0 ? 0 : mParseCount * 1e9 / mParseNanos;
+        }
+
+        public void print() {
+            System.out.println(String.format(Locale.US, "captures\t%d\tlabelled\t%d\tunreadable\t%d", mCaptureCount, mLabelledCount, mUnreadable.size()));
+            if (mLabelledCount > 0) {
+                for (int field = 0; field < DeviceInfo.FIELD_COUNT; field++) {
+                    System.out.println(String.format(Locale.US, "accuracy\t%s\t%d/%d\t%.1f%%", FIELD_KEYS[field],
+                            mFieldCorrect[field], mLabelledCount, mFieldCorrect[field] * 100.0 / mLabelledCount));
+                }
+                System.out.println(String.format(Locale.US, "accuracy\texact\t%d/%d\t%.1f%%", mExactCount, mLabelledCount, mExactCount * 100.0 / mLabelledCount));
+            }
+            System.out.println(String.format(Locale.US, "changed\t%d/%d", mChangedCount, mCaptureCount - mLabelledCount));
+            if (mParseCount > 0) {
+                System.out.println(String.format(Locale.US, "throughput\t%.0f parses/s\t%.1f us/parse", getParsesPerSecond(), mParseNanos / 1e3 / mParseCount));
+            }
+            for (String mismatch : mMismatches) {
+                System.out.println("mismatch\t" + mismatch);
+            }
+            for (String change : mChanges) {
+                System.out.println("changed\t" + change);
+            }
+            for (String unreadable : mUnreadable) {
+                System.out.println("unreadable\t" + unreadable);
+            }
+        }
+    }
+}
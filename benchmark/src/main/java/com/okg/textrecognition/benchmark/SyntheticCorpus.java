@@ -0,0 +1,234 @@
+package com.okg.textrecognition.benchmark;
+
+import com.okg.textrecognition.core.OcrDocument;
+
+import java.util.Random;
+
+/**
+ * @author okg
+ * @date 2026-10-18
+ * 描述：合成识别结果生成器，按布局类型生成带噪声的文档，可按block数量、每block行数及噪声长度扩展
+ * 噪声文本不包含s、i字母且以字母开头，不会被误判为imei/sn关键字或imei值
+ */
+public final class SyntheticCorpus {
+    /**
+     * 模拟的标签布局
+     */
+    public enum Layout {
+        /**
+         * *#06#命令查看界面，"IMEI1:xxx"形式
+         */
+        CMD,
+        /**
+         * 关键字在上，值在下
+         */
+        VERTICAL,
+        /**
+         * 关键字在左，值在右
+         */
+        HORIZONTAL,
+        /**
+         * 只有序列号
+         */
+        SN_ONLY
+    }
+
+    /**
+     * 生成的样本及期望结果
+     */
+    public static final class Sample {
+        public final Layout layout;
+        public final OcrDocument document;
+        public final String imei1;
+        public final String imei2;
+        public final String sn;
+
+        Sample(Layout layout, OcrDocument document, String imei1, String imei2, String sn) {
+            this.layout = layout;
+            this.document = document;
+            this.imei1 = imei1;
+            this.imei2 = imei2;
+            this.sn = sn;
+        }
+    }
+
+    private static final int ROW_HEIGHT = 48;
+    private static final int LINE_HEIGHT = 40;
+    private static final int COLUMN_WIDTH = 360;
+    private static final int CHAR_WIDTH = 18;
+    private static final String NOISE_LETTERS = "ABCDEFGHJKLMNPQRTUVWXYZ";
+    private static final String NOISE_CHARS = NOISE_LETTERS + "0123456789";
+    private static final String[] NOISE_WORDS = {"型号", "颜色", "产地", "生产日期", "制造商", "容量", "MADE", "MODEL"};
+    private static final String SN_CHARS = "ABCDEFGHJKLMNPQRSTUVWXYZ0123456789";
+
+    private final Random mRandom;
+
+    public SyntheticCorpus(long seed) {
+        mRandom = new Random(seed);
+    }
+
+    /**
+     * 生成一个样本
+     *
+     * @param layout        布局类型
+     * @param blockCount    block总数，不足以容纳字段时以字段所需数量为准
+     * @param linesPerBlock 每个噪声block的行数
+     * @param noiseLength   每个噪声行的字符数
+     * @return
+     */
+    public Sample generate(Layout layout, int blockCount, int linesPerBlock, int noiseLength) {
+        String imei1 = layout == Layout.SN_ONLY ? "" : randomImei();
+        String imei2 = layout == Layout.SN_ONLY ? "" : randomImei();
+        String sn = randomSn();
+        int fieldBlocks = fieldBlockCount(layout);
+        int noiseBlocks = Math.max(0, blockCount - fieldBlocks);
+        int noiseBefore = noiseBlocks / 2;
+        OcrDocument.Builder builder = new OcrDocument.Builder(fieldBlocks + noiseBlocks, (fieldBlocks + noiseBlocks) * Math.max(linesPerBlock, 3), 1024);
+        int row = addNoiseBlocks(builder, 0, noiseBefore, linesPerBlock, noiseLength);
+        switch (layout) {
+            case CMD:
+                int top = row * ROW_HEIGHT;
+                builder.beginBlock(0, top, COLUMN_WIDTH * 2, top + ROW_HEIGHT * 3);
+                row = addLine(builder, "IMEI1:" + imei1, 0, row);
+                row = addLine(builder, "IMEI2:" + imei2, 0, row);
+                row = addLine(builder, "SN:" + sn, 0, row);
+                break;
+            case VERTICAL:
+                top = row * ROW_HEIGHT;
+                builder.beginBlock(0, top, COLUMN_WIDTH, top + ROW_HEIGHT * 2);
+                row = addLine(builder, "IMEI1", 0, row);
+                row = addLine(builder, imei1, 0, row);
+                row = addBlock(builder, "IMEI2", 0, row);
+                row = addBlock(builder, imei2, 0, row);
+                row = addBlock(builder, "SN", 0, row);
+                row = addBlock(builder, sn, 0, row);
+                break;
+            case HORIZONTAL:
+                row = addPair(builder, "IMEI1", imei1, row);
+                row = addPair(builder, "IMEI2", imei2, row);
+                row = addPair(builder, "SN", sn, row);
+                break;
+            case SN_ONLY:
+            default:
+                row = addPair(builder, "序列号", sn, row);
+                break;
+        }
+        addNoiseBlocks(builder, row, noiseBlocks - noiseBefore, linesPerBlock, noiseLength);
+        return new Sample(layout, builder.build(), imei1, imei2, sn);
+    }
+
+    /**
+     * 生成一个满足Luhn校验的imei，TAC前缀为86
+     */
+    public String randomImei() {
+        char[] digits = new char[15];
+        digits[0] = '8';
+        digits[1] = '6';
+        for (int i = 2; i < 14; i++) {
+            digits[i] = (char) ('0' + mRandom.nextInt(10));
+        }
+        digits[14] = (char) ('0' + luhnCheckDigit(digits, 14));
+        return new String(digits);
+    }
+
+    /**
+     * 计算Luhn校验位
+     *
+     * @param digits 数字字符
+     * @param length 参与计算的位数
+     * @return
+     */
+    public static int luhnCheckDigit(char[] digits, int length) {
+        int sum = 0;
+        for (int i = 0; i < length; i++) {
+            int digit = digits[i] - '0';
+            // 从校验位往左数，偶数位乘2
+            if (((length - i) & 1) == 1) {
+                digit <<= 1;
+                if (digit > 9) {
+                    digit -= 9;
+                }
+            }
+            sum += digit;
+        }
+        return (10 - sum % 10) % 10;
+    }
+
+    private String randomSn() {
+        char[] chars = new char[11 + mRandom.nextInt(6)];
+        chars[0] = 'R';
+        for (int i = 1; i < chars.length; i++) {
+            chars[i] = SN_CHARS.charAt(mRandom.nextInt(SN_CHARS.length()));
+        }
+        return new String(chars);
+    }
+
+    private static int fieldBlockCount(Layout layout) {
+        switch (layout) {
+            case CMD:
+                return 1;
+            case VERTICAL:
+                return 5;
+            case HORIZONTAL:
+                return 6;
+            case SN_ONLY:
+            default:
+                return 2;
+        }
+    }
+
+    private int addNoiseBlocks(OcrDocument.Builder builder, int row, int count, int linesPerBlock, int noiseLength) {
+        int lines = Math.max(linesPerBlock, 1);
+        for (int i = 0; i < count; i++) {
+            // 噪声block两列排列，同一行的两个block互相横向重叠
+            int column = i & 1;
+            int left = column * COLUMN_WIDTH;
+            int top = row * ROW_HEIGHT;
+            builder.beginBlock(left, top, left + COLUMN_WIDTH - CHAR_WIDTH, top + ROW_HEIGHT * lines);
+            for (int j = 0; j < lines; j++) {
+                int lineTop = top + j * ROW_HEIGHT;
+                builder.addLine(randomNoise(noiseLength), left, lineTop, left + COLUMN_WIDTH - CHAR_WIDTH, lineTop + LINE_HEIGHT);
+            }
+            if (column == 1 || i == count - 1) {
+                row += lines;
+            }
+        }
+        return row;
+    }
+
+    private String randomNoise(int length) {
+        StringBuilder builder = new StringBuilder(Math.max(length, 1));
+        while (builder.length() < length) {
+            if (builder.length() > 0) {
+                builder.append(' ');
+            }
+            if (mRandom.nextInt(4) == 0) {
+                builder.append(NOISE_WORDS[mRandom.nextInt(NOISE_WORDS.length)]);
+                continue;
+            }
+            int wordLength = 2 + mRandom.nextInt(6);
+            builder.append(NOISE_LETTERS.charAt(mRandom.nextInt(NOISE_LETTERS.length())));
+            for (int i = 1; i < wordLength; i++) {
+                builder.append(NOISE_CHARS.charAt(mRandom.nextInt(NOISE_CHARS.length())));
+            }
+        }
+        return builder.toString();
+    }
+
+    private static int addLine(OcrDocument.Builder builder, String text, int left, int row) {
+        int top = row * ROW_HEIGHT;
+        builder.addLine(text, left, top, left + text.length() * CHAR_WIDTH, top + LINE_HEIGHT);
+        return row + 1;
+    }
+
+    private static int addBlock(OcrDocument.Builder builder, String text, int left, int row) {
+        int top = row * ROW_HEIGHT;
+        builder.beginBlock(left, top, left + text.length() * CHAR_WIDTH, top + LINE_HEIGHT);
+        return addLine(builder, text, left, row);
+    }
+
+    private static int addPair(OcrDocument.Builder builder, String key, String value, int row) {
+        addBlock(builder, key, 0, row);
+        return addBlock(builder, value, COLUMN_WIDTH / 2, row);
+    }
+}
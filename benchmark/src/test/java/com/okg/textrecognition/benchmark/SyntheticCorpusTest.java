@@ -0,0 +1,47 @@
+package com.okg.textrecognition.benchmark;
+
+import com.okg.textrecognition.core.DeviceInfo;
+import com.okg.textrecognition.core.ImeiSnParser;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * 保证合成样本能被解析器按期望的布局正确解析，否则benchmark测到的不是目标路径
+ */
+public class SyntheticCorpusTest {
+
+    @Test
+    public void generatedSamples_parseToExpectedValues() {
+        SyntheticCorpus corpus = new SyntheticCorpus(1);
+        ImeiSnParser parser = new ImeiSnParser();
+        int[] expectedLayouts = {ImeiSnParser.TYPE_LAYOUT_CMD, ImeiSnParser.TYPE_LAYOUT_VERTICAL,
+                ImeiSnParser.TYPE_LAYOUT_HORIZONTAL, ImeiSnParser.TYPE_LAYOUT_NONE};
+        SyntheticCorpus.Layout[] layouts = SyntheticCorpus.Layout.values();
+        for (int i = 0; i < layouts.length; i++) {
+            for (int blockCount : new int[]{1, 8, 33, 128}) {
+                for (int linesPerBlock = 1; linesPerBlock <= 3; linesPerBlock++) {
+                    SyntheticCorpus.Sample sample = corpus.generate(layouts[i], blockCount, linesPerBlock, 24);
+                    DeviceInfo result = parser.parse(sample.document);
+                    String message = layouts[i] + "/" + blockCount + "/" + linesPerBlock;
+                    assertEquals(message, expectedLayouts[i], result.getLayoutType());
+                    assertEquals(message, sample.imei1, result.getImei1());
+                    assertEquals(message, sample.imei2, result.getImei2());
+                    assertEquals(message, sample.sn, result.getSn());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void randomImei_passesLuhn() {
+        SyntheticCorpus corpus = new SyntheticCorpus(2);
+        for (int i = 0; i < 100; i++) {
+            char[] imei = corpus.randomImei().toCharArray();
+            assertEquals(imei[14] - '0', SyntheticCorpus.luhnCheckDigit(imei, 14));
+        }
+        // 公开的示例imei
+        assertEquals(8, SyntheticCorpus.luhnCheckDigit("490154203237518".toCharArray(), 14));
+    }
+}
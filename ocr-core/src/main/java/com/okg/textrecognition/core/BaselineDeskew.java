@@ -0,0 +1,136 @@
+package com.okg.textrecognition.core;
+
+import java.util.Arrays;
+
+/**
+ * @author okg
+ * @date 2026-10-18
+ * 描述：基线纠偏，由各行的角度估计文本主基线角度（取中位数，不受个别竖排或误识别行影响），
+ * 再把所有行、block的边界框旋转到基线坐标系，每个识别结果只做一次
+ * 倾斜10~20°拍摄时同一行的左右两个文本块在图像坐标系中上下错开，旋转后重新落在同一水平带内
+ */
+final class BaselineDeskew {
+    /**
+     * 小于该角度时不旋转，避免轻微倾斜时改变边界框
+     */
+    static final float MIN_DESKEW_ANGLE = 1f;
+
+    private BaselineDeskew() {
+
+    }
+
+    /**
+     * 由角点计算行的角度：左上到右上连线与水平方向的夹角
+     *
+     * @return 度，顺时针为正（图像坐标系y轴向下）
+     */
+    static float angleOf(int[] corners) {
+        return (float) Math.toDegrees(Math.atan2(corners[3] - corners[1], corners[2] - corners[0]));
+    }
+
+    /**
+     * 估计主基线角度并旋转边界框，原地修改blockBoxes、lineBoxes
+     *
+     * @return 主基线角度，小于MIN_DESKEW_ANGLE时返回0且不修改边界框
+     */
+    static float apply(int blockCount, int[] blockBoxes, int[] blockLineOffsets, int lineCount, int[] lineBoxes, int[] lineCorners, float[] lineAngles) {
+        float angle = estimate(lineCount, lineCorners, lineAngles);
+        if (Math.abs(angle) < MIN_DESKEW_ANGLE) {
+            return 0f;
+        }
+        double radians = Math.toRadians(angle);
+        double cos = Math.cos(radians);
+        double sin = Math.sin(radians);
+        for (int line = 0; line < lineCount; line++) {
+            int offset = line << 2;
+            if (lineCorners[line << 3] != OcrDocument.NO_BOUND) {
+                rotateBounds(lineCorners, line << 3, cos, sin, lineBoxes, offset);
+            } else if (lineBoxes[offset] != OcrDocument.NO_BOUND) {
+                rotateBox(lineBoxes, offset, cos, sin, lineBoxes, offset);
+            }
+        }
+        for (int block = 0; block < blockCount; block++) {
+            int offset = block << 2;
+            boolean hasLineBounds = false;
+            int left = Integer.MAX_VALUE;
+            int top = Integer.MAX_VALUE;
+            int right = Integer.MIN_VALUE;
+            int bottom = Integer.MIN_VALUE;
+            for (int line = blockLineOffsets[block]; line < blockLineOffsets[block + 1]; line++) {
+                int lineOffset = line << 2;
+                if (lineBoxes[lineOffset] == OcrDocument.NO_BOUND) {
+                    continue;
+                }
+                hasLineBounds = true;
+                left = Math.min(left, lineBoxes[lineOffset]);
+                top = Math.min(top, lineBoxes[lineOffset + 1]);
+                right = Math.max(right, lineBoxes[lineOffset + 2]);
+                bottom = Math.max(bottom, lineBoxes[lineOffset + 3]);
+            }
+            if (hasLineBounds) {
+                // block为其各行的外接矩形，比旋转block自身的外接矩形更紧凑
+                blockBoxes[offset] = left;
+                blockBoxes[offset + 1] = top;
+                blockBoxes[offset + 2] = right;
+                blockBoxes[offset + 3] = bottom;
+            } else if (blockBoxes[offset] != OcrDocument.NO_BOUND) {
+                rotateBox(blockBoxes, offset, cos, sin, blockBoxes, offset);
+            }
+        }
+        return angle;
+    }
+
+    /**
+     * 有角点的行的角度中位数
+     */
+    private static float estimate(int lineCount, int[] lineCorners, float[] lineAngles) {
+        float[] angles = new float[lineCount];
+        int count = 0;
+        for (int line = 0; line < lineCount; line++) {
+            if (lineCorners[line << 3] != OcrDocument.NO_BOUND) {
+                angles[count++] = lineAngles[line];
+            }
+        }
+        if (count == 0) {
+            return 0f;
+        }
+        Arrays.sort(angles, 0, count);
+        return (count & 1) == 1 ? angles[count >> 1] : (angles[(count >> 1) - 1] + angles[count >> 1]) / 2f;
+    }
+
+    /**
+     * 把轴对齐边界框的4个角旋转后取外接矩形
+     */
+    private static void rotateBox(int[] boxes, int offset, double cos, double sin, int[] out, int outOffset) {
+        int left = boxes[offset];
+        int top = boxes[offset + 1];
+        int right = boxes[offset + 2];
+        int bottom = boxes[offset + 3];
+        int[] corners = {left, top, right, top, right, bottom, left, bottom};
+        rotateBounds(corners, 0, cos, sin, out, outOffset);
+    }
+
+    /**
+     * 把4个角点旋转-angle（转到基线坐标系）后取外接矩形
+     */
+    private static void rotateBounds(int[] corners, int offset, double cos, double sin, int[] out, int outOffset) {
+        double left = Double.MAX_VALUE;
+        double top = Double.MAX_VALUE;
+        double right = -Double.MAX_VALUE;
+        double bottom = -Double.MAX_VALUE;
+        for (int i = 0; i < 8; i += 2) {
+            double x = corners[offset + i];
+            double y = corners[offset + i + 1];
+            double rx = x * cos + y * sin;
+            double ry = -x * sin + y * cos;
+            left = Math.min(left, rx);
+            top = Math.min(top, ry);
+            right = Math.max(right, rx);
+            bottom = Math.max(bottom, ry);
+        }
+        out[outOffset] = (int) Math.round(left);
+        out[outOffset + 1] = (int) Math.round(top);
+        out[outOffset + 2] = (int) Math.round(right);
+        out[outOffset + 3] = (int) Math.round(bottom);
+    }
+}
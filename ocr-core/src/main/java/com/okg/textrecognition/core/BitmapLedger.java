@@ -0,0 +1,171 @@
+package com.okg.textrecognition.core;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @author okg
+ * @date 2026-10-18
+ * 描述：图片内存账本，按阶段统计分配的字节数、存活字节数及每次扫描的峰值，记录回收次数及异常事件
+ * 只以弱引用持有图片对象，不影响回收；没有recycle就被GC回收的图片计为collected，说明有图片没有按预期回收
+ * 模块本身不依赖Android，由宿主在分配、回收、使用图片时调用，字节数取Bitmap.getAllocationByteCount()
+ * 统计结果写入MetricsRegistry的bitmap.*计数器：
+ * bitmap.bytes.阶段（累计分配字节）、bitmap.allocated、bitmap.recycled、bitmap.collected、
+ * bitmap.live_bytes（当前存活）、bitmap.peak_bytes（历史峰值）、bitmap.scan_peak_bytes（最近一次扫描的峰值）、
+ * bitmap.double_recycle、bitmap.use_after_recycle
+ * 每次扫描只有几次调用，使用对象锁
+ */
+public final class BitmapLedger {
+    private static final String TAG = "Mlkit-BitmapLedger";
+    static final String COUNTER_BYTES_PREFIX = "bitmap.bytes.";
+    static final String COUNTER_ALLOCATED = "bitmap.allocated";
+    static final String COUNTER_RECYCLED = "bitmap.recycled";
+    static final String COUNTER_COLLECTED = "bitmap.collected";
+    static final String COUNTER_LIVE_BYTES = "bitmap.live_bytes";
+    static final String COUNTER_PEAK_BYTES = "bitmap.peak_bytes";
+    static final String COUNTER_SCAN_PEAK_BYTES = "bitmap.scan_peak_bytes";
+    static final String COUNTER_DOUBLE_RECYCLE = "bitmap.double_recycle";
+    static final String COUNTER_USE_AFTER_RECYCLE = "bitmap.use_after_recycle";
+
+    private final MetricsRegistry mMetrics;
+    private final ReferenceQueue<Object> mQueue = new ReferenceQueue<>();
+    /**
+     * 存活的图片，每次扫描只有几张，线性查找
+     */
+    private final List<Entry> mLive = new ArrayList<>();
+    private long mLiveBytes;
+    private long mScanPeakBytes;
+
+    public BitmapLedger(MetricsRegistry metrics) {
+        if (metrics == null) {
+            throw new IllegalArgumentException("metrics must not be null");
+        }
+        mMetrics = metrics;
+    }
+
+    /**
+     * 记录一张新分配的图片，已记录过的对象（如createBitmap直接返回原图）不重复计入
+     *
+     * @param bitmap
+     * @param stage  分配所在的阶段，如decode、rotate
+     * @param bytes
+     */
+    public synchronized void onAllocated(Object bitmap, String stage, long bytes) {
+        if (bitmap == null) {
+            return;
+        }
+        expunge();
+        if (indexOf(bitmap) >= 0) {
+            return;
+        }
+        mLive.add(new Entry(bitmap, mQueue, stage, bytes));
+        mLiveBytes += bytes;
+        mScanPeakBytes = Math.max(mScanPeakBytes, mLiveBytes);
+        mMetrics.add(COUNTER_BYTES_PREFIX + stage, bytes);
+        mMetrics.add(COUNTER_ALLOCATED, 1);
+        mMetrics.set(COUNTER_LIVE_BYTES, mLiveBytes);
+        mMetrics.updateMax(COUNTER_PEAK_BYTES, mLiveBytes);
+    }
+
+    /**
+     * 记录一次回收
+     *
+     * @param bitmap
+     * @param alreadyRecycled 回收前图片是否已经被回收过
+     * @param where           调用位置，用于日志
+     * @return 是否为正常回收，重复回收时返回false
+     */
+    public synchronized boolean onRecycled(Object bitmap, boolean alreadyRecycled, String where) {
+        expunge();
+        if (alreadyRecycled) {
+            mMetrics.add(COUNTER_DOUBLE_RECYCLE, 1);
+            OcrLog.w(TAG, "重复回收图片：{}", where);
+            return false;
+        }
+        int index = indexOf(bitmap);
+        if (index >= 0) {
+            mLiveBytes -= mLive.remove(index).bytes;
+            mMetrics.set(COUNTER_LIVE_BYTES, mLiveBytes);
+        }
+        mMetrics.add(COUNTER_RECYCLED, 1);
+        return true;
+    }
+
+    /**
+     * 记录一次对已回收图片的使用
+     *
+     * @param where 调用位置，用于日志
+     */
+    public void onUseAfterRecycle(String where) {
+        mMetrics.add(COUNTER_USE_AFTER_RECYCLE, 1);
+        OcrLog.w(TAG, "使用了已回收的图片：{}", where);
+    }
+
+    /**
+     * 开始一次扫描，峰值从当前存活字节数开始统计
+     */
+    public synchronized void beginScan() {
+        expunge();
+        mScanPeakBytes = mLiveBytes;
+    }
+
+    /**
+     * 结束一次扫描
+     *
+     * @return 本次扫描期间的存活字节数峰值
+     */
+    public synchronized long endScan() {
+        mMetrics.set(COUNTER_SCAN_PEAK_BYTES, mScanPeakBytes);
+        return mScanPeakBytes;
+    }
+
+    public synchronized long getLiveBytes() {
+        expunge();
+        return mLiveBytes;
+    }
+
+    public synchronized int getLiveCount() {
+        expunge();
+        return mLive.size();
+    }
+
+    /**
+     * 没有recycle就被GC回收的图片移出存活列表
+     */
+    private void expunge() {
+        Object reference;
+        while ((reference = mQueue.poll()) != null) {
+            int index = mLive.indexOf(reference);
+            if (index < 0) {
+                continue;
+            }
+            Entry entry = mLive.remove(index);
+            mLiveBytes -= entry.bytes;
+            mMetrics.add(COUNTER_COLLECTED, 1);
+            mMetrics.set(COUNTER_LIVE_BYTES, mLiveBytes);
+            OcrLog.w(TAG, "图片未回收即被GC释放，分配阶段：{}", entry.stage);
+        }
+    }
+
+    private int indexOf(Object bitmap) {
+        for (int i = 0; i < mLive.size(); i++) {
+            if (mLive.get(i).get() == bitmap) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static final class Entry extends WeakReference<Object> {
+        final String stage;
+        final long bytes;
+
+        Entry(Object bitmap, ReferenceQueue<Object> queue, String stage, long bytes) {
+            super(bitmap, queue);
+            this.stage = stage;
+            this.bytes = bytes;
+        }
+    }
+}
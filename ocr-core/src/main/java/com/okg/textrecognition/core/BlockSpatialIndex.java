@@ -0,0 +1,207 @@
+package com.okg.textrecognition.core;
+
+import java.util.Arrays;
+
+/**
+ * @author okg
+ * @date 2026-10-18
+ * 描述：文本块Y轴区间索引，每次识别结果构建一次，用于快速查询同一水平带内的文本块
+ * 按top排序，并在排序结果上构建bottom最大值线段树，查询复杂度为O((k+1)logN)，k为命中数量
+ */
+public class BlockSpatialIndex {
+    private final int mCount;
+    /**
+     * 各block边界，每个block占4个int：left、top、right、bottom
+     */
+    private final int[] mBoxes;
+    /**
+     * 按top升序排列的block下标
+     */
+    private final int[] mSortedBlocks;
+    /**
+     * 与mSortedBlocks一一对应的top值，用于二分查找
+     */
+    private final int[] mSortedTops;
+    /**
+     * 线段树叶子起始位置
+     */
+    private final int mLeafBase;
+    /**
+     * 线段树，节点保存子树内bottom的最大值
+     */
+    private final int[] mMaxBottomTree;
+
+    /**
+     * @param boxes 各block边界，每个block占4个int：left、top、right、bottom
+     * @param count block数量
+     */
+    public BlockSpatialIndex(int[] boxes, int count) {
+        mCount = count;
+        mBoxes = boxes;
+        // 以(top << 32 | index)编码排序，避免装箱比较器
+        long[] keys = new long[mCount];
+        for (int i = 0; i < mCount; i++) {
+            keys[i] = ((long) getTop(i) << 32) | (i & 0xFFFFFFFFL);
+        }
+        Arrays.sort(keys);
+        mSortedBlocks = new int[mCount];
+        mSortedTops = new int[mCount];
+        for (int i = 0; i < mCount; i++) {
+            mSortedBlocks[i] = (int) keys[i];
+            mSortedTops[i] = getTop(mSortedBlocks[i]);
+        }
+        int leafBase = 1;
+        while (leafBase < mCount) {
+            leafBase <<= 1;
+        }
+        mLeafBase = leafBase;
+        mMaxBottomTree = new int[leafBase << 1];
+        Arrays.fill(mMaxBottomTree, Integer.MIN_VALUE);
+        for (int i = 0; i < mCount; i++) {
+            mMaxBottomTree[leafBase + i] = getBottom(mSortedBlocks[i]);
+        }
+        for (int node = leafBase - 1; node > 0; node--) {
+            mMaxBottomTree[node] = Math.max(mMaxBottomTree[node << 1], mMaxBottomTree[(node << 1) + 1]);
+        }
+    }
+
+    public int size() {
+        return mCount;
+    }
+
+    /**
+     * 基于文档的block边界构建索引
+     *
+     * @param document
+     * @return
+     */
+    public static BlockSpatialIndex from(OcrDocument document) {
+        return new BlockSpatialIndex(document.getBlockBoxes(), document.getBlockCount());
+    }
+
+    public int getLeft(int blockIndex) {
+        return mBoxes[blockIndex << 2];
+    }
+
+    public int getTop(int blockIndex) {
+        return mBoxes[(blockIndex << 2) + 1];
+    }
+
+    public int getRight(int blockIndex) {
+        return mBoxes[(blockIndex << 2) + 2];
+    }
+
+    public int getBottom(int blockIndex) {
+        return mBoxes[(blockIndex << 2) + 3];
+    }
+
+    /**
+     * 创建足够容纳任意查询结果的缓冲区，可在一次解析中重复使用
+     *
+     * @return
+     */
+    public int[] newResultBuffer() {
+        return new int[mCount];
+    }
+
+    /**
+     * 查询与指定block在Y轴上重叠的所有block（包含自身），结果按block下标升序写入out
+     *
+     * @param blockIndex
+     * @param out        长度不小于size()
+     * @return 命中数量
+     */
+    public int findOverlapping(int blockIndex, int[] out) {
+        if (mCount == 0) {
+            return 0;
+        }
+        int top = getTop(blockIndex);
+        int bottom = getBottom(blockIndex);
+        // 候选block需满足top2 <= bottom1 且 bottom2 >= top1
+        int end = upperBound(bottom);
+        int count = collect(1, 0, mLeafBase, end, top, blockIndex, out, 0);
+        Arrays.sort(out, 0, count);
+        return count;
+    }
+
+    /**
+     * 查询与指定block在Y轴上重叠、且位于其右侧最近的block
+     *
+     * @param blockIndex
+     * @param buffer     查询缓冲区，长度不小于size()
+     * @return 找不到时返回-1
+     */
+    public int findNearestRight(int blockIndex, int[] buffer) {
+        int count = findOverlapping(blockIndex, buffer);
+        int centerX = centerX(blockIndex);
+        int right = getRight(blockIndex);
+        int nearest = -1;
+        int nearestDistance = Integer.MAX_VALUE;
+        for (int i = 0; i < count; i++) {
+            int candidate = buffer[i];
+            if (candidate == blockIndex || centerX(candidate) <= centerX) {
+                continue;
+            }
+            int distance = Math.max(0, getLeft(candidate) - right);
+            if (distance < nearestDistance) {
+                nearestDistance = distance;
+                nearest = candidate;
+            }
+        }
+        return nearest;
+    }
+
+    /**
+     * 在线段树中收集满足条件的block，剪掉bottom最大值小于top的子树
+     */
+    private int collect(int node, int nodeStart, int nodeEnd, int end, int top, int blockIndex, int[] out, int count) {
+        if (nodeStart >= end || mMaxBottomTree[node] < top) {
+            return count;
+        }
+        if (node >= mLeafBase) {
+            int candidate = mSortedBlocks[nodeStart];
+            if (isYOverlap(getTop(blockIndex), getBottom(blockIndex), getTop(candidate), getBottom(candidate))) {
+                out[count++] = candidate;
+            }
+            return count;
+        }
+        int middle = (nodeStart + nodeEnd) >>> 1;
+        count = collect(node << 1, nodeStart, middle, end, top, blockIndex, out, count);
+        return collect((node << 1) + 1, middle, nodeEnd, end, top, blockIndex, out, count);
+    }
+
+    /**
+     * 第一个top大于value的排序位置
+     */
+    private int upperBound(int value) {
+        int low = 0;
+        int high = mCount;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (mSortedTops[middle] <= value) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private int centerX(int blockIndex) {
+        return (getLeft(blockIndex) + getRight(blockIndex)) >> 1;
+    }
+
+    /**
+     * 判断两个矩形在y轴上是否存在交叉/重叠，与Rect.centerY()的取整方式保持一致
+     *
+     * @return
+     */
+    public static boolean isYOverlap(int top1, int bottom1, int top2, int bottom2) {
+        int centerY1 = (top1 + bottom1) >> 1;
+        int centerY2 = (top2 + bottom2) >> 1;
+        if ((centerY1 >= top2) && (centerY1 <= bottom2) && (centerY2 >= top1) && (centerY2 <= bottom1)) {
+            return true;
+        }
+        return (top1 > top2 && top1 < bottom2) || (bottom1 > top2 && bottom1 < bottom2) || (top2 > top1 && top2 < bottom1) || (bottom2 > top1 && bottom2 < bottom1);
+    }
+}
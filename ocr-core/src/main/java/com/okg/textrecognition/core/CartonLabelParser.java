@@ -0,0 +1,383 @@
+package com.okg.textrecognition.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * @author okg
+ * @date 2026-10-18
+ * 描述：外箱标签解析器，一张标签上列有多台设备的imei/sn，按表格行的几何位置把所有imei/sn分组为每台设备一条记录
+ * 1. 遍历一次所有行，提取有效imei（含易混淆字符修复）、行内"SN:xxx"形式的sn、sn列表头及疑似sn的字符串
+ * 2. 只保留位于sn列表头下方且与表头横向重叠的疑似sn
+ * 3. 按中心y分桶排序后从上到下分行，行内按x从左到右依次填入imei1、imei2、sn，放不下时开始下一条记录（一行两台设备）
+ * 行内多个值的横向位置按字符下标在行边界框内插值；整体耗时与行数（及值的数量）成线性关系
+ * 与ImeiSnParser相同，可被多个线程共享
+ */
+public final class CartonLabelParser {
+    private static final String TAG = "Mlkit-CartonLabelParser";
+
+    private static final int KIND_IMEI = 0;
+    private static final int KIND_SN = 1;
+
+    private final KeywordMatcher mKeywordMatcher;
+
+    public CartonLabelParser() {
+        this(KeywordTable.newDefaultMatcher());
+    }
+
+    /**
+     * @param keywordMatcher 关键字匹配器，关键字类型见KeywordTable.KIND_*
+     */
+    public CartonLabelParser(KeywordMatcher keywordMatcher) {
+        mKeywordMatcher = keywordMatcher;
+    }
+
+    /**
+     * 解析标签上所有设备
+     *
+     * @param document
+     * @return 按从上到下、从左到右排列的设备记录，布局类型为ImeiSnParser.TYPE_LAYOUT_CARTON，没有时返回空列表
+     */
+    public List<DeviceInfo> parse(OcrDocument document) {
+        int blockCount = document == null ? 0 : document.getBlockCount();
+        if (blockCount == 0) {
+            return new ArrayList<>();
+        }
+        Items items = new Items();
+        Items snTokens = new Items();
+        Items snHeaders = new Items();
+        collect(document, items, snTokens, snHeaders);
+        acceptColumnSn(document, items, snTokens, snHeaders);
+        OcrLog.d(TAG, "imei/sn count = {}, sn headers = {}", items.count, snHeaders.count);
+        return groupRows(items, document.getBaselineAngle());
+    }
+
+    /**
+     * 唯一一次遍历全部行
+     */
+    private void collect(OcrDocument document, Items items, Items snTokens, Items snHeaders) {
+        char[] text = document.getTextBuffer();
+        KeywordHits hits = new KeywordHits();
+        ImeiCandidateScorer scorer = new ImeiCandidateScorer();
+        scorer.reset(document);
+        // 标签上同一个imei可能印了多次（如条码下方的数字），只保留第一次出现的
+        Set<String> seenImeis = new HashSet<>();
+        int blockCount = document.getBlockCount();
+        for (int block = 0; block < blockCount; block++) {
+            int lineEnd = document.getBlockLineEnd(block);
+            for (int line = document.getBlockLineStart(block); line < lineEnd; line++) {
+                int start = document.getLineTextStart(line);
+                int end = document.getLineTextEnd(line);
+                int firstCandidate = scorer.getCount();
+                scorer.collectLine(block, line);
+                for (int c = firstCandidate; c < scorer.getCount(); c++) {
+                    String imei = scorer.getValue(c);
+                    if (seenImeis.add(imei)) {
+                        int valueStart = scorer.getStart(c);
+                        items.add(KIND_IMEI, imei, document, block, line, valueStart, valueStart + ImeiValidator.IMEI_LENGTH);
+                    }
+                }
+                int firstItem = items.count;
+                mKeywordMatcher.scan(text, start, end, hits);
+                // 一行中可能有多台设备的sn，逐个处理sn关键字，跳过与已处理关键字重叠的命中（如s/n中的n）
+                int consumed = start;
+                for (int hit = 0; hit < hits.getCount(); hit++) {
+                    if ((mKeywordMatcher.getKind(hits.getKeyword(hit)) & KeywordTable.KIND_SN_ANY) == 0 || hits.getStart(hit) < consumed) {
+                        continue;
+                    }
+                    int valueStart = skipSeparators(text, hits.getEnd(hit), end);
+                    int valueEnd = runEnd(text, valueStart, end);
+                    consumed = hits.getEnd(hit);
+                    if (isSnLength(valueEnd - valueStart)) {
+                        consumed = valueEnd;
+                        items.add(KIND_SN, snValue(text, valueStart, valueEnd), document, block, line, valueStart, valueEnd);
+                    } else if (valueStart == end || !CharClass.is(text[valueStart], CharClass.SN)) {
+                        // 关键字后没有值，为sn列表头
+                        snHeaders.add(KIND_SN, null, document, block, line, hits.getStart(hit), hits.getEnd(hit));
+                    }
+                }
+                collectSnTokens(document, block, line, scorer, firstCandidate, items, firstItem, snTokens);
+            }
+        }
+    }
+
+    /**
+     * 记录行中长度符合sn的字符串，排除imei及行内sn，是否为sn由是否位于sn列下方决定
+     */
+    private static void collectSnTokens(OcrDocument document, int block, int line, ImeiCandidateScorer scorer, int firstCandidate, Items items, int firstItem, Items snTokens) {
+        char[] text = document.getTextBuffer();
+        int end = document.getLineTextEnd(line);
+        int i = document.getLineTextStart(line);
+        while (i < end) {
+            if (!CharClass.is(text[i], CharClass.SN)) {
+                i++;
+                continue;
+            }
+            int tokenEnd = runEnd(text, i, end);
+            if (isSnLength(tokenEnd - i) && !items.hasStart(firstItem, i) && !isCandidateStart(scorer, firstCandidate, i)) {
+                snTokens.add(KIND_SN, null, document, block, line, i, tokenEnd);
+            }
+            i = tokenEnd;
+        }
+    }
+
+    private static boolean isCandidateStart(ImeiCandidateScorer scorer, int firstCandidate, int start) {
+        for (int c = firstCandidate; c < scorer.getCount(); c++) {
+            if (scorer.getStart(c) == start) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 位于某个sn列表头下方且横向重叠的字符串视为sn
+     */
+    private static void acceptColumnSn(OcrDocument document, Items items, Items snTokens, Items snHeaders) {
+        if (snHeaders.count == 0) {
+            return;
+        }
+        char[] text = document.getTextBuffer();
+        for (int t = 0; t < snTokens.count; t++) {
+            for (int h = 0; h < snHeaders.count; h++) {
+                if (snTokens.tops[t] >= snHeaders.bottoms[h]
+                        && snTokens.lefts[t] < snHeaders.rights[h] && snHeaders.lefts[h] < snTokens.rights[t]) {
+                    int start = snTokens.starts[t];
+                    int end = snTokens.ends[t];
+                    items.add(KIND_SN, snValue(text, start, end), snTokens.blocks[t], start, end,
+                            snTokens.lefts[t], snTokens.tops[t], snTokens.rights[t], snTokens.bottoms[t]);
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * 按中心y从上到下分行，行内按x从左到右组成设备记录
+     *
+     * @param sourceAngle 文档的基线角度，记入各字段来源
+     */
+    private static List<DeviceInfo> groupRows(Items items, float sourceAngle) {
+        List<DeviceInfo> records = new ArrayList<>();
+        int[] order = items.sortByCenterY();
+        int row = 0;
+        while (row < order.length) {
+            int first = order[row];
+            int rowEnd = row + 1;
+            if (items.tops[first] != OcrDocument.NO_BOUND) {
+                // 中心落在本行第一个值上下边界内的值属于同一行
+                while (rowEnd < order.length && items.tops[order[rowEnd]] != OcrDocument.NO_BOUND
+                        && items.centerY(order[rowEnd]) <= items.bottoms[first]) {
+                    rowEnd++;
+                }
+            }
+            items.sortByLeft(order, row, rowEnd);
+            DeviceInfo.Builder record = null;
+            for (int k = row; k < rowEnd; k++) {
+                int item = order[k];
+                int field = items.kinds[item] == KIND_SN ? DeviceInfo.FIELD_SN : DeviceInfo.FIELD_IMEI1;
+                if (record != null && !fits(record, field)) {
+                    records.add(record.build());
+                    record = null;
+                }
+                if (record == null) {
+                    record = new DeviceInfo.Builder(ImeiSnParser.TYPE_LAYOUT_CARTON);
+                }
+                if (field == DeviceInfo.FIELD_IMEI1 && record.has(DeviceInfo.FIELD_IMEI1)) {
+                    field = DeviceInfo.FIELD_IMEI2;
+                }
+                record.set(field, items.values[item], items.blocks[item], items.lefts[item], items.tops[item], items.rights[item], items.bottoms[item], sourceAngle);
+            }
+            if (record != null) {
+                records.add(record.build());
+            }
+            row = rowEnd;
+        }
+        return records;
+    }
+
+    /**
+     * 值能否放入当前记录，放不下说明是同一行的下一台设备
+     */
+    private static boolean fits(DeviceInfo.Builder record, int field) {
+        if (field == DeviceInfo.FIELD_SN) {
+            return !record.has(DeviceInfo.FIELD_SN);
+        }
+        if (record.has(DeviceInfo.FIELD_IMEI2)) {
+            return false;
+        }
+        // 已有sn及imei时，后面的imei属于下一台设备（如"imei sn | imei sn"）
+        return !(record.has(DeviceInfo.FIELD_SN) && record.has(DeviceInfo.FIELD_IMEI1));
+    }
+
+    private static int skipSeparators(char[] text, int start, int end) {
+        while (start < end && (text[start] <= ' ' || text[start] == ':' || text[start] == '：' || text[start] == '#')) {
+            start++;
+        }
+        return start;
+    }
+
+    private static int runEnd(char[] text, int start, int end) {
+        while (start < end && CharClass.is(text[start], CharClass.SN)) {
+            start++;
+        }
+        return start;
+    }
+
+    private static boolean isSnLength(int length) {
+        return length >= ImeiSnParser.SN_MIN_LENGTH && length <= ImeiSnParser.SN_MAX_LENGTH;
+    }
+
+    private static String snValue(char[] text, int start, int end) {
+        return new String(text, start, end - start).toUpperCase();
+    }
+
+    /**
+     * imei/sn值及其边界框，平铺存储
+     */
+    private static final class Items {
+        int count;
+        int[] kinds = new int[16];
+        int[] blocks = new int[16];
+        int[] starts = new int[16];
+        int[] ends = new int[16];
+        int[] lefts = new int[16];
+        int[] tops = new int[16];
+        int[] rights = new int[16];
+        int[] bottoms = new int[16];
+        String[] values = new String[16];
+
+        /**
+         * 添加行中[start, end)区间的值，横向位置按字符下标在行边界框内插值
+         */
+        void add(int kind, String value, OcrDocument document, int block, int line, int start, int end) {
+            int left = document.getLineLeft(line);
+            int right = document.getLineRight(line);
+            int lineStart = document.getLineTextStart(line);
+            int length = document.getLineTextEnd(line) - lineStart;
+            int valueLeft = left;
+            int valueRight = right;
+            if (left != OcrDocument.NO_BOUND && length > 0) {
+                long width = (long) right - left;
+                valueLeft = (int) (left + width * (start - lineStart) / length);
+                valueRight = (int) (left + width * (end - lineStart) / length);
+            }
+            add(kind, value, block, start, end, valueLeft, document.getLineTop(line), valueRight, document.getLineBottom(line));
+        }
+
+        void add(int kind, String value, int block, int start, int end, int left, int top, int right, int bottom) {
+            if (count == kinds.length) {
+                int capacity = count << 1;
+                kinds = Arrays.copyOf(kinds, capacity);
+                blocks = Arrays.copyOf(blocks, capacity);
+                starts = Arrays.copyOf(starts, capacity);
+                ends = Arrays.copyOf(ends, capacity);
+                lefts = Arrays.copyOf(lefts, capacity);
+                tops = Arrays.copyOf(tops, capacity);
+                rights = Arrays.copyOf(rights, capacity);
+                bottoms = Arrays.copyOf(bottoms, capacity);
+                values = Arrays.copyOf(values, capacity);
+            }
+            kinds[count] = kind;
+            blocks[count] = block;
+            starts[count] = start;
+            ends[count] = end;
+            lefts[count] = left;
+            tops[count] = top;
+            rights[count] = right;
+            bottoms[count] = bottom;
+            values[count] = value;
+            count++;
+        }
+
+        /**
+         * [from, count)中是否有起点为start的值
+         */
+        boolean hasStart(int from, int start) {
+            for (int i = from; i < count; i++) {
+                if (starts[i] == start) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        int centerY(int item) {
+            return (int) (((long) tops[item] + bottoms[item]) >> 1);
+        }
+
+        /**
+         * 按中心y排序，桶高取值的平均高度，每个桶内只有同一行附近的少量值，桶内插入排序，整体为线性
+         * 没有边界框的值排在最后，各自成行
+         *
+         * @return 排序后的值下标
+         */
+        int[] sortByCenterY() {
+            int[] order = new int[count];
+            int bounded = 0;
+            long minY = Long.MAX_VALUE;
+            long maxY = Long.MIN_VALUE;
+            long totalHeight = 0;
+            for (int i = 0; i < count; i++) {
+                if (tops[i] == OcrDocument.NO_BOUND) {
+                    continue;
+                }
+                bounded++;
+                minY = Math.min(minY, centerY(i));
+                maxY = Math.max(maxY, centerY(i));
+                totalHeight += Math.max(1, bottoms[i] - tops[i]);
+            }
+            int tail = bounded;
+            if (bounded > 0) {
+                long bucketHeight = Math.max(1, totalHeight / bounded);
+                // 桶数不超过值的数量，避免个别离群值导致桶数过多
+                bucketHeight = Math.max(bucketHeight, (maxY - minY) / bounded + 1);
+                int bucketCount = (int) ((maxY - minY) / bucketHeight) + 1;
+                int[] bucketStarts = new int[bucketCount + 1];
+                for (int i = 0; i < count; i++) {
+                    if (tops[i] != OcrDocument.NO_BOUND) {
+                        bucketStarts[(int) ((centerY(i) - minY) / bucketHeight) + 1]++;
+                    }
+                }
+                for (int b = 0; b < bucketCount; b++) {
+                    bucketStarts[b + 1] += bucketStarts[b];
+                }
+                int[] cursors = Arrays.copyOf(bucketStarts, bucketCount);
+                for (int i = 0; i < count; i++) {
+                    if (tops[i] != OcrDocument.NO_BOUND) {
+                        order[cursors[(int) ((centerY(i) - minY) / bucketHeight)]++] = i;
+                    }
+                }
+                for (int b = 0; b < bucketCount; b++) {
+                    insertionSort(order, bucketStarts[b], bucketStarts[b + 1], true);
+                }
+            }
+            for (int i = 0; i < count; i++) {
+                if (tops[i] == OcrDocument.NO_BOUND) {
+                    order[tail++] = i;
+                }
+            }
+            return order;
+        }
+
+        void sortByLeft(int[] order, int start, int end) {
+            insertionSort(order, start, end, false);
+        }
+
+        private void insertionSort(int[] order, int start, int end, boolean byCenterY) {
+            for (int i = start + 1; i < end; i++) {
+                int item = order[i];
+                int key = byCenterY ? centerY(item) : lefts[item];
+                int j = i - 1;
+                while (j >= start && (byCenterY ? centerY(order[j]) : lefts[order[j]]) > key) {
+                    order[j + 1] = order[j];
+                    j--;
+                }
+                order[j + 1] = item;
+            }
+        }
+    }
+}
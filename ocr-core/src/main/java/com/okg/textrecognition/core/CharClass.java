@@ -0,0 +1,133 @@
+package com.okg.textrecognition.core;
+
+/**
+ * @author okg
+ * @date 2026-10-18
+ * 描述：字符类查表，替代正则表达式，所有判断均直接作用于文本区间，不创建中间字符串
+ */
+public final class CharClass {
+    public static final int DIGIT = 1;
+    /**
+     * sn字符类：字母、数字、_、/、-，与原正则^[A-Za-z0-9_/-]+$一致
+     */
+    public static final int SN = 1 << 1;
+    /**
+     * String.trim()会去掉的字符（<= ' '）
+     */
+    public static final int TRIMMABLE = 1 << 2;
+
+    private static final int ASCII_SIZE = 128;
+    private static final byte[] FLAGS = new byte[ASCII_SIZE];
+
+    static {
+        for (char c = 0; c <= ' '; c++) {
+            FLAGS[c] |= TRIMMABLE;
+        }
+        for (char c = '0'; c <= '9'; c++) {
+            FLAGS[c] |= DIGIT | SN;
+        }
+        for (char c = 'a'; c <= 'z'; c++) {
+            FLAGS[c] |= SN;
+            FLAGS[c - 'a' + 'A'] |= SN;
+        }
+        FLAGS['_'] |= SN;
+        FLAGS['/'] |= SN;
+        FLAGS['-'] |= SN;
+    }
+
+    private CharClass() {
+
+    }
+
+    /**
+     * 字符是否属于指定字符类，非ASCII字符不属于任何字符类
+     */
+    public static boolean is(char c, int charClass) {
+        return c < ASCII_SIZE && (FLAGS[c] & charClass) != 0;
+    }
+
+    public static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    /**
+     * ASCII大写字母转为小写，其它字符不变
+     */
+    public static char foldCase(char c) {
+        return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+    }
+
+    /**
+     * text[start, end)是否非空且所有字符都属于指定字符类
+     */
+    public static boolean matchesAll(char[] text, int start, int end, int charClass) {
+        if (start >= end) {
+            return false;
+        }
+        for (int i = start; i < end; i++) {
+            if (!is(text[i], charClass)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 同matchesAll，用于不在文档缓冲区中的字符串
+     */
+    public static boolean matchesAll(CharSequence text, int charClass) {
+        int length = text == null ? 0 : text.length();
+        if (length == 0) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (!is(text.charAt(i), charClass)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 区间内是否包含指定字符
+     */
+    public static boolean contains(char[] text, int start, int end, char c) {
+        return indexOf(text, start, end, c) >= 0;
+    }
+
+    /**
+     * @return 字符第一次出现的下标，没有返回-1
+     */
+    public static int indexOf(char[] text, int start, int end, char c) {
+        for (int i = start; i < end; i++) {
+            if (text[i] == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 与String.trim()一致，跳过开头的空白字符
+     *
+     * @return 第一个非空白字符的下标，全为空白时返回end
+     */
+    public static int trimStart(char[] text, int start, int end) {
+        while (start < end && text[start] <= ' ') {
+            start++;
+        }
+        return start;
+    }
+
+    /**
+     * 与String.trim()一致，跳过末尾的空白字符
+     *
+     * @return 最后一个非空白字符的下一个下标，全为空白时返回start
+     */
+    public static int trimEnd(char[] text, int start, int end) {
+        while (end > start && text[end - 1] <= ' ') {
+            end--;
+        }
+        return end;
+    }
+}
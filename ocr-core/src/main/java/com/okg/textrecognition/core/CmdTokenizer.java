@@ -0,0 +1,84 @@
+package com.okg.textrecognition.core;
+
+/**
+ * @author okg
+ * @date 2026-10-18
+ * 描述：*#06#命令行形式文本（如"IMEI1:xxx"、"SN xxx"）的键值切分，以下标形式返回结果，不创建字符串
+ * 切分结果与原先text.split(":")取[1]、失败时再text.split(" ")取[1]的行为一致：
+ * 值为第一个分隔符之后到下一个分隔符（或末尾）之间的文本；第一个分隔符之后全是分隔符时视为切分失败
+ * 非线程安全，每次解析使用各自的实例
+ */
+public final class CmdTokenizer {
+    public static final char SEPARATOR_COLON = ':';
+    public static final char SEPARATOR_BLANK = ' ';
+
+    private int mKeyStart;
+    private int mKeyEnd;
+    private int mValueStart;
+    private int mValueEnd;
+
+    /**
+     * 先按冒号切分，失败再按空格切分
+     *
+     * @return 是否存在值（值可能为空，如"IMEI::x"）
+     */
+    public boolean split(char[] text, int start, int end) {
+        return splitBy(text, start, end, SEPARATOR_COLON) || splitBy(text, start, end, SEPARATOR_BLANK);
+    }
+
+    /**
+     * 按指定分隔符切分
+     *
+     * @return 是否存在值（值可能为空）
+     */
+    public boolean splitBy(char[] text, int start, int end, char separator) {
+        int first = CharClass.indexOf(text, start, end, separator);
+        if (first < 0) {
+            return false;
+        }
+        // split会去掉末尾的空串，第一个分隔符之后全是分隔符时只剩下键
+        boolean hasMore = false;
+        for (int i = first + 1; i < end; i++) {
+            if (text[i] != separator) {
+                hasMore = true;
+                break;
+            }
+        }
+        if (!hasMore) {
+            return false;
+        }
+        int valueEnd = CharClass.indexOf(text, first + 1, end, separator);
+        mKeyStart = start;
+        mKeyEnd = first;
+        mValueStart = first + 1;
+        mValueEnd = valueEnd < 0 ? end : valueEnd;
+        return true;
+    }
+
+    public int getKeyStart() {
+        return mKeyStart;
+    }
+
+    public int getKeyEnd() {
+        return mKeyEnd;
+    }
+
+    public int getValueStart() {
+        return mValueStart;
+    }
+
+    public int getValueEnd() {
+        return mValueEnd;
+    }
+
+    public boolean isValueEmpty() {
+        return mValueEnd == mValueStart;
+    }
+
+    /**
+     * 取出值，只在确实需要值时调用
+     */
+    public String getValue(char[] text) {
+        return new String(text, mValueStart, mValueEnd - mValueStart);
+    }
+}
@@ -0,0 +1,220 @@
+package com.okg.textrecognition.core;
+
+/**
+ * @author okg
+ * @date 2026-10-18
+ * 描述：OCR易混淆字符修复，基于预先计算的混淆表，只替换不符合目标字符类的字符（最小替换集）
+ * imei：字母按混淆表替换为数字，存在多种读法时枚举组合，只保留唯一通过TAC及Luhn校验的结果
+ * sn：把不属于sn字符类（字母、数字、_、/、-）的字符替换为外形相近的合法字符
+ * 修复结果写入调用方提供的缓冲区，工作量有上限且不分配内存，可在每一帧上执行
+ */
+public final class ConfusionRepair {
+    /**
+     * 单个imei最多替换的字符数，超过则认为不是imei
+     */
+    public static final int MAX_IMEI_SUBSTITUTIONS = 4;
+    /**
+     * 单个imei最多枚举的组合数
+     */
+    private static final int MAX_IMEI_VARIANTS = 16;
+
+    /**
+     * ASCII字符可能代表的数字，按位表示（bit d表示数字d），0表示不可能是数字
+     */
+    private static final short[] DIGIT_MASKS = new short[128];
+    /**
+     * ASCII字符在sn中的替换字符，0表示无法替换
+     */
+    private static final char[] SN_SUBSTITUTES = new char[128];
+
+    static {
+        for (char c = '0'; c <= '9'; c++) {
+            DIGIT_MASKS[c] = (short) (1 << (c - '0'));
+        }
+        setDigit("OoDQ", 0);
+        setDigit("Iil|!", 1);
+        setDigit("Zz", 2);
+        setDigit("A", 4);
+        setDigit("Ss$", 5);
+        setDigit("G", 6);
+        setDigit("T", 7);
+        setDigit("B", 8);
+        setDigit("gq", 9);
+        // 小写b既像6也像8
+        DIGIT_MASKS['b'] = (short) ((1 << 6) | (1 << 8));
+
+        SN_SUBSTITUTES['|'] = 'I';
+        SN_SUBSTITUTES['!'] = 'I';
+        SN_SUBSTITUTES['$'] = 'S';
+        SN_SUBSTITUTES['\\'] = '/';
+        SN_SUBSTITUTES['~'] = '-';
+    }
+
+    private ConfusionRepair() {
+
+    }
+
+    private static void setDigit(String glyphs, int digit) {
+        for (int i = 0; i < glyphs.length(); i++) {
+            DIGIT_MASKS[glyphs.charAt(i)] = (short) (1 << digit);
+        }
+    }
+
+    /**
+     * 字符可能代表的数字集合
+     *
+     * @return 按位表示的数字集合，0表示不可能是数字
+     */
+    public static int digitMask(char c) {
+        if (c < 128) {
+            return DIGIT_MASKS[c];
+        }
+        switch (c) {
+            case 'Ø':
+            case 'ø':
+                return 1;
+            case 'ß':
+                return 1 << 8;
+            default:
+                // 全角数字
+                if (c >= '０' && c <= '９') {
+                    return 1 << (c - '０');
+                }
+                return 0;
+        }
+    }
+
+    /**
+     * 字符是否可以出现在imei中（数字或可能被误识别的数字）
+     */
+    public static boolean isDigitLike(char c) {
+        return digitMask(c) != 0;
+    }
+
+    /**
+     * 修复imei，text[start, end)需为15个可能代表数字的字符
+     *
+     * @param out       结果缓冲区，写入out[outOffset, outOffset + 15)
+     * @param outOffset
+     * @return 存在唯一一个通过校验的组合时返回true
+     */
+    public static boolean repairImei(char[] text, int start, int end, char[] out, int outOffset) {
+        if (end - start != ImeiValidator.IMEI_LENGTH) {
+            return false;
+        }
+        int substitutions = 0;
+        // 有多种读法的位置，最多MAX_IMEI_SUBSTITUTIONS个
+        int ambiguousCount = 0;
+        int ambiguousPositions = 0;
+        int variants = 1;
+        for (int i = 0; i < ImeiValidator.IMEI_LENGTH; i++) {
+            char c = text[start + i];
+            int mask = digitMask(c);
+            if (mask == 0) {
+                return false;
+            }
+            int digit = Integer.numberOfTrailingZeros(mask);
+            out[outOffset + i] = (char) ('0' + digit);
+            if (c == out[outOffset + i]) {
+                continue;
+            }
+            if (++substitutions > MAX_IMEI_SUBSTITUTIONS) {
+                return false;
+            }
+            if (Integer.bitCount(mask) > 1) {
+                variants *= Integer.bitCount(mask);
+                ambiguousPositions |= 1 << i;
+                ambiguousCount++;
+            }
+        }
+        if (ambiguousCount == 0) {
+            return ImeiValidator.isValidDigits(out, outOffset);
+        }
+        if (variants > MAX_IMEI_VARIANTS) {
+            return false;
+        }
+        // 枚举有歧义位置的所有读法，每个位置的读法下标按混合进制编码在variant中
+        int found = -1;
+        for (int variant = 0; variant < variants; variant++) {
+            applyVariant(text, start, ambiguousPositions, variant, out, outOffset);
+            if (ImeiValidator.isValidDigits(out, outOffset)) {
+                if (found >= 0) {
+                    // 多个组合都能通过校验，无法确定
+                    return false;
+                }
+                found = variant;
+            }
+        }
+        if (found < 0) {
+            return false;
+        }
+        applyVariant(text, start, ambiguousPositions, found, out, outOffset);
+        return true;
+    }
+
+    private static void applyVariant(char[] text, int start, int ambiguousPositions, int variant, char[] out, int outOffset) {
+        int positions = ambiguousPositions;
+        while (positions != 0) {
+            int i = Integer.numberOfTrailingZeros(positions);
+            positions &= positions - 1;
+            int mask = digitMask(text[start + i]);
+            int options = Integer.bitCount(mask);
+            int choice = variant % options;
+            variant /= options;
+            for (int n = 0; n < choice; n++) {
+                mask &= mask - 1;
+            }
+            out[outOffset + i] = (char) ('0' + Integer.numberOfTrailingZeros(mask));
+        }
+    }
+
+    /**
+     * sn中的替换字符
+     *
+     * @return 属于sn字符类时返回自身，无法替换返回0
+     */
+    public static char toSnChar(char c) {
+        if (c < 128) {
+            return CharClass.is(c, CharClass.SN) ? c : SN_SUBSTITUTES[c];
+        }
+        switch (c) {
+            case 'Ø':
+            case 'ø':
+                return '0';
+            case 'ß':
+                return 'B';
+            case '–':
+            case '—':
+                return '-';
+            default:
+                // 全角字母数字
+                if (c >= '！' && c <= '～') {
+                    char ascii = (char) (c - 0xFEE0);
+                    return CharClass.is(ascii, CharClass.SN) ? ascii : SN_SUBSTITUTES[ascii];
+                }
+                return 0;
+        }
+    }
+
+    /**
+     * 修复sn，只替换不属于sn字符类的字符
+     *
+     * @param out 结果缓冲区，长度不小于end - start
+     * @return 替换的字符数，存在无法替换的字符时返回-1
+     */
+    public static int repairSn(char[] text, int start, int end, char[] out) {
+        int substitutions = 0;
+        for (int i = start; i < end; i++) {
+            char c = text[i];
+            char repaired = toSnChar(c);
+            if (repaired == 0) {
+                return -1;
+            }
+            if (repaired != c) {
+                substitutions++;
+            }
+            out[i - start] = repaired;
+        }
+        return substitutions;
+    }
+}
@@ -0,0 +1,369 @@
+package com.okg.textrecognition.core;
+
+import java.util.Arrays;
+
+/**
+ * @author okg
+ * @date 2026-10-18
+ * 描述：imei/sn解析结果，不可变
+ * 每个字段记录其来源（所在block下标及来源行/块的边界框），JSON只在需要展示或上报时按需生成
+ * 来源边界框取自OcrDocument，位于其基线坐标系中：文档纠偏时（见OcrDocument.getBaselineAngle()）边界框已旋转，不是图像坐标，
+ * 需要在图像上绘制或裁剪时用getSourceCorners()换算回图像坐标
+ */
+public final class DeviceInfo {
+    public static final int FIELD_IMEI1 = 0;
+    public static final int FIELD_IMEI2 = 1;
+    public static final int FIELD_SN = 2;
+    public static final int FIELD_COUNT = 3;
+
+    public static final String KEY_IMEI1 = "imei1";
+    public static final String KEY_IMEI2 = "imei2";
+    public static final String KEY_SN = "sn";
+    public static final String KEY_LAYOUT_TYPE = "layoutType";
+    private static final String[] FIELD_KEYS = {KEY_IMEI1, KEY_IMEI2, KEY_SN};
+
+    /**
+     * 没有来源信息
+     */
+    public static final int NO_SOURCE = -1;
+    /**
+     * 每个字段的来源信息占用的int数：block、left、top、right、bottom
+     */
+    private static final int SOURCE_STRIDE = 5;
+
+    /**
+     * 空结果，布局类型为ImeiSnParser.TYPE_LAYOUT_NONE
+     */
+    public static final DeviceInfo EMPTY = new Builder(ImeiSnParser.TYPE_LAYOUT_NONE).build();
+
+    private final String[] mValues;
+    private final int[] mSources;
+    /**
+     * 每个字段来源边界框所在基线坐标系相对图像的角度
+     */
+    private final float[] mSourceAngles;
+    private final int mLayoutType;
+
+    private DeviceInfo(Builder builder) {
+        mValues = builder.mValues.clone();
+        mSources = builder.mSources.clone();
+        mSourceAngles = builder.mSourceAngles.clone();
+        mLayoutType = builder.mLayoutType;
+    }
+
+    public String getImei1() {
+        return mValues[FIELD_IMEI1];
+    }
+
+    public String getImei2() {
+        return mValues[FIELD_IMEI2];
+    }
+
+    public String getSn() {
+        return mValues[FIELD_SN];
+    }
+
+    /**
+     * @param field FIELD_*
+     * @return 字段值，没有时为空字符串
+     */
+    public String getValue(int field) {
+        return mValues[field];
+    }
+
+    /**
+     * @return 布局类型，见ImeiSnParser.TYPE_LAYOUT_*
+     */
+    public int getLayoutType() {
+        return mLayoutType;
+    }
+
+    /**
+     * 是否至少解析到一个字段
+     */
+    public boolean hasAnyValue() {
+        for (String value : mValues) {
+            if (value.length() > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param field FIELD_*
+     * @return 字段来源的block下标，没有时返回NO_SOURCE
+     */
+    public int getSourceBlock(int field) {
+        return mSources[field * SOURCE_STRIDE];
+    }
+
+    /**
+     * 来源边界框（getSourceLeft/Top/Right/Bottom）所在基线坐标系相对图像水平方向的角度（度，顺时针为正），
+     * 即解析时OcrDocument.getBaselineAngle()；为0时边界框就是图像坐标
+     *
+     * @param field FIELD_*
+     */
+    public float getSourceAngle(int field) {
+        return mSourceAngles[field];
+    }
+
+    /**
+     * 来源边界框的4个角点换算回图像坐标，顺序为左上、右上、右下、左下，倾斜时为旋转后的四边形
+     *
+     * @param field FIELD_*
+     * @param out   长度不小于8，依次为x0, y0, x1, y1...
+     * @return 没有来源时返回false，out不修改
+     */
+    public boolean getSourceCorners(int field, float[] out) {
+        if (getSourceBlock(field) == NO_SOURCE) {
+            return false;
+        }
+        double radians = Math.toRadians(mSourceAngles[field]);
+        double cos = Math.cos(radians);
+        double sin = Math.sin(radians);
+        int left = getSourceLeft(field);
+        int top = getSourceTop(field);
+        int right = getSourceRight(field);
+        int bottom = getSourceBottom(field);
+        int[] corners = {left, top, right, top, right, bottom, left, bottom};
+        for (int i = 0; i < 8; i += 2) {
+            // 基线坐标系是图像坐标旋转-angle得到的，反向旋转回图像坐标
+            out[i] = (float) (corners[i] * cos - corners[i + 1] * sin);
+            out[i + 1] = (float) (corners[i] * sin + corners[i + 1] * cos);
+        }
+        return true;
+    }
+
+    /**
+     * 来源边界框，位于基线坐标系中，见getSourceAngle()
+     */
+    public int getSourceLeft(int field) {
+        return mSources[field * SOURCE_STRIDE + 1];
+    }
+
+    public int getSourceTop(int field) {
+        return mSources[field * SOURCE_STRIDE + 2];
+    }
+
+    public int getSourceRight(int field) {
+        return mSources[field * SOURCE_STRIDE + 3];
+    }
+
+    public int getSourceBottom(int field) {
+        return mSources[field * SOURCE_STRIDE + 4];
+    }
+
+    /**
+     * 生成与原JSONObject结果相同字段的JSON字符串
+     */
+    public String toJson() {
+        StringBuilder builder = new StringBuilder(96);
+        appendJson(builder, false);
+        return builder.toString();
+    }
+
+    /**
+     * 追加JSON
+     *
+     * @param out
+     * @param includeSources 是否输出各字段来源
+     */
+    public void appendJson(StringBuilder out, boolean includeSources) {
+        out.append('{');
+        for (int field = 0; field < FIELD_COUNT; field++) {
+            appendString(out, FIELD_KEYS[field]);
+            out.append(':');
+            appendString(out, mValues[field]);
+            out.append(',');
+        }
+        appendString(out, KEY_LAYOUT_TYPE);
+        out.append(':').append(mLayoutType);
+        if (includeSources) {
+            out.append(",\"sources\":{");
+            boolean first = true;
+            for (int field = 0; field < FIELD_COUNT; field++) {
+                if (getSourceBlock(field) == NO_SOURCE) {
+                    continue;
+                }
+                if (!first) {
+                    out.append(',');
+                }
+                first = false;
+                appendString(out, FIELD_KEYS[field]);
+                out.append(":{\"block\":").append(getSourceBlock(field))
+                        .append(",\"box\":[").append(getSourceLeft(field))
+                        .append(',').append(getSourceTop(field))
+                        .append(',').append(getSourceRight(field))
+                        .append(',').append(getSourceBottom(field)).append(']');
+                if (mSourceAngles[field] != 0) {
+                    out.append(",\"angle\":").append(mSourceAngles[field]);
+                }
+                out.append('}');
+            }
+            out.append('}');
+        }
+        out.append('}');
+    }
+
+    private static void appendString(StringBuilder out, String value) {
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                case '\\':
+                    out.append('\\').append(c);
+                    break;
+                case '\n':
+                    out.append("\\n");
+                    break;
+                case '\r':
+                    out.append("\\r");
+                    break;
+                case '\t':
+                    out.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+                    break;
+            }
+        }
+        out.append('"');
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof DeviceInfo)) {
+            return false;
+        }
+        DeviceInfo other = (DeviceInfo) o;
+        return mLayoutType == other.mLayoutType && Arrays.equals(mValues, other.mValues) && Arrays.equals(mSources, other.mSources)
+                && Arrays.equals(mSourceAngles, other.mSourceAngles);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (31 * (31 * Arrays.hashCode(mValues) + Arrays.hashCode(mSources)) + Arrays.hashCode(mSourceAngles)) + mLayoutType;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder(128);
+        appendJson(builder, true);
+        return builder.toString();
+    }
+
+    /**
+     * 结果构建器，解析过程中逐字段填充
+     */
+    public static final class Builder {
+        private final String[] mValues = new String[FIELD_COUNT];
+        private final int[] mSources = new int[FIELD_COUNT * SOURCE_STRIDE];
+        private final float[] mSourceAngles = new float[FIELD_COUNT];
+        private int mLayoutType;
+
+        public Builder(int layoutType) {
+            mLayoutType = layoutType;
+            Arrays.fill(mValues, "");
+            for (int field = 0; field < FIELD_COUNT; field++) {
+                mSources[field * SOURCE_STRIDE] = NO_SOURCE;
+            }
+        }
+
+        /**
+         * 以已有结果为初始值，用于在解析结果上补充字段
+         */
+        public Builder(DeviceInfo source) {
+            mLayoutType = source.mLayoutType;
+            System.arraycopy(source.mValues, 0, mValues, 0, FIELD_COUNT);
+            System.arraycopy(source.mSources, 0, mSources, 0, mSources.length);
+            System.arraycopy(source.mSourceAngles, 0, mSourceAngles, 0, FIELD_COUNT);
+        }
+
+        public int getLayoutType() {
+            return mLayoutType;
+        }
+
+        public Builder setLayoutType(int layoutType) {
+            mLayoutType = layoutType;
+            return this;
+        }
+
+        public String get(int field) {
+            return mValues[field];
+        }
+
+        public boolean has(int field) {
+            return mValues[field].length() > 0;
+        }
+
+        /**
+         * 设置字段值及来源，来源边界框为图像坐标（角度为0），值为空时来源一并清空
+         */
+        public Builder set(int field, String value, int block, int left, int top, int right, int bottom) {
+            return set(field, value, block, left, top, right, bottom, 0f);
+        }
+
+        /**
+         * 设置字段值及来源，值为空时来源一并清空
+         *
+         * @param sourceAngle 来源边界框所在基线坐标系的角度，见DeviceInfo.getSourceAngle()
+         */
+        public Builder set(int field, String value, int block, int left, int top, int right, int bottom, float sourceAngle) {
+            int offset = field * SOURCE_STRIDE;
+            if (value == null || value.length() == 0) {
+                mValues[field] = "";
+                mSources[offset] = NO_SOURCE;
+                mSourceAngles[field] = 0f;
+                return this;
+            }
+            mValues[field] = value;
+            mSourceAngles[field] = sourceAngle;
+            mSources[offset] = block;
+            mSources[offset + 1] = left;
+            mSources[offset + 2] = top;
+            mSources[offset + 3] = right;
+            mSources[offset + 4] = bottom;
+            return this;
+        }
+
+        /**
+         * 只替换字段值（如规范化后的值），保留原有来源
+         */
+        public Builder replaceValue(int field, String value) {
+            if (value == null || value.length() == 0) {
+                return set(field, "", NO_SOURCE, 0, 0, 0, 0);
+            }
+            mValues[field] = value;
+            return this;
+        }
+
+        /**
+         * 设置字段值，来源为文档中的某一行
+         */
+        public Builder setFromLine(int field, String value, OcrDocument document, int block, int line) {
+            return set(field, value, block, document.getLineLeft(line), document.getLineTop(line), document.getLineRight(line), document.getLineBottom(line),
+                    document.getBaselineAngle());
+        }
+
+        /**
+         * 设置字段值，来源为文档中的某个block
+         */
+        public Builder setFromBlock(int field, String value, OcrDocument document, int block) {
+            return set(field, value, block, document.getBlockLeft(block), document.getBlockTop(block), document.getBlockRight(block), document.getBlockBottom(block),
+                    document.getBaselineAngle());
+        }
+
+        public DeviceInfo build() {
+            return new DeviceInfo(this);
+        }
+    }
+}
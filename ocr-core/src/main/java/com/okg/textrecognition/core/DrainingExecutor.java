@@ -0,0 +1,121 @@
+package com.okg.textrecognition.core;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * @author okg
+ * @date 2026-10-18
+ * 描述：识别后处理线程的包装，退出时等进行中的识别任务全部完成后再关闭线程，避免任务回调被线程池拒绝
+ * 1. 发起异步识别前调用tryAcquire()登记，识别完成（无论成功与否）的回调中调用release()；
+ * 已请求关闭时tryAcquire()返回false，调用方直接释放资源，不再发起识别
+ * 2. 通过execute()提交的任务（如识别回调）在执行前也计入进行中的任务，
+ * shutdownWhenIdle()之后仍然接受，进行中的任务全部完成后才真正关闭内部线程池
+ * 3. 内部线程池已关闭后再提交的任务不抛出RejectedExecutionException，而是在调用线程中直接执行，保证资源释放的回调一定执行
+ * 登记、提交及关闭内部线程池均在对象锁内完成，不会交错
+ */
+public final class DrainingExecutor implements Executor {
+    private final ExecutorService mDelegate;
+    /**
+     * 已登记的识别任务及已提交未执行完的任务数
+     */
+    private int mPending;
+    private boolean mShutdownRequested;
+
+    public DrainingExecutor(ExecutorService delegate) {
+        if (delegate == null) {
+            throw new IllegalArgumentException("delegate must not be null");
+        }
+        mDelegate = delegate;
+    }
+
+    /**
+     * 登记一个进行中的异步任务，成功时必须在任务完成后调用release()
+     *
+     * @return 已请求关闭时返回false
+     */
+    public synchronized boolean tryAcquire() {
+        if (mShutdownRequested) {
+            return false;
+        }
+        mPending++;
+        return true;
+    }
+
+    /**
+     * 结束一个通过tryAcquire()登记的任务
+     */
+    public synchronized void release() {
+        if (mPending <= 0) {
+            throw new IllegalStateException("release() without a matching acquire");
+        }
+        mPending--;
+        // 在锁内关闭，execute()检查线程池状态后提交之前不会被关闭
+        if (mShutdownRequested && mPending == 0) {
+            mDelegate.shutdown();
+        }
+    }
+
+    /**
+     * 提交一个新任务，已请求关闭时不再接受
+     *
+     * @return 已请求关闭时返回false，runnable不会执行，调用方负责释放资源
+     */
+    public boolean tryExecute(Runnable runnable) {
+        if (!tryAcquire()) {
+            return false;
+        }
+        submit(runnable);
+        return true;
+    }
+
+    /**
+     * 提交任务，用于识别回调等必须执行的任务；已请求关闭后仍然接受，内部线程池已关闭时在调用线程中直接执行
+     */
+    @Override
+    public void execute(Runnable runnable) {
+        synchronized (this) {
+            if (!mDelegate.isShutdown()) {
+                mPending++;
+                submit(runnable);
+                return;
+            }
+        }
+        runnable.run();
+    }
+
+    /**
+     * 请求关闭：不再接受新的识别，进行中的任务全部完成后关闭内部线程池
+     */
+    public synchronized void shutdownWhenIdle() {
+        mShutdownRequested = true;
+        if (mPending == 0) {
+            mDelegate.shutdown();
+        }
+    }
+
+    public synchronized boolean isShutdownRequested() {
+        return mShutdownRequested;
+    }
+
+    public synchronized int getPendingCount() {
+        return mPending;
+    }
+
+    public boolean isTerminated() {
+        return mDelegate.isTerminated();
+    }
+
+    private void submit(final Runnable runnable) {
+        mDelegate.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    runnable.run();
+                } finally {
+                    release();
+                }
+            }
+        });
+    }
+}
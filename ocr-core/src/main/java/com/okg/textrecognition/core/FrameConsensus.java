@@ -0,0 +1,292 @@
+package com.okg.textrecognition.core;
+
+import java.util.Arrays;
+
+/**
+ * @author okg
+ * @date 2026-10-18
+ * 描述：多帧识别结果的投票器，对同一标签连续若干帧的解析结果按字段、按字符位置投票
+ * 某字段的长度及每个位置上票数最多的字符都达到一致阈值时视为该字段已一致，
+ * 所有在多数帧中出现过的字段都一致后立即给出结果；达到帧数上限时给出当前票数最多的结果
+ * 投票表在构造时一次分配，之后每帧不再分配内存；非线程安全，只能在同一个分析线程中使用，换标签时调用reset()
+ */
+public final class FrameConsensus {
+    public static final int DEFAULT_AGREEMENT = 3;
+    public static final int DEFAULT_MAX_FRAMES = 8;
+
+    /**
+     * 参与投票的最大字段长度，超过的字段值不参与投票
+     */
+    private static final int MAX_VALUE_LENGTH = ImeiSnParser.SN_MAX_LENGTH;
+    /**
+     * 投票字符表：数字、大写字母及sn允许的符号，小写字母按大写字母计票
+     */
+    private static final String SYMBOLS = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZ_/-";
+    private static final int SYMBOL_COUNT = SYMBOLS.length();
+    private static final byte[] SYMBOL_INDEX = new byte[128];
+
+    static {
+        Arrays.fill(SYMBOL_INDEX, (byte) -1);
+        for (int i = 0; i < SYMBOL_COUNT; i++) {
+            char c = SYMBOLS.charAt(i);
+            SYMBOL_INDEX[c] = (byte) i;
+            if (c >= 'A' && c <= 'Z') {
+                SYMBOL_INDEX[c - 'A' + 'a'] = (byte) i;
+            }
+        }
+    }
+
+    private final int mAgreement;
+    private final int mMaxFrames;
+
+    /**
+     * 每个字段每个位置每个字符的票数
+     */
+    private final int[] mSymbolVotes = new int[DeviceInfo.FIELD_COUNT * MAX_VALUE_LENGTH * SYMBOL_COUNT];
+    /**
+     * 每个字段每个位置当前票数最多的字符及其票数，随投票增量维护
+     */
+    private final int[] mBestSymbols = new int[DeviceInfo.FIELD_COUNT * MAX_VALUE_LENGTH];
+    private final int[] mBestSymbolVotes = new int[DeviceInfo.FIELD_COUNT * MAX_VALUE_LENGTH];
+    /**
+     * 每个字段每种长度的票数，下标0不使用
+     */
+    private final int[] mLengthVotes = new int[DeviceInfo.FIELD_COUNT * (MAX_VALUE_LENGTH + 1)];
+    private final int[] mBestLengths = new int[DeviceInfo.FIELD_COUNT];
+    private final int[] mBestLengthVotes = new int[DeviceInfo.FIELD_COUNT];
+    /**
+     * 每个字段参与了投票的帧数
+     */
+    private final int[] mFieldFrames = new int[DeviceInfo.FIELD_COUNT];
+    /**
+     * 每个字段最近一次参与投票的帧，用于取来源信息
+     */
+    private final DeviceInfo[] mLastFrames = new DeviceInfo[DeviceInfo.FIELD_COUNT];
+    private final char[] mValueBuffer = new char[MAX_VALUE_LENGTH];
+
+    private int mFrameCount;
+    private int mLayoutType = ImeiSnParser.TYPE_LAYOUT_NONE;
+    private DeviceInfo mResult;
+    private boolean mAgreed;
+
+    public FrameConsensus() {
+        this(DEFAULT_AGREEMENT, DEFAULT_MAX_FRAMES);
+    }
+
+    /**
+     * @param agreement 字段一致所需的票数
+     * @param maxFrames 帧数上限，达到后不再等待一致
+     */
+    public FrameConsensus(int agreement, int maxFrames) {
+        if (agreement < 1 || maxFrames < agreement) {
+            throw new IllegalArgumentException("require 1 <= agreement <= maxFrames");
+        }
+        mAgreement = agreement;
+        mMaxFrames = maxFrames;
+        reset();
+    }
+
+    /**
+     * 清空投票，开始识别新的标签
+     */
+    public void reset() {
+        Arrays.fill(mSymbolVotes, 0);
+        Arrays.fill(mBestSymbols, -1);
+        Arrays.fill(mBestSymbolVotes, 0);
+        Arrays.fill(mLengthVotes, 0);
+        Arrays.fill(mBestLengths, 0);
+        Arrays.fill(mBestLengthVotes, 0);
+        Arrays.fill(mFieldFrames, 0);
+        Arrays.fill(mLastFrames, null);
+        mFrameCount = 0;
+        mLayoutType = ImeiSnParser.TYPE_LAYOUT_NONE;
+        mResult = null;
+        mAgreed = false;
+    }
+
+    /**
+     * 加入一帧解析结果
+     *
+     * @param frame 解析结果，没有识别到任何字段的帧也计入帧数
+     * @return 是否已得到结果，得到结果后再加入的帧会被忽略
+     */
+    public boolean offer(DeviceInfo frame) {
+        if (mResult != null) {
+            return true;
+        }
+        mFrameCount++;
+        if (frame != null) {
+            if (frame.hasAnyValue()) {
+                mLayoutType = frame.getLayoutType();
+            }
+            for (int field = 0; field < DeviceInfo.FIELD_COUNT; field++) {
+                vote(field, frame);
+            }
+        }
+        if (isSettled()) {
+            mAgreed = true;
+            mResult = buildResult();
+        } else if (mFrameCount >= mMaxFrames) {
+            mResult = buildResult();
+        }
+        return mResult != null;
+    }
+
+    /**
+     * @return 投票结果，还没有结果时返回null
+     */
+    public DeviceInfo getResult() {
+        return mResult;
+    }
+
+    /**
+     * 结果是否由各字段达成一致得到，为false时表示是达到帧数上限后给出的票数最多的结果
+     */
+    public boolean isAgreed() {
+        return mAgreed;
+    }
+
+    public int getFrameCount() {
+        return mFrameCount;
+    }
+
+    public int getAgreement() {
+        return mAgreement;
+    }
+
+    public int getMaxFrames() {
+        return mMaxFrames;
+    }
+
+    /**
+     * 某字段当前是否已一致
+     */
+    public boolean isFieldAgreed(int field) {
+        int length = mBestLengths[field];
+        if (length == 0 || mBestLengthVotes[field] < mAgreement) {
+            return false;
+        }
+        int offset = field * MAX_VALUE_LENGTH;
+        for (int pos = 0; pos < length; pos++) {
+            if (mBestSymbolVotes[offset + pos] < mAgreement) {
+                return false;
+            }
+        }
+        return !isImeiField(field) || isConsensusValidImei(field);
+    }
+
+    /**
+     * 一帧中某个字段的投票，值为空、过长或包含字符表以外的字符时不投票
+     */
+    private void vote(int field, DeviceInfo frame) {
+        String value = frame.getValue(field);
+        int length = value.length();
+        if (length == 0 || length > MAX_VALUE_LENGTH) {
+            return;
+        }
+        for (int pos = 0; pos < length; pos++) {
+            if (symbolOf(value.charAt(pos)) < 0) {
+                return;
+            }
+        }
+        mFieldFrames[field]++;
+        mLastFrames[field] = frame;
+        int lengthIndex = field * (MAX_VALUE_LENGTH + 1) + length;
+        int lengthVotes = ++mLengthVotes[lengthIndex];
+        if (lengthVotes > mBestLengthVotes[field]) {
+            mBestLengthVotes[field] = lengthVotes;
+            mBestLengths[field] = length;
+        }
+        int offset = field * MAX_VALUE_LENGTH;
+        for (int pos = 0; pos < length; pos++) {
+            int symbol = symbolOf(value.charAt(pos));
+            int votes = ++mSymbolVotes[(offset + pos) * SYMBOL_COUNT + symbol];
+            if (votes > mBestSymbolVotes[offset + pos]) {
+                mBestSymbolVotes[offset + pos] = votes;
+                mBestSymbols[offset + pos] = symbol;
+            }
+        }
+    }
+
+    /**
+     * 至少一个字段已一致，且在多数帧中出现过的字段都已一致
+     * 只在少数帧中出现的字段视为误识别，不阻塞结果
+     */
+    private boolean isSettled() {
+        boolean anyAgreed = false;
+        for (int field = 0; field < DeviceInfo.FIELD_COUNT; field++) {
+            if (isFieldAgreed(field)) {
+                anyAgreed = true;
+            } else if (isMajorityField(field)) {
+                return false;
+            }
+        }
+        return anyAgreed;
+    }
+
+    private boolean isMajorityField(int field) {
+        return mFieldFrames[field] * 2 > mFrameCount;
+    }
+
+    private DeviceInfo buildResult() {
+        DeviceInfo.Builder builder = new DeviceInfo.Builder(mLayoutType);
+        for (int field = 0; field < DeviceInfo.FIELD_COUNT; field++) {
+            boolean accepted = isFieldAgreed(field);
+            if (!accepted && isMajorityField(field)) {
+                // 达到帧数上限，退而取票数最多的值，imei仍要求通过校验
+                accepted = fillConsensus(field) > 0 && (!isImeiField(field) || isConsensusValidImei(field));
+            }
+            if (!accepted) {
+                continue;
+            }
+            int length = fillConsensus(field);
+            DeviceInfo source = mLastFrames[field];
+            String value = new String(mValueBuffer, 0, length);
+            if (source != null && source.getValue(field).equalsIgnoreCase(value)) {
+                builder.set(field, value, source.getSourceBlock(field), source.getSourceLeft(field), source.getSourceTop(field), source.getSourceRight(field), source.getSourceBottom(field),
+                        source.getSourceAngle(field));
+            } else {
+                builder.set(field, value, DeviceInfo.NO_SOURCE, 0, 0, 0, 0);
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * 将字段当前票数最多的值写入mValueBuffer
+     *
+     * @return 值长度，某个位置没有票时返回0
+     */
+    private int fillConsensus(int field) {
+        int length = mBestLengths[field];
+        int offset = field * MAX_VALUE_LENGTH;
+        for (int pos = 0; pos < length; pos++) {
+            int symbol = mBestSymbols[offset + pos];
+            if (symbol < 0) {
+                return 0;
+            }
+            mValueBuffer[pos] = SYMBOLS.charAt(symbol);
+        }
+        return length;
+    }
+
+    private boolean isConsensusValidImei(int field) {
+        if (fillConsensus(field) != ImeiValidator.IMEI_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < ImeiValidator.IMEI_LENGTH; i++) {
+            if (!CharClass.isDigit(mValueBuffer[i])) {
+                return false;
+            }
+        }
+        return ImeiValidator.isValidDigits(mValueBuffer, 0);
+    }
+
+    private static boolean isImeiField(int field) {
+        return field == DeviceInfo.FIELD_IMEI1 || field == DeviceInfo.FIELD_IMEI2;
+    }
+
+    private static int symbolOf(char c) {
+        return c < SYMBOL_INDEX.length ? SYMBOL_INDEX[c] : -1;
+    }
+}
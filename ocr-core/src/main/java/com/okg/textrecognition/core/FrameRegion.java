@@ -0,0 +1,183 @@
+package com.okg.textrecognition.core;
+
+/**
+ * @author okg
+ * @date 2026-10-18
+ * 描述：界面上的取景框在相机输出图片（传感器方向，未旋转）中对应的区域，预览帧裁剪及拍照图片的区域解码共用
+ * 预览充满整个界面且与图片的宽高比相同，界面坐标先按界面尺寸归一化，再按图片旋转角度反向旋转到图片坐标
+ * 区域按指定的倍数对齐：左上角向下、右下角向上对齐，不裁掉取景框边缘的像素；实例不可变
+ */
+public final class FrameRegion {
+    /**
+     * 估算字符高度时假设取景框在文字高度方向上容纳的行数（含行间距），标签上通常只有两三行
+     */
+    public static final int DEFAULT_LINES_PER_REGION = 8;
+    /**
+     * 识别所需的最小字符高度（像素），低于该值识别准确率明显下降
+     */
+    public static final int DEFAULT_MIN_CHAR_PIXELS = 24;
+    private static final int MAX_SAMPLE_SIZE = 16;
+
+    private final int mImageWidth;
+    private final int mImageHeight;
+    private final int mRotationDegrees;
+    private final int mLeft;
+    private final int mTop;
+    private final int mRight;
+    private final int mBottom;
+
+    private FrameRegion(int imageWidth, int imageHeight, int rotationDegrees, int left, int top, int right, int bottom) {
+        mImageWidth = imageWidth;
+        mImageHeight = imageHeight;
+        mRotationDegrees = rotationDegrees;
+        mLeft = left;
+        mTop = top;
+        mRight = right;
+        mBottom = bottom;
+    }
+
+    /**
+     * @param viewLeft        取景框在界面上的坐标
+     * @param viewTop
+     * @param viewRight
+     * @param viewBottom
+     * @param viewWidth       预览界面尺寸
+     * @param viewHeight
+     * @param imageWidth      图片尺寸（传感器方向）
+     * @param imageHeight
+     * @param rotationDegrees 图片顺时针旋转该角度后与界面方向一致，只能为0、90、180、270
+     * @param alignment       区域坐标对齐的倍数，YUV色度平面为2，不需要对齐时为1
+     */
+    public static FrameRegion fromView(float viewLeft, float viewTop, float viewRight, float viewBottom, int viewWidth, int viewHeight,
+                                       int imageWidth, int imageHeight, int rotationDegrees, int alignment) {
+        if (alignment < 1) {
+            throw new IllegalArgumentException("alignment must be >= 1: " + alignment);
+        }
+        if (viewWidth <= 0 || viewHeight <= 0 || imageWidth < alignment || imageHeight < alignment) {
+            throw new IllegalArgumentException("invalid view or image size");
+        }
+        if (rotationDegrees % 90 != 0 || rotationDegrees < 0 || rotationDegrees >= 360) {
+            throw new IllegalArgumentException("rotationDegrees must be 0, 90, 180 or 270: " + rotationDegrees);
+        }
+        float u0 = clamp(Math.min(viewLeft, viewRight) / viewWidth);
+        float u1 = clamp(Math.max(viewLeft, viewRight) / viewWidth);
+        float v0 = clamp(Math.min(viewTop, viewBottom) / viewHeight);
+        float v1 = clamp(Math.max(viewTop, viewBottom) / viewHeight);
+        // 界面归一化坐标(u, v)反向旋转为图片归一化坐标(s, t)
+        float s0;
+        float s1;
+        float t0;
+        float t1;
+        switch (rotationDegrees) {
+            case 90:
+                s0 = v0;
+                s1 = v1;
+                t0 = 1 - u1;
+                t1 = 1 - u0;
+                break;
+            case 180:
+                s0 = 1 - u1;
+                s1 = 1 - u0;
+                t0 = 1 - v1;
+                t1 = 1 - v0;
+                break;
+            case 270:
+                s0 = 1 - v1;
+                s1 = 1 - v0;
+                t0 = u0;
+                t1 = u1;
+                break;
+            default:
+                s0 = u0;
+                s1 = u1;
+                t0 = v0;
+                t1 = v1;
+                break;
+        }
+        int maxRight = imageWidth / alignment * alignment;
+        int maxBottom = imageHeight / alignment * alignment;
+        int left = Math.min((int) Math.floor(s0 * imageWidth), maxRight - alignment) / alignment * alignment;
+        int top = Math.min((int) Math.floor(t0 * imageHeight), maxBottom - alignment) / alignment * alignment;
+        int right = Math.min(maxRight, ceilTo((int) Math.ceil(s1 * imageWidth), alignment));
+        int bottom = Math.min(maxBottom, ceilTo((int) Math.ceil(t1 * imageHeight), alignment));
+        return new FrameRegion(imageWidth, imageHeight, rotationDegrees,
+                left, top, Math.max(left + alignment, right), Math.max(top + alignment, bottom));
+    }
+
+    /**
+     * 按估算的字符高度计算解码的采样倍数（2的幂），采样后字符高度不低于minCharPixels
+     *
+     * @param linesPerRegion 取景框在文字高度方向上容纳的行数，见DEFAULT_LINES_PER_REGION
+     * @param minCharPixels  最小字符高度，见DEFAULT_MIN_CHAR_PIXELS
+     * @return 1、2、4、8或16
+     */
+    public int computeSampleSize(int linesPerRegion, int minCharPixels) {
+        if (linesPerRegion < 1 || minCharPixels < 1) {
+            throw new IllegalArgumentException("linesPerRegion and minCharPixels must be >= 1");
+        }
+        int charPixels = getUprightHeight() / linesPerRegion;
+        int sampleSize = 1;
+        while (sampleSize < MAX_SAMPLE_SIZE && charPixels / (sampleSize * 2) >= minCharPixels) {
+            sampleSize *= 2;
+        }
+        return sampleSize;
+    }
+
+    public int getLeft() {
+        return mLeft;
+    }
+
+    public int getTop() {
+        return mTop;
+    }
+
+    public int getRight() {
+        return mRight;
+    }
+
+    public int getBottom() {
+        return mBottom;
+    }
+
+    public int getWidth() {
+        return mRight - mLeft;
+    }
+
+    public int getHeight() {
+        return mBottom - mTop;
+    }
+
+    /**
+     * 区域旋转为界面方向后的高度，即文字高度方向上的像素数
+     */
+    public int getUprightHeight() {
+        return mRotationDegrees == 90 || mRotationDegrees == 270 ? getWidth() : getHeight();
+    }
+
+    public int getImageWidth() {
+        return mImageWidth;
+    }
+
+    public int getImageHeight() {
+        return mImageHeight;
+    }
+
+    public int getRotationDegrees() {
+        return mRotationDegrees;
+    }
+
+    /**
+     * 区域占整张图片像素的比例
+     */
+    public float getAreaRatio() {
+        return (float) getWidth() * getHeight() / ((float) mImageWidth * mImageHeight);
+    }
+
+    private static int ceilTo(int value, int alignment) {
+        return (value + alignment - 1) / alignment * alignment;
+    }
+
+    private static float clamp(float value) {
+        return value < 0 ? 0 : value > 1 ? 1 : value;
+    }
+}
@@ -0,0 +1,207 @@
+package com.okg.textrecognition.core;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @author okg
+ * @date 2026-10-18
+ * 描述：连续识别的帧调度器，只处理最新的帧，避免识别跟不上出帧速度时旧帧堆积，增加延迟及内存占用
+ * 1. 正在处理的帧数达到上限（默认1）时，新帧作为待处理帧保存，只保留一帧，被替换的旧帧直接释放并计为丢弃
+ * 2. 每帧处理完成后调用finish()，有待处理帧时在调用finish()的线程中接着处理
+ * 3. 每帧分配递增的序号（ticket），结果回来时用acceptResult()判断是否已过时：
+ * 比已采用结果更早的帧及cancel()之前提交的帧的结果都视为过时，调用方不再做后续处理
+ * 帧对象本身（如android.media.Image）由调用方通过Releaser释放，模块本身不依赖Android
+ * 统计写入MetricsRegistry的计数器：前缀+submitted、processed、dropped、obsolete
+ * 提交、完成只在很短的临界区内更新状态，处理回调在锁外执行
+ */
+public final class FrameScheduler<T> {
+    public static final int DEFAULT_MAX_IN_FLIGHT = 1;
+    static final String COUNTER_SUBMITTED = "submitted";
+    static final String COUNTER_PROCESSED = "processed";
+    static final String COUNTER_DROPPED = "dropped";
+    static final String COUNTER_OBSOLETE = "obsolete";
+
+    /**
+     * 帧处理接口
+     */
+    public interface Processor<T> {
+        /**
+         * 开始处理一帧，可以异步完成，完成后（无论成功与否）必须调用FrameScheduler.finish(ticket)
+         *
+         * @param frame
+         * @param ticket 该帧的序号
+         */
+        void process(T frame, long ticket);
+    }
+
+    /**
+     * 释放不再处理的帧
+     */
+    public interface Releaser<T> {
+        void release(T frame);
+    }
+
+    private final int mMaxInFlight;
+    private final Processor<T> mProcessor;
+    private final Releaser<T> mReleaser;
+    private final AtomicLong mSubmitted;
+    private final AtomicLong mProcessed;
+    private final AtomicLong mDropped;
+    private final AtomicLong mObsolete;
+
+    private int mInFlight;
+    private T mPending;
+    /**
+     * 最近分配的序号
+     */
+    private long mLastTicket;
+    /**
+     * 最近采用结果的序号，更早的帧的结果视为过时
+     */
+    private long mAcceptedTicket;
+    /**
+     * 最近一次cancel()时的序号，不大于它的帧的结果视为过时
+     */
+    private long mCancelledTicket;
+
+    /**
+     * @param maxInFlight   同时处理的最大帧数
+     * @param processor
+     * @param releaser      释放被丢弃的帧
+     * @param metrics
+     * @param counterPrefix 计数器名称前缀，如"frame."
+     */
+    public FrameScheduler(int maxInFlight, Processor<T> processor, Releaser<T> releaser, MetricsRegistry metrics, String counterPrefix) {
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("maxInFlight must be >= 1: " + maxInFlight);
+        }
+        if (processor == null || releaser == null || metrics == null) {
+            throw new IllegalArgumentException("processor, releaser and metrics must not be null");
+        }
+        mMaxInFlight = maxInFlight;
+        mProcessor = processor;
+        mReleaser = releaser;
+        mSubmitted = metrics.getCounter(counterPrefix + COUNTER_SUBMITTED);
+        mProcessed = metrics.getCounter(counterPrefix + COUNTER_PROCESSED);
+        mDropped = metrics.getCounter(counterPrefix + COUNTER_DROPPED);
+        mObsolete = metrics.getCounter(counterPrefix + COUNTER_OBSOLETE);
+    }
+
+    /**
+     * 提交一帧，未达到处理上限时在当前线程中立即开始处理，否则替换待处理帧
+     *
+     * @param frame 不能为null
+     */
+    public void submit(T frame) {
+        if (frame == null) {
+            throw new IllegalArgumentException("frame must not be null");
+        }
+        mSubmitted.incrementAndGet();
+        T replaced = null;
+        long ticket = 0;
+        synchronized (this) {
+            if (mInFlight < mMaxInFlight) {
+                mInFlight++;
+                ticket = ++mLastTicket;
+            } else {
+                replaced = mPending;
+                mPending = frame;
+            }
+        }
+        if (replaced != null) {
+            drop(replaced);
+        }
+        if (ticket != 0) {
+            mProcessor.process(frame, ticket);
+        }
+    }
+
+    /**
+     * 一帧处理完成，有待处理帧时在当前线程中接着处理
+     *
+     * @param ticket process()收到的序号
+     */
+    public void finish(long ticket) {
+        mProcessed.incrementAndGet();
+        T next;
+        long nextTicket = 0;
+        synchronized (this) {
+            mInFlight--;
+            next = mPending;
+            mPending = null;
+            if (next != null) {
+                mInFlight++;
+                nextTicket = ++mLastTicket;
+            }
+        }
+        if (next != null) {
+            mProcessor.process(next, nextTicket);
+        }
+    }
+
+    /**
+     * 一帧的结果回来时调用，判断结果是否仍然有效
+     * 有效时该帧成为最近采用的结果，之后完成的更早的帧均视为过时
+     *
+     * @param ticket
+     * @return 结果过时时返回false，调用方不应再使用该结果
+     */
+    public boolean acceptResult(long ticket) {
+        synchronized (this) {
+            if (ticket > mCancelledTicket && ticket > mAcceptedTicket) {
+                mAcceptedTicket = ticket;
+                return true;
+            }
+        }
+        mObsolete.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * 取消已提交的帧：释放待处理帧，正在处理的帧的结果视为过时（仍需调用finish()）
+     */
+    public void cancel() {
+        T pending;
+        synchronized (this) {
+            mCancelledTicket = mLastTicket;
+            pending = mPending;
+            mPending = null;
+        }
+        if (pending != null) {
+            drop(pending);
+        }
+    }
+
+    public synchronized int getInFlightCount() {
+        return mInFlight;
+    }
+
+    public synchronized boolean hasPending() {
+        return mPending != null;
+    }
+
+    public int getMaxInFlight() {
+        return mMaxInFlight;
+    }
+
+    public long getSubmittedCount() {
+        return mSubmitted.get();
+    }
+
+    public long getProcessedCount() {
+        return mProcessed.get();
+    }
+
+    public long getDroppedCount() {
+        return mDropped.get();
+    }
+
+    public long getObsoleteCount() {
+        return mObsolete.get();
+    }
+
+    private void drop(T frame) {
+        mDropped.incrementAndGet();
+        mReleaser.release(frame);
+    }
+}
@@ -0,0 +1,201 @@
+package com.okg.textrecognition.core;
+
+import java.util.Arrays;
+
+/**
+ * @author okg
+ * @date 2026-10-18
+ * 描述：imei候选评分，提取文档中所有恰好15位的数字串，以及含易混淆字符（如O/0、I/1）的15位串经ConfusionRepair修复后的结果，
+ * 只保留通过TAC及Luhn校验的候选，再按与imei关键字的几何距离排序，距离相同时取文档中靠前的候选
+ * 可在多次解析间复用，容量不足时才会扩容
+ */
+public final class ImeiCandidateScorer {
+    /**
+     * 候选位于关键字左侧或上方时的距离倍数，标签通常为关键字在左/上、值在右/下
+     */
+    private static final int BEHIND_PENALTY = 4;
+
+    private OcrDocument mDocument;
+    private int[] mLines = new int[4];
+    private int[] mBlocks = new int[4];
+    /**
+     * 候选在文本缓冲区中的起点
+     */
+    private int[] mStarts = new int[4];
+    /**
+     * 候选值（修复后），每个候选占15个char
+     */
+    private char[] mDigits = new char[4 * ImeiValidator.IMEI_LENGTH];
+    private int mCount;
+
+    /**
+     * 提取文档中的所有有效imei候选
+     *
+     * @param document
+     * @return 候选数量
+     */
+    public int collect(OcrDocument document) {
+        reset(document);
+        int blockCount = document.getBlockCount();
+        for (int block = 0; block < blockCount; block++) {
+            int lineEnd = document.getBlockLineEnd(block);
+            for (int line = document.getBlockLineStart(block); line < lineEnd; line++) {
+                collectLine(block, line);
+            }
+        }
+        return mCount;
+    }
+
+    /**
+     * 清空候选，之后通过collectLine逐行提取，供调用方在自己的遍历中顺带提取候选
+     */
+    public void reset(OcrDocument document) {
+        mDocument = document;
+        mCount = 0;
+    }
+
+    /**
+     * 提取一行中的候选
+     * 同时跟踪纯数字串和疑似数字串（含易混淆字符），纯数字串直接校验，含混淆字符的串需修复后校验
+     */
+    public void collectLine(int block, int line) {
+        char[] text = mDocument.getTextBuffer();
+        int start = mDocument.getLineTextStart(line);
+        int end = mDocument.getLineTextEnd(line);
+        int digitStart = -1;
+        int likeStart = -1;
+        boolean hasConfusion = false;
+        for (int i = start; i <= end; i++) {
+            char c = i < end ? text[i] : 0;
+            if (CharClass.isDigit(c)) {
+                if (digitStart < 0) {
+                    digitStart = i;
+                }
+            } else {
+                if (digitStart >= 0 && i - digitStart == ImeiValidator.IMEI_LENGTH && ImeiValidator.isValidDigits(text, digitStart)) {
+                    ensureCapacity();
+                    System.arraycopy(text, digitStart, mDigits, mCount * ImeiValidator.IMEI_LENGTH, ImeiValidator.IMEI_LENGTH);
+                    add(block, line, digitStart);
+                }
+                digitStart = -1;
+            }
+            if (i < end && ConfusionRepair.isDigitLike(c)) {
+                if (likeStart < 0) {
+                    likeStart = i;
+                    hasConfusion = false;
+                }
+                hasConfusion |= !CharClass.isDigit(c);
+                continue;
+            }
+            if (likeStart >= 0 && hasConfusion && i - likeStart == ImeiValidator.IMEI_LENGTH) {
+                ensureCapacity();
+                if (ConfusionRepair.repairImei(text, likeStart, i, mDigits, mCount * ImeiValidator.IMEI_LENGTH)) {
+                    add(block, line, likeStart);
+                }
+            }
+            likeStart = -1;
+        }
+    }
+
+    public int getCount() {
+        return mCount;
+    }
+
+    public int getLine(int candidate) {
+        return mLines[candidate];
+    }
+
+    public int getBlock(int candidate) {
+        return mBlocks[candidate];
+    }
+
+    /**
+     * 候选在文档文本缓冲区中的起点，长度为15
+     */
+    public int getStart(int candidate) {
+        return mStarts[candidate];
+    }
+
+    public String getValue(int candidate) {
+        return new String(mDigits, candidate * ImeiValidator.IMEI_LENGTH, ImeiValidator.IMEI_LENGTH);
+    }
+
+    /**
+     * 候选是否与指定字符串相同
+     */
+    public boolean valueEquals(int candidate, String value) {
+        if (value == null || value.length() != ImeiValidator.IMEI_LENGTH) {
+            return false;
+        }
+        int start = candidate * ImeiValidator.IMEI_LENGTH;
+        for (int i = 0; i < ImeiValidator.IMEI_LENGTH; i++) {
+            if (mDigits[start + i] != value.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 候选所在行与关键字边界框的距离，值越小越优先
+     */
+    public long score(int candidate, int left, int top, int right, int bottom) {
+        int line = mLines[candidate];
+        int lineLeft = mDocument.getLineLeft(line);
+        int lineTop = mDocument.getLineTop(line);
+        int lineRight = mDocument.getLineRight(line);
+        int lineBottom = mDocument.getLineBottom(line);
+        if (lineLeft == OcrDocument.NO_BOUND || left == OcrDocument.NO_BOUND) {
+            return Long.MAX_VALUE;
+        }
+        long dx = Math.max(0L, Math.max((long) lineLeft - right, (long) left - lineRight));
+        long dy = Math.max(0L, Math.max((long) lineTop - bottom, (long) top - lineBottom));
+        long distance = dx + dy;
+        if (lineRight <= left || lineBottom <= top) {
+            distance *= BEHIND_PENALTY;
+        }
+        return distance;
+    }
+
+    /**
+     * 查找距离关键字最近的候选
+     *
+     * @param exclude 需要排除的值（如已确定的另一个imei），可为null
+     * @return 候选下标，没有返回-1
+     */
+    public int findNearest(int left, int top, int right, int bottom, String exclude) {
+        int best = -1;
+        long bestScore = Long.MAX_VALUE;
+        for (int i = 0; i < mCount; i++) {
+            if (valueEquals(i, exclude)) {
+                continue;
+            }
+            long score = score(i, left, top, right, bottom);
+            if (best < 0 || score < bestScore) {
+                best = i;
+                bestScore = score;
+            }
+        }
+        return best;
+    }
+
+    private void ensureCapacity() {
+        if (mCount == mLines.length) {
+            int capacity = mCount << 1;
+            mLines = Arrays.copyOf(mLines, capacity);
+            mBlocks = Arrays.copyOf(mBlocks, capacity);
+            mStarts = Arrays.copyOf(mStarts, capacity);
+            mDigits = Arrays.copyOf(mDigits, capacity * ImeiValidator.IMEI_LENGTH);
+        }
+    }
+
+    /**
+     * 添加候选，值需已写入mDigits
+     */
+    private void add(int block, int line, int start) {
+        mLines[mCount] = line;
+        mBlocks[mCount] = block;
+        mStarts[mCount] = start;
+        mCount++;
+    }
+}
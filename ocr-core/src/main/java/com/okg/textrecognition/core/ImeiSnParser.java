@@ -0,0 +1,678 @@
+package com.okg.textrecognition.core;
+
+/**
+ * @author okg
+ * @date 2026-10-18
+ * 描述：imei及sn解析器，基于OcrDocument工作，不依赖Android及ML Kit
+ */
+public class ImeiSnParser {
+    private static final String TAG = "Mlkit-ImeiSnParser";
+    static final int SN_MIN_LENGTH = 10;
+    static final int SN_MAX_LENGTH = 20;
+
+    /**
+     * 没有检测到imei信息
+     */
+    public static final int TYPE_LAYOUT_NONE = -1;
+    public static final int TYPE_LAYOUT_CMD = 1;
+    public static final int TYPE_LAYOUT_VERTICAL = 2;
+    public static final int TYPE_LAYOUT_HORIZONTAL = 3;
+    /**
+     * 外箱标签，一张标签上有多台设备，由CartonLabelParser解析
+     */
+    public static final int TYPE_LAYOUT_CARTON = 4;
+    /**
+     * 内置布局没有解析到，由标签规则决策表解析到的结果
+     */
+    public static final int TYPE_LAYOUT_RULE = 5;
+
+    private final KeywordMatcher mKeywordMatcher;
+    /**
+     * 厂商标签规则，内置布局解析后仍有字段为空时使用，可为null
+     */
+    private final LabelRuleTable mLabelRules;
+
+    public ImeiSnParser() {
+        this(KeywordTable.newDefaultMatcher());
+    }
+
+    /**
+     * @param keywordMatcher 关键字匹配器，关键字类型见KeywordTable.KIND_*
+     */
+    public ImeiSnParser(KeywordMatcher keywordMatcher) {
+        this(keywordMatcher, null);
+    }
+
+    /**
+     * @param keywordMatcher 关键字匹配器，关键字类型见KeywordTable.KIND_*
+     * @param labelRules     厂商标签规则，新增标签格式只需增加规则，不需要新增解析方法，可为null
+     */
+    public ImeiSnParser(KeywordMatcher keywordMatcher, LabelRuleTable labelRules) {
+        mKeywordMatcher = keywordMatcher;
+        mLabelRules = labelRules;
+    }
+
+    /**
+     * 解析imei及sn序列号信息
+     * 只遍历一次文本：逐行扫描关键字并记录布局证据、提取imei候选，同时在第一个imei关键字处判定布局，
+     * 之后按判定的布局在证据上解析，只在提取值时才读取对应行的文本
+     *
+     * @param document
+     * @return 解析结果，不会返回null
+     */
+    public DeviceInfo parse(OcrDocument document) {
+        int blockCount = document == null ? 0 : document.getBlockCount();
+        if (blockCount == 0) {
+            return DeviceInfo.EMPTY;
+        }
+        ParseSession session = new ParseSession(document);
+        collectEvidence(session);
+        DeviceInfo result = parseByLayout(session);
+        if (mLabelRules == null || isComplete(result)) {
+            return result;
+        }
+        DeviceInfo.Builder builder = new DeviceInfo.Builder(result);
+        if (!mLabelRules.apply(document, builder)) {
+            return result;
+        }
+        if (builder.getLayoutType() == TYPE_LAYOUT_NONE) {
+            builder.setLayoutType(TYPE_LAYOUT_RULE);
+        }
+        return builder.build();
+    }
+
+    /**
+     * 按判定的布局解析
+     */
+    private DeviceInfo parseByLayout(ParseSession session) {
+        switch (session.layoutType) {
+            case TYPE_LAYOUT_CMD:
+                return parseCMDDeviceInfo(session);
+            case TYPE_LAYOUT_VERTICAL:
+                return parseVerticalDeviceInfo(session);
+            case TYPE_LAYOUT_HORIZONTAL:
+                return parseHorizontalDeviceInfo(session);
+            default:
+                // 没有检测到imei信息，进一步探测是否存在sn序列号信息
+                return parseSnInfo(session);
+        }
+    }
+
+    /**
+     * 单次解析过程中复用的对象，每次解析创建一次，保证解析器本身可被多线程共享
+     */
+    private static final class ParseSession {
+        final OcrDocument document;
+        final BlockSpatialIndex spatialIndex;
+        final int[] queryBuffer;
+        final KeywordHits hits = new KeywordHits();
+        final CmdTokenizer tokenizer = new CmdTokenizer();
+        final LayoutEvidence evidence = new LayoutEvidence();
+        final ImeiCandidateScorer imeiCandidates = new ImeiCandidateScorer();
+        /**
+         * 由第一个以imei关键字开头的行判定的布局
+         */
+        int layoutType = TYPE_LAYOUT_NONE;
+        /**
+         * imei1、imei2关键字所在的边界框，每个字段占4个int，mask记录已设置的字段
+         */
+        final int[] imeiAnchors = new int[8];
+        int imeiAnchorMask;
+        /**
+         * sn修复缓冲区
+         */
+        final char[] snBuffer = new char[SN_MAX_LENGTH];
+
+        ParseSession(OcrDocument document) {
+            this.document = document;
+            // 每次识别结果只构建一次空间索引，供各布局探测及解析复用
+            this.spatialIndex = BlockSpatialIndex.from(document);
+            this.queryBuffer = spatialIndex.newResultBuffer();
+            this.imeiCandidates.reset(document);
+        }
+
+        void setImeiAnchor(int field, int left, int top, int right, int bottom) {
+            int offset = field << 2;
+            imeiAnchors[offset] = left;
+            imeiAnchors[offset + 1] = top;
+            imeiAnchors[offset + 2] = right;
+            imeiAnchors[offset + 3] = bottom;
+            imeiAnchorMask |= 1 << field;
+        }
+
+        boolean hasImeiAnchor(int field) {
+            return (imeiAnchorMask & (1 << field)) != 0;
+        }
+    }
+
+    /**
+     * 唯一一次遍历全部文本：扫描每行的关键字，记录命中关键字的行，提取imei候选，并判定布局
+     * 关键字不含换行符，block级别的命中即为其各行命中的并集，block以关键字开头即为其首行以关键字开头
+     */
+    private void collectEvidence(ParseSession session) {
+        OcrDocument document = session.document;
+        char[] text = document.getTextBuffer();
+        KeywordHits hits = session.hits;
+        LayoutEvidence evidence = session.evidence;
+        boolean layoutDetected = false;
+        int blockCount = document.getBlockCount();
+        for (int i = 0; i < blockCount; i++) {
+            if (OcrLog.isLoggable(OcrLog.DEBUG)) {
+                OcrLog.d(TAG, "blockNum: {} ,top={} ,bottom={}", i, document.getBlockTop(i), document.getBlockBottom(i));
+            }
+            int lineStart = document.getBlockLineStart(i);
+            int lineEnd = document.getBlockLineEnd(i);
+            for (int line = lineStart; line < lineEnd; line++) {
+                if (OcrLog.isLoggable(OcrLog.DEBUG)) {
+                    OcrLog.d(TAG, "lineNum: {}, lineText = {}", line - lineStart, document.getLineText(line));
+                }
+                mKeywordMatcher.scan(text, document.getLineTextStart(line), document.getLineTextEnd(line), hits);
+                session.imeiCandidates.collectLine(i, line);
+                if (hits.getCount() == 0) {
+                    continue;
+                }
+                int snStart = -1;
+                if (hits.contains(KeywordTable.KIND_SN_ANY)) {
+                    // 按关键字表优先级（序列号 > serial > s/n > sn）从关键字位置开始截取到行尾
+                    snStart = hits.getStart(hits.findBest(mKeywordMatcher, KeywordTable.KIND_SN_ANY));
+                }
+                evidence.add(i, line, hits.getKindMask(), hits.getPrefixKindMask(), snStart);
+                if (!layoutDetected && hits.startsWith(KeywordTable.KIND_IMEI)) {
+                    layoutDetected = true;
+                    session.layoutType = detectTextLayoutByImei(session, i, line);
+                }
+            }
+        }
+    }
+
+    /**
+     * 通过第一个以imei关键字开头的行来探测排行方向
+     *
+     * @param session
+     * @param block   imei关键字所在block
+     * @param line    imei关键字所在行
+     * @return
+     */
+    private int detectTextLayoutByImei(ParseSession session, int block, int line) {
+        OcrDocument document = session.document;
+        OcrLog.d(TAG, "=======检测到有imei关键字=======");
+        // step1 该行文本包含imei关键字，进一步探测，目前发现有以:或空格风格的情况
+        if (detectIsCmdLayout(session, document.getLineTextStart(line), document.getLineTextEnd(line))) {
+            // 包含“:”，证明是通过*#06#命令查看的方式
+            OcrLog.d(TAG, "检测到有imei关键字且包含:或空格，判定为通过命令行输入方式");
+            return TYPE_LAYOUT_CMD;
+        }
+        // step2 检测是否为横向的
+        if (detectIsHorizontalLayoutByImei(block, session)) {
+            OcrLog.d(TAG, "判断为横向排版");
+            return TYPE_LAYOUT_HORIZONTAL;
+        }
+        OcrLog.d(TAG, "判断为垂直排版");
+        return TYPE_LAYOUT_VERTICAL;
+    }
+
+    /**
+     * 通过imei探测布局是否为横向布局
+     *
+     * @param imeiBlockIndex
+     * @param session
+     * @return
+     */
+    private boolean detectIsHorizontalLayoutByImei(int imeiBlockIndex, ParseSession session) {
+        int[] queryBuffer = session.queryBuffer;
+        // 只需检查与imei所在block横向重叠的block
+        int count = session.spatialIndex.findOverlapping(imeiBlockIndex, queryBuffer);
+        for (int i = 0; i < count; i++) {
+            // 判断block是否包含imei关键字
+            OcrDocument document = session.document;
+            int block = queryBuffer[i];
+            if (detectIsImeiByPrefix(document.getTextBuffer(), document.getBlockTextStart(block), document.getBlockTextEnd(block))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * cmd命令格式解析文本
+     *
+     * @param session
+     * @return
+     */
+    private DeviceInfo parseCMDDeviceInfo(ParseSession session) {
+        OcrLog.d(TAG, "=====parseCMDDeviceInfo=====");
+        OcrDocument document = session.document;
+        DeviceInfo.Builder result = new DeviceInfo.Builder(TYPE_LAYOUT_CMD);
+        CmdTokenizer tokenizer = session.tokenizer;
+        LayoutEvidence evidence = session.evidence;
+        char[] text = document.getTextBuffer();
+        int count = evidence.getCount();
+        for (int e = 0; e < count; ) {
+            int i = evidence.getBlock(e);
+            int blockEnd = evidence.nextBlockEntry(e);
+            for (; e < blockEnd; e++) {
+                int line = evidence.getLine(e);
+                if (evidence.startsWith(e, KeywordTable.KIND_IMEI)) {
+                    OcrLog.d(TAG, "检测到有imei关键字, 需要进一步判断是否为imei1和imei2");
+                    int field = evidence.contains(e, KeywordTable.KIND_IMEI2) ? DeviceInfo.FIELD_IMEI2 : DeviceInfo.FIELD_IMEI1;
+                    session.setImeiAnchor(field, document.getLineLeft(line), document.getLineTop(line), document.getLineRight(line), document.getLineBottom(line));
+                    if (tokenizer.split(text, document.getLineTextStart(line), document.getLineTextEnd(line))) {
+                        result.setFromLine(field, tokenizer.getValue(text), document, i, line);
+                    }
+                } else if (evidence.startsWith(e, KeywordTable.KIND_SN)) {
+                    OcrLog.d(TAG, "检测到有sn关键字");
+                    if (tokenizer.split(text, document.getLineTextStart(line), document.getLineTextEnd(line))) {
+                        result.setFromLine(DeviceInfo.FIELD_SN, tokenizer.getValue(text).toUpperCase(), document, i, line);
+                    }
+                }
+            }
+            if (isComplete(result)) {
+                // 已全部获取，提前退出循环
+                break;
+            }
+        }
+        acceptValidImei(session, result);
+        acceptRepairedSn(session, result);
+        return result.build();
+    }
+
+    /**
+     * 垂直布局方向解析文本，只看每个block的首行
+     *
+     * @param session
+     * @return
+     */
+    private DeviceInfo parseVerticalDeviceInfo(ParseSession session) {
+        OcrLog.d(TAG, "=====parseVerticalDeviceInfo=====");
+        OcrDocument document = session.document;
+        DeviceInfo.Builder result = new DeviceInfo.Builder(TYPE_LAYOUT_VERTICAL);
+        LayoutEvidence evidence = session.evidence;
+        int count = evidence.getCount();
+        for (int e = 0; e < count; e++) {
+            int i = evidence.getBlock(e);
+            int lineStart = document.getBlockLineStart(i);
+            if (evidence.getLine(e) != lineStart) {
+                continue;
+            }
+            if (OcrLog.isLoggable(OcrLog.DEBUG)) {
+                OcrLog.d(TAG, "LineCount={} ,firstLineText:{}", document.getBlockLineCount(i), document.getLineText(lineStart));
+            }
+            if (evidence.startsWith(e, KeywordTable.KIND_SN) || evidence.contains(e, KeywordTable.KIND_SN_LABEL)) {
+                OcrLog.d(TAG, "检测到有sn/序列号信息");
+                // 下一行为序列号信息
+                setSnFromNextBlockLine(result, document, i);
+            } else if (evidence.contains(e, KeywordTable.KIND_IMEI)) {
+                OcrLog.d(TAG, "检测到有imei信息");
+                int field = result.has(DeviceInfo.FIELD_IMEI1) ? DeviceInfo.FIELD_IMEI2 : DeviceInfo.FIELD_IMEI1;
+                session.setImeiAnchor(field, document.getLineLeft(lineStart), document.getLineTop(lineStart), document.getLineRight(lineStart), document.getLineBottom(lineStart));
+                // 先判断本block中是否有imei信息
+                int lineEnd = document.getBlockLineEnd(i);
+                int imeiLine = -1;
+                for (int line = lineStart + 1; line < lineEnd; line++) {
+                    if (detectIsImeiByPrefix(document.getTextBuffer(), document.getLineTextStart(line), document.getLineTextEnd(line))) {
+                        imeiLine = line;
+                        break;
+                    }
+                }
+                if (imeiLine >= 0) {
+                    result.setFromLine(field, document.getLineText(imeiLine), document, i, imeiLine);
+                } else {
+                    int nextLine = getNextBlockFirstLine(document, i);
+                    if (nextLine >= 0 && document.getLineTextEnd(nextLine) > document.getLineTextStart(nextLine)) {
+                        result.setFromLine(field, document.getLineText(nextLine), document, i + 1, nextLine);
+                    }
+                }
+                OcrLog.d(TAG, "nextLineOrBlockText = {}", result.get(field));
+            }
+            if (isComplete(result)) {
+                // 已全部获取，提前退出循环
+                break;
+            }
+        }
+        acceptValidImei(session, result);
+        acceptRepairedSn(session, result);
+        return result.build();
+    }
+
+    /**
+     * 横向布局方向解析文本，以block为单位判断
+     *
+     * @param session
+     * @return
+     */
+    private DeviceInfo parseHorizontalDeviceInfo(ParseSession session) {
+        OcrLog.d(TAG, "=====parseHorizontalDeviceInfo=====");
+        OcrDocument document = session.document;
+        DeviceInfo.Builder result = new DeviceInfo.Builder(TYPE_LAYOUT_HORIZONTAL);
+        LayoutEvidence evidence = session.evidence;
+        int count = evidence.getCount();
+        for (int e = 0; e < count; ) {
+            int i = evidence.getBlock(e);
+            int firstLine = document.getBlockLineStart(i);
+            // 合并block内各行的证据
+            int kinds = 0;
+            int prefixKinds = 0;
+            for (int blockEnd = evidence.nextBlockEntry(e); e < blockEnd; e++) {
+                kinds |= evidence.getKinds(e);
+                if (evidence.getLine(e) == firstLine) {
+                    prefixKinds = evidence.getPrefixKinds(e);
+                }
+            }
+            if (OcrLog.isLoggable(OcrLog.DEBUG)) {
+                OcrLog.d(TAG, "blockText = {}", document.getBlockText(i));
+            }
+            if ((prefixKinds & KeywordTable.KIND_SN) != 0 || (kinds & KeywordTable.KIND_SN_LABEL) != 0) {
+                OcrLog.d(TAG, "检测到有sn/序列号信息");
+                // 横向对应的block为序列号信息
+                int snBlock = findHorizontalBlock(session, i);
+                setFromBlock(result, DeviceInfo.FIELD_SN, document, snBlock, true);
+            } else if ((kinds & KeywordTable.KIND_IMEI) != 0) {
+                int field = result.has(DeviceInfo.FIELD_IMEI1) ? DeviceInfo.FIELD_IMEI2 : DeviceInfo.FIELD_IMEI1;
+                session.setImeiAnchor(field, document.getBlockLeft(i), document.getBlockTop(i), document.getBlockRight(i), document.getBlockBottom(i));
+                setFromBlock(result, field, document, findHorizontalBlock(session, i), false);
+            }
+            if (isComplete(result)) {
+                // 已全部获取，提前退出循环
+                break;
+            }
+        }
+        acceptValidImei(session, result);
+        acceptRepairedSn(session, result);
+        return result.build();
+    }
+
+    /**
+     * 解析SN信息
+     *
+     * @param session
+     * @return
+     */
+    private DeviceInfo parseSnInfo(ParseSession session) {
+        OcrLog.d(TAG, "=====parseSnInfo，没有imei信息，进一步检索检测是否有imei信息=====");
+        OcrDocument document = session.document;
+        DeviceInfo.Builder result = new DeviceInfo.Builder(TYPE_LAYOUT_NONE);
+        CmdTokenizer tokenizer = session.tokenizer;
+        LayoutEvidence evidence = session.evidence;
+        char[] text = document.getTextBuffer();
+        int count = evidence.getCount();
+        for (int e = 0; e < count; ) {
+            int i = evidence.getBlock(e);
+            int lineEnd = document.getBlockLineEnd(i);
+            int blockEnd = evidence.nextBlockEntry(e);
+            for (; e < blockEnd; e++) {
+                int snStart = evidence.getSnStart(e);
+                if (snStart < 0) {
+                    continue;
+                }
+                int line = evidence.getLine(e);
+                int snEnd = document.getLineTextEnd(line);
+                if (OcrLog.isLoggable(OcrLog.DEBUG)) {
+                    OcrLog.d(TAG, "检测SN子串：{}", new String(text, snStart, snEnd - snStart));
+                }
+                // step1: 判断是否为命令行形式
+                if (tokenizer.split(text, snStart, snEnd) && !tokenizer.isValueEmpty()) {
+                    String sn = tokenizer.getValue(text);
+                    result.setFromLine(DeviceInfo.FIELD_SN, sn.toUpperCase(), document, i, line);
+                    OcrLog.d(TAG, "通过命令行方式检索到sn信息：{}", sn);
+                    break;
+                } else {
+                    // 进一步判断是否存在存在横向和垂直方向的sn信息
+                    // 先横向查找
+                    int snBlock = findHorizontalBlock(session, i);
+                    if (OcrLog.isLoggable(OcrLog.DEBUG)) {
+                        OcrLog.d(TAG, "尝试横向查找到的sn信息：{}", snBlock < 0 ? "" : document.getBlockText(snBlock));
+                    }
+                    String sn1 = snBlock < 0 ? null : matchSn(session, text, document.getBlockTextStart(snBlock), document.getBlockTextEnd(snBlock));
+                    if (sn1 != null) {
+                        result.setFromBlock(DeviceInfo.FIELD_SN, sn1.toUpperCase(), document, snBlock);
+                        OcrLog.d(TAG, "横向已查找到的sn信息，结束寻找===");
+                        break;
+                    }
+                    OcrLog.d(TAG, "尝试垂直查找sn");
+                    // 先判断本block中是否有sn信息，当前文本不是最后一行，直接获取下一行文本信息
+                    for (int next = line + 1; next < lineEnd; next++) {
+                        String sn = matchSn(session, text, document.getLineTextStart(next), document.getLineTextEnd(next));
+                        if (sn != null) {
+                            OcrLog.d(TAG, "在本文本block垂直查找到sn，结束寻找");
+                            result.setFromLine(DeviceInfo.FIELD_SN, sn.toUpperCase(), document, i, next);
+                            break;
+                        }
+                    }
+                    int nextLine = getNextBlockFirstLine(document, i);
+                    sn1 = nextLine < 0 ? null : matchSn(session, text, document.getLineTextStart(nextLine), document.getLineTextEnd(nextLine));
+                    if (sn1 != null) {
+                        result.setFromLine(DeviceInfo.FIELD_SN, sn1.toUpperCase(), document, i + 1, nextLine);
+                        OcrLog.d(TAG, "在下一文本block垂直查找到sn，结束寻找");
+                        break;
+                    }
+                }
+            }
+            if (result.has(DeviceInfo.FIELD_SN)) {
+                break;
+            }
+            e = blockEnd;
+        }
+        return result.build();
+    }
+
+    /**
+     * 只接受通过校验的imei：按布局解析到的值若包含有效imei则规范化为该15位数字，
+     * 否则在文档所有有效候选中取距离该字段关键字最近的一个，仍没有则置空
+     *
+     * @param session
+     * @param result
+     */
+    private void acceptValidImei(ParseSession session, DeviceInfo.Builder result) {
+        // 先规范化已通过校验的字段，保证后续选取候选时能排除这些值
+        int invalidMask = 0;
+        for (int field = DeviceInfo.FIELD_IMEI1; field <= DeviceInfo.FIELD_IMEI2; field++) {
+            String value = result.get(field);
+            int start = ImeiValidator.findValid(value);
+            if (start < 0) {
+                if (!isEmpty(value)) {
+                    OcrLog.d(TAG, "imei校验未通过：{}", value);
+                }
+                invalidMask |= 1 << field;
+            } else if (value.length() != ImeiValidator.IMEI_LENGTH) {
+                result.replaceValue(field, value.substring(start, start + ImeiValidator.IMEI_LENGTH));
+            }
+        }
+        for (int field = DeviceInfo.FIELD_IMEI1; field <= DeviceInfo.FIELD_IMEI2; field++) {
+            if ((invalidMask & (1 << field)) == 0) {
+                continue;
+            }
+            int candidate = -1;
+            if (session.hasImeiAnchor(field)) {
+                int offset = field << 2;
+                int[] anchors = session.imeiAnchors;
+                String other = result.get(field == DeviceInfo.FIELD_IMEI1 ? DeviceInfo.FIELD_IMEI2 : DeviceInfo.FIELD_IMEI1);
+                candidate = session.imeiCandidates.findNearest(anchors[offset], anchors[offset + 1], anchors[offset + 2], anchors[offset + 3], other);
+            }
+            if (candidate < 0) {
+                result.set(field, "", DeviceInfo.NO_SOURCE, 0, 0, 0, 0);
+                continue;
+            }
+            ImeiCandidateScorer candidates = session.imeiCandidates;
+            result.setFromLine(field, candidates.getValue(candidate), session.document, candidates.getBlock(candidate), candidates.getLine(candidate));
+            OcrLog.d(TAG, "按关键字距离选取imei候选：{}", result.get(field));
+        }
+    }
+
+    /**
+     * 按布局解析到的sn含有不属于sn字符类的字符时，尝试按混淆表修复，修复失败则保留原值
+     */
+    private void acceptRepairedSn(ParseSession session, DeviceInfo.Builder result) {
+        String value = result.get(DeviceInfo.FIELD_SN);
+        int length = value.length();
+        if (length < SN_MIN_LENGTH || length > SN_MAX_LENGTH || CharClass.matchesAll(value, CharClass.SN)) {
+            return;
+        }
+        char[] buffer = session.snBuffer;
+        value.getChars(0, length, buffer, 0);
+        String repaired = matchSn(session, buffer, 0, length);
+        if (repaired != null) {
+            OcrLog.d(TAG, "sn修复：{} -> {}", value, repaired);
+            result.replaceValue(DeviceInfo.FIELD_SN, repaired.toUpperCase());
+        }
+    }
+
+    /**
+     * 判断text[start, end)是否为疑似sn，不符合sn字符类时先按混淆表替换相近字符后再判断
+     * 只在确认是sn时才创建字符串
+     *
+     * @param session
+     * @param text
+     * @param start
+     * @param end
+     * @return 符合条件的sn（可能经过修复），不是sn时返回null
+     */
+    private String matchSn(ParseSession session, char[] text, int start, int end) {
+        if (detectIsSn(text, start, end)) {
+            return new String(text, start, end - start);
+        }
+        int length = end - start;
+        if (length < SN_MIN_LENGTH || length > SN_MAX_LENGTH) {
+            return null;
+        }
+        char[] buffer = session.snBuffer;
+        if (ConfusionRepair.repairSn(text, start, end, buffer) <= 0) {
+            return null;
+        }
+        return new String(buffer, 0, length);
+    }
+
+    private static boolean isComplete(DeviceInfo.Builder result) {
+        return result.has(DeviceInfo.FIELD_IMEI1) && result.has(DeviceInfo.FIELD_IMEI2) && result.has(DeviceInfo.FIELD_SN);
+    }
+
+    private static boolean isComplete(DeviceInfo result) {
+        return result.getImei1().length() > 0 && result.getImei2().length() > 0 && result.getSn().length() > 0;
+    }
+
+    /**
+     * 以下一个block的第一行设置sn，没有下一行时sn置空
+     */
+    private static void setSnFromNextBlockLine(DeviceInfo.Builder result, OcrDocument document, int currentBlockIndex) {
+        int nextLine = getNextBlockFirstLine(document, currentBlockIndex);
+        if (nextLine < 0) {
+            result.set(DeviceInfo.FIELD_SN, "", DeviceInfo.NO_SOURCE, 0, 0, 0, 0);
+            return;
+        }
+        result.setFromLine(DeviceInfo.FIELD_SN, document.getLineText(nextLine).toUpperCase(), document, currentBlockIndex + 1, nextLine);
+    }
+
+    /**
+     * 以指定block的文本设置字段，block为-1时字段置空
+     */
+    private static void setFromBlock(DeviceInfo.Builder result, int field, OcrDocument document, int block, boolean upperCase) {
+        if (block < 0) {
+            result.set(field, "", DeviceInfo.NO_SOURCE, 0, 0, 0, 0);
+            return;
+        }
+        String text = document.getBlockText(block);
+        result.setFromBlock(field, upperCase ? text.toUpperCase() : text, document, block);
+    }
+
+    /**
+     * 获取下一个文本块的第一行下标
+     *
+     * @param document
+     * @param currentBlockIndex
+     * @return 没有时返回-1
+     */
+    private static int getNextBlockFirstLine(OcrDocument document, int currentBlockIndex) {
+        int nextBlockIndex = currentBlockIndex + 1;
+        if (nextBlockIndex < document.getBlockCount() && document.getBlockLineCount(nextBlockIndex) > 0) {
+            return document.getBlockLineStart(nextBlockIndex);
+        }
+        return -1;
+    }
+
+    /**
+     * 获取横向对应的block，优先取右侧最近的block，没有则取第一个横向重叠的block
+     *
+     * @param session
+     * @param currentBlockIndex
+     * @return 没有时返回-1
+     */
+    private int findHorizontalBlock(ParseSession session, int currentBlockIndex) {
+        BlockSpatialIndex spatialIndex = session.spatialIndex;
+        int[] queryBuffer = session.queryBuffer;
+        int nearestRight = spatialIndex.findNearestRight(currentBlockIndex, queryBuffer);
+        if (nearestRight >= 0) {
+            return nearestRight;
+        }
+        int count = spatialIndex.findOverlapping(currentBlockIndex, queryBuffer);
+        for (int i = 0; i < count; i++) {
+            if (queryBuffer[i] != currentBlockIndex) {
+                return queryBuffer[i];
+            }
+        }
+        OcrLog.d(TAG, "判断为横向，但找不到横向对应的block，请检查程序逻辑");
+        return -1;
+    }
+
+    /**
+     * 判断是否为*#06#命令行查看形式
+     * 目前发现cmd形式，大多通过:或空格符号分割字符串
+     *
+     * @param session
+     * @param start   行文本在缓冲区中的起点
+     * @param end
+     * @return
+     */
+    private boolean detectIsCmdLayout(ParseSession session, int start, int end) {
+        char[] text = session.document.getTextBuffer();
+        if (CharClass.contains(text, start, end, CmdTokenizer.SEPARATOR_COLON)) {
+            return true;
+        }
+        CmdTokenizer tokenizer = session.tokenizer;
+        return tokenizer.splitBy(text, start, end, CmdTokenizer.SEPARATOR_BLANK)
+                && detectIsImeiByPrefix(text, tokenizer.getValueStart(), tokenizer.getValueEnd());
+    }
+
+    /**
+     * 通过前缀判断text[start, end)是否疑似为imei，首尾空白字符不参与判断
+     *
+     * @param text
+     * @param start
+     * @param end
+     * @return
+     */
+    private static boolean detectIsImeiByPrefix(char[] text, int start, int end) {
+        start = CharClass.trimStart(text, start, end);
+        end = CharClass.trimEnd(text, start, end);
+        if (end - start < 2) {
+            return false;
+        }
+        char first = text[start];
+        char second = text[start + 1];
+        return (first == '8' && second == '6') || (first == '3' && second == '5')
+                || (first == '0' && second == '1') || (first == '9' && second == '9');
+    }
+
+    /**
+     * 判断text[start, end)是否为疑似sn序列号信息
+     *
+     * @param text
+     * @param start
+     * @param end
+     * @return
+     */
+    private static boolean detectIsSn(char[] text, int start, int end) {
+        int length = end - start;
+        if (length == 0) {
+            return false;
+        }
+        if (length < SN_MIN_LENGTH || length > SN_MAX_LENGTH) {
+            OcrLog.d(TAG, "字符串长度不在[10,20]之间，不认定为sn信息");
+            return false;
+        }
+        // 验证是否只包含大小写字母数字及/、-、_等特殊字符
+        return CharClass.matchesAll(text, start, end, CharClass.SN);
+    }
+
+    private static boolean isEmpty(CharSequence text) {
+        return text == null || text.length() == 0;
+    }
+}
@@ -0,0 +1,128 @@
+package com.okg.textrecognition.core;
+
+/**
+ * @author okg
+ * @date 2026-10-18
+ * 描述：imei校验，要求15位数字、TAC前两位为已登记的发证机构（RBI）代码且Luhn校验位正确
+ * 直接在字符缓冲区上校验，不创建中间字符串
+ */
+public final class ImeiValidator {
+    public static final int IMEI_LENGTH = 15;
+
+    /**
+     * GSMA登记的发证机构代码（TAC前两位）
+     */
+    private static final int[] REPORTING_BODIES = {1, 10, 30, 33, 35, 44, 45, 49, 50, 51, 52, 53, 54, 86, 91, 98, 99};
+    private static final boolean[] KNOWN_RBI = new boolean[100];
+
+    static {
+        for (int rbi : REPORTING_BODIES) {
+            KNOWN_RBI[rbi] = true;
+        }
+    }
+
+    private ImeiValidator() {
+
+    }
+
+    /**
+     * text[start, start + 15)是否为有效imei，调用方需保证区间内均为数字
+     */
+    public static boolean isValidDigits(char[] text, int start) {
+        return isKnownTac(text, start) && isLuhnValid(text, start, IMEI_LENGTH);
+    }
+
+    /**
+     * 字符串是否恰好为一个有效imei
+     */
+    public static boolean isValid(CharSequence text) {
+        if (text == null || text.length() != IMEI_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < IMEI_LENGTH; i++) {
+            if (!CharClass.isDigit(text.charAt(i))) {
+                return false;
+            }
+        }
+        return isValidDigits(text, 0);
+    }
+
+    /**
+     * 同isValidDigits(char[], int)，用于不在文档缓冲区中的字符串：拷贝出15位数字后共用同一份TAC及Luhn校验
+     * 只在校验最终结果时调用，解析热路径直接使用char[]版本
+     */
+    private static boolean isValidDigits(CharSequence text, int start) {
+        char[] digits = new char[IMEI_LENGTH];
+        for (int i = 0; i < IMEI_LENGTH; i++) {
+            digits[i] = text.charAt(start + i);
+        }
+        return isValidDigits(digits, 0);
+    }
+
+    /**
+     * 在文本中查找第一个恰好15位（前后均不是数字）且有效的数字串
+     *
+     * @param text
+     * @return 数字串起点，没有返回-1
+     */
+    public static int findValid(CharSequence text) {
+        if (text == null) {
+            return -1;
+        }
+        int length = text.length();
+        int runStart = -1;
+        for (int i = 0; i <= length; i++) {
+            boolean digit = i < length && CharClass.isDigit(text.charAt(i));
+            if (digit) {
+                if (runStart < 0) {
+                    runStart = i;
+                }
+                continue;
+            }
+            if (runStart >= 0 && i - runStart == IMEI_LENGTH && isValidDigits(text, runStart)) {
+                return runStart;
+            }
+            runStart = -1;
+        }
+        return -1;
+    }
+
+    /**
+     * TAC前两位是否为已登记的发证机构代码
+     */
+    public static boolean isKnownTac(char[] text, int start) {
+        return KNOWN_RBI[(text[start] - '0') * 10 + (text[start + 1] - '0')];
+    }
+
+    /**
+     * Luhn校验，最后一位为校验位
+     *
+     * @param text   数字字符
+     * @param start
+     * @param length 含校验位的长度
+     * @return
+     */
+    public static boolean isLuhnValid(char[] text, int start, int length) {
+        int sum = 0;
+        for (int i = 0; i < length; i++) {
+            sum += luhnDigit(text[start + length - 1 - i] - '0', i);
+        }
+        return sum % 10 == 0;
+    }
+
+    /**
+     * 从校验位往左数，偶数位乘2
+     *
+     * @param digit
+     * @param indexFromRight 从校验位往左数的下标，校验位为0
+     */
+    private static int luhnDigit(int digit, int indexFromRight) {
+        if ((indexFromRight & 1) == 1) {
+            digit <<= 1;
+            if (digit > 9) {
+                digit -= 9;
+            }
+        }
+        return digit;
+    }
+}
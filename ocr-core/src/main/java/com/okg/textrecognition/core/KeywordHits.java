@@ -0,0 +1,107 @@
+package com.okg.textrecognition.core;
+
+import java.util.Arrays;
+
+/**
+ * @author okg
+ * @date 2026-10-18
+ * 描述：KeywordMatcher的扫描结果，可在多次扫描间复用，容量不足时才会扩容
+ */
+public final class KeywordHits {
+    private int[] mKeywords = new int[8];
+    private int[] mStarts = new int[8];
+    private int[] mEnds = new int[8];
+    private int mCount;
+    private int mScanStart;
+    private int mKindMask;
+    private int mPrefixKindMask;
+
+    void reset(int scanStart) {
+        mCount = 0;
+        mScanStart = scanStart;
+        mKindMask = 0;
+        mPrefixKindMask = 0;
+    }
+
+    void add(int keyword, int kind, int start, int end) {
+        if (mCount == mKeywords.length) {
+            int capacity = mCount << 1;
+            mKeywords = Arrays.copyOf(mKeywords, capacity);
+            mStarts = Arrays.copyOf(mStarts, capacity);
+            mEnds = Arrays.copyOf(mEnds, capacity);
+        }
+        mKeywords[mCount] = keyword;
+        mStarts[mCount] = start;
+        mEnds[mCount] = end;
+        mCount++;
+        mKindMask |= kind;
+        if (start == mScanStart) {
+            mPrefixKindMask |= kind;
+        }
+    }
+
+    public int getCount() {
+        return mCount;
+    }
+
+    public int getKeyword(int hit) {
+        return mKeywords[hit];
+    }
+
+    public int getStart(int hit) {
+        return mStarts[hit];
+    }
+
+    public int getEnd(int hit) {
+        return mEnds[hit];
+    }
+
+    /**
+     * 命中的所有关键字类型（任意位置）
+     */
+    public int getKindMask() {
+        return mKindMask;
+    }
+
+    /**
+     * 位于扫描起点的关键字类型
+     */
+    public int getPrefixKindMask() {
+        return mPrefixKindMask;
+    }
+
+    /**
+     * 是否命中了指定类型的关键字（任意位置）
+     */
+    public boolean contains(int kindMask) {
+        return (mKindMask & kindMask) != 0;
+    }
+
+    /**
+     * 是否以指定类型的关键字开头
+     */
+    public boolean startsWith(int kindMask) {
+        return (mPrefixKindMask & kindMask) != 0;
+    }
+
+    /**
+     * 在指定类型中查找优先级最高（关键字表中最靠前）的关键字，同一关键字取最靠前的位置
+     *
+     * @param matcher  产生本结果的匹配器
+     * @param kindMask
+     * @return 命中下标，没有返回-1
+     */
+    public int findBest(KeywordMatcher matcher, int kindMask) {
+        int best = -1;
+        for (int i = 0; i < mCount; i++) {
+            if ((matcher.getKind(mKeywords[i]) & kindMask) == 0) {
+                continue;
+            }
+            if (best < 0 || mKeywords[i] < mKeywords[best]
+                    || (mKeywords[i] == mKeywords[best] && mStarts[i] < mStarts[best])) {
+                best = i;
+            }
+        }
+        return best;
+    }
+}
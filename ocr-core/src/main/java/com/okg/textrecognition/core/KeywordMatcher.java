@@ -0,0 +1,293 @@
+package com.okg.textrecognition.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * @author okg
+ * @date 2026-10-18
+ * 描述：预编译的多关键字匹配自动机（Aho-Corasick），一次扫描即可找出所有关键字及其位置
+ * 匹配不区分大小写，扫描时逐字符折叠大小写，不产生任何小写中间字符串
+ * ASCII字符使用稠密跳转表（已展开失败链接），非ASCII字符（如中文关键字）使用稀疏边并在运行时回退失败链接
+ */
+public final class KeywordMatcher {
+    private static final int ASCII_SIZE = 128;
+
+    private final String[] mKeywords;
+    private final int[] mKinds;
+    private final int[] mLengths;
+    /**
+     * ASCII跳转表，大小为stateCount * 128
+     */
+    private final int[] mAsciiNext;
+    private final int[] mFail;
+    /**
+     * 非ASCII边，状态s的边为[mExtOffsets[s], mExtOffsets[s + 1])，按字符升序
+     */
+    private final int[] mExtOffsets;
+    private final char[] mExtChars;
+    private final int[] mExtTargets;
+    /**
+     * 状态输出的关键字下标（已合并失败链接上的输出），状态s的输出为[mOutOffsets[s], mOutOffsets[s + 1])
+     */
+    private final int[] mOutOffsets;
+    private final int[] mOutKeywords;
+
+    private KeywordMatcher(Builder builder) {
+        int keywordCount = builder.mKeywords.size();
+        mKeywords = builder.mKeywords.toArray(new String[0]);
+        mKinds = new int[keywordCount];
+        mLengths = new int[keywordCount];
+        for (int i = 0; i < keywordCount; i++) {
+            mKinds[i] = builder.mKinds.get(i);
+            mLengths[i] = mKeywords[i].length();
+        }
+        // step1 构建trie
+        List<int[]> children = new ArrayList<>();
+        List<char[]> childChars = new ArrayList<>();
+        List<int[]> outputs = new ArrayList<>();
+        children.add(new int[0]);
+        childChars.add(new char[0]);
+        outputs.add(new int[0]);
+        for (int k = 0; k < keywordCount; k++) {
+            String keyword = mKeywords[k];
+            int state = 0;
+            for (int i = 0; i < keyword.length(); i++) {
+                char c = fold(keyword.charAt(i));
+                int next = findChild(childChars.get(state), children.get(state), c);
+                if (next < 0) {
+                    next = children.size();
+                    children.add(new int[0]);
+                    childChars.add(new char[0]);
+                    outputs.add(new int[0]);
+                    childChars.set(state, append(childChars.get(state), c));
+                    children.set(state, append(children.get(state), next));
+                }
+                state = next;
+            }
+            outputs.set(state, append(outputs.get(state), k));
+        }
+        int stateCount = children.size();
+        // step2 按BFS顺序计算失败链接，并合并输出
+        mFail = new int[stateCount];
+        int[] queue = new int[stateCount];
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = 0;
+        while (head < tail) {
+            int state = queue[head++];
+            char[] chars = childChars.get(state);
+            int[] targets = children.get(state);
+            for (int i = 0; i < chars.length; i++) {
+                int child = targets[i];
+                int fail = 0;
+                if (state != 0) {
+                    int f = mFail[state];
+                    while (true) {
+                        int next = findChild(childChars.get(f), children.get(f), chars[i]);
+                        if (next >= 0) {
+                            fail = next;
+                            break;
+                        }
+                        if (f == 0) {
+                            break;
+                        }
+                        f = mFail[f];
+                    }
+                }
+                mFail[child] = fail;
+                outputs.set(child, concat(outputs.get(child), outputs.get(fail)));
+                queue[tail++] = child;
+            }
+        }
+        // step3 展开ASCII跳转表，BFS顺序保证失败状态已先行展开
+        mAsciiNext = new int[stateCount * ASCII_SIZE];
+        for (int q = 0; q < stateCount; q++) {
+            int state = queue[q];
+            int base = state * ASCII_SIZE;
+            if (state != 0) {
+                System.arraycopy(mAsciiNext, mFail[state] * ASCII_SIZE, mAsciiNext, base, ASCII_SIZE);
+            }
+            char[] chars = childChars.get(state);
+            int[] targets = children.get(state);
+            for (int i = 0; i < chars.length; i++) {
+                if (chars[i] < ASCII_SIZE) {
+                    mAsciiNext[base + chars[i]] = targets[i];
+                }
+            }
+        }
+        // step4 平铺非ASCII边及输出
+        mExtOffsets = new int[stateCount + 1];
+        mOutOffsets = new int[stateCount + 1];
+        int extCount = 0;
+        int outCount = 0;
+        for (int s = 0; s < stateCount; s++) {
+            for (char c : childChars.get(s)) {
+                if (c >= ASCII_SIZE) {
+                    extCount++;
+                }
+            }
+            outCount += outputs.get(s).length;
+        }
+        mExtChars = new char[extCount];
+        mExtTargets = new int[extCount];
+        mOutKeywords = new int[outCount];
+        extCount = 0;
+        outCount = 0;
+        for (int s = 0; s < stateCount; s++) {
+            mExtOffsets[s] = extCount;
+            char[] chars = childChars.get(s);
+            int[] targets = children.get(s);
+            long[] sorted = new long[chars.length];
+            int sortedCount = 0;
+            for (int i = 0; i < chars.length; i++) {
+                if (chars[i] >= ASCII_SIZE) {
+                    sorted[sortedCount++] = ((long) chars[i] << 32) | targets[i];
+                }
+            }
+            Arrays.sort(sorted, 0, sortedCount);
+            for (int i = 0; i < sortedCount; i++) {
+                mExtChars[extCount] = (char) (sorted[i] >>> 32);
+                mExtTargets[extCount] = (int) sorted[i];
+                extCount++;
+            }
+            mOutOffsets[s] = outCount;
+            int[] out = outputs.get(s);
+            System.arraycopy(out, 0, mOutKeywords, outCount, out.length);
+            outCount += out.length;
+        }
+        mExtOffsets[stateCount] = extCount;
+        mOutOffsets[stateCount] = outCount;
+    }
+
+    public int getKeywordCount() {
+        return mKeywords.length;
+    }
+
+    public String getKeyword(int keyword) {
+        return mKeywords[keyword];
+    }
+
+    public int getKind(int keyword) {
+        return mKinds[keyword];
+    }
+
+    /**
+     * 扫描text[start, end)，命中结果写入hits（先清空）
+     *
+     * @param text
+     * @param start
+     * @param end
+     * @param hits  可复用的结果容器
+     */
+    public void scan(char[] text, int start, int end, KeywordHits hits) {
+        hits.reset(start);
+        int state = 0;
+        for (int i = start; i < end; i++) {
+            char c = fold(text[i]);
+            if (c < ASCII_SIZE) {
+                state = mAsciiNext[state * ASCII_SIZE + c];
+            } else {
+                state = nextExt(state, c);
+            }
+            for (int o = mOutOffsets[state], outEnd = mOutOffsets[state + 1]; o < outEnd; o++) {
+                int keyword = mOutKeywords[o];
+                hits.add(keyword, mKinds[keyword], i + 1 - mLengths[keyword], i + 1);
+            }
+        }
+    }
+
+    /**
+     * 非ASCII字符的状态转移，沿失败链接回退直到找到对应的边
+     */
+    private int nextExt(int state, char c) {
+        while (true) {
+            int low = mExtOffsets[state];
+            int high = mExtOffsets[state + 1] - 1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                char value = mExtChars[middle];
+                if (value < c) {
+                    low = middle + 1;
+                } else if (value > c) {
+                    high = middle - 1;
+                } else {
+                    return mExtTargets[middle];
+                }
+            }
+            if (state == 0) {
+                return 0;
+            }
+            state = mFail[state];
+        }
+    }
+
+    /**
+     * 大小写折叠，ASCII走快速路径
+     */
+    private static char fold(char c) {
+        if (c < ASCII_SIZE) {
+            return (c >= 'A' && c <= 'Z') ? (char) (c + ('a' - 'A')) : c;
+        }
+        return Character.toLowerCase(c);
+    }
+
+    private static int findChild(char[] chars, int[] targets, char c) {
+        for (int i = 0; i < chars.length; i++) {
+            if (chars[i] == c) {
+                return targets[i];
+            }
+        }
+        return -1;
+    }
+
+    private static char[] append(char[] array, char value) {
+        char[] result = Arrays.copyOf(array, array.length + 1);
+        result[array.length] = value;
+        return result;
+    }
+
+    private static int[] append(int[] array, int value) {
+        int[] result = Arrays.copyOf(array, array.length + 1);
+        result[array.length] = value;
+        return result;
+    }
+
+    private static int[] concat(int[] first, int[] second) {
+        if (second.length == 0) {
+            return first;
+        }
+        int[] result = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, result, first.length, second.length);
+        return result;
+    }
+
+    /**
+     * 关键字表构建器，添加顺序即优先级（越早添加优先级越高）
+     */
+    public static final class Builder {
+        private final List<String> mKeywords = new ArrayList<>();
+        private final List<Integer> mKinds = new ArrayList<>();
+
+        /**
+         * 添加关键字
+         *
+         * @param keyword 关键字，不区分大小写
+         * @param kind    关键字类型，为单个bit位，见KeywordTable.KIND_*
+         * @return 关键字下标
+         */
+        public int add(String keyword, int kind) {
+            if (keyword == null || keyword.length() == 0) {
+                throw new IllegalArgumentException("keyword must not be empty");
+            }
+            mKeywords.add(keyword);
+            mKinds.add(kind);
+            return mKeywords.size() - 1;
+        }
+
+        public KeywordMatcher build() {
+            return new KeywordMatcher(this);
+        }
+    }
+}
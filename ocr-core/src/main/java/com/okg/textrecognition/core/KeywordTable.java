@@ -0,0 +1,58 @@
+package com.okg.textrecognition.core;
+
+/**
+ * @author okg
+ * @date 2026-10-18
+ * 描述：imei/sn关键字表，新增标签只需在表中登记并指定类型，不会增加扫描次数
+ * 表中顺序即同类关键字的优先级，如同时出现"序列号"与"sn"时优先按"序列号"截取
+ */
+public final class KeywordTable {
+    /**
+     * imei类关键字，行首出现用于判定布局，出现在任意位置用于垂直/横向解析
+     */
+    public static final int KIND_IMEI = 1;
+    /**
+     * 第二个imei
+     */
+    public static final int KIND_IMEI2 = 1 << 1;
+    /**
+     * sn短标签，如sn、s/n，行首出现才认定
+     */
+    public static final int KIND_SN = 1 << 2;
+    /**
+     * 中文序列号标签，出现在任意位置都认定
+     */
+    public static final int KIND_SN_LABEL = 1 << 3;
+    /**
+     * serial，仅在只有sn的情况下截取sn子串时使用
+     */
+    public static final int KIND_SERIAL = 1 << 4;
+    /**
+     * 截取sn子串时参与查找的所有类型
+     */
+    public static final int KIND_SN_ANY = KIND_SN | KIND_SN_LABEL | KIND_SERIAL;
+
+    private KeywordTable() {
+
+    }
+
+    /**
+     * 默认关键字表
+     *
+     * @return 可继续添加关键字的构建器
+     */
+    public static KeywordMatcher.Builder newDefaultBuilder() {
+        KeywordMatcher.Builder builder = new KeywordMatcher.Builder();
+        builder.add("imei", KIND_IMEI);
+        builder.add("imei2", KIND_IMEI2);
+        builder.add("序列号", KIND_SN_LABEL);
+        builder.add("serial", KIND_SERIAL);
+        builder.add("s/n", KIND_SN);
+        builder.add("sn", KIND_SN);
+        return builder;
+    }
+
+    public static KeywordMatcher newDefaultMatcher() {
+        return newDefaultBuilder().build();
+    }
+}
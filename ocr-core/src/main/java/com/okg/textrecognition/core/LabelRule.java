@@ -0,0 +1,242 @@
+package com.okg.textrecognition.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * @author okg
+ * @date 2026-10-18
+ * 描述：声明式的标签格式规则：哪些关键字、值在什么位置、值需要满足什么校验、填入哪个字段
+ * 可以用构建器创建，也可以用一行文本描述，如：
+ * keywords=IMEI No.|串号; field=imei1; location=same_line; validator=imei; prefix=true
+ * 规则本身不参与解析，由LabelRuleTable编译为决策表后使用
+ */
+public final class LabelRule {
+    /**
+     * 值在关键字之后的同一行（跳过空白及:、：、#、=等分隔符）
+     */
+    public static final int LOCATION_SAME_LINE = 0;
+    /**
+     * 值在关键字的下一行，关键字为block末行时取下一个block的第一行
+     */
+    public static final int LOCATION_NEXT_LINE = 1;
+    /**
+     * 值在下一个block的第一行
+     */
+    public static final int LOCATION_NEXT_BLOCK = 2;
+    /**
+     * 值在关键字所在block右侧同一水平带内最近的block
+     */
+    public static final int LOCATION_HORIZONTAL = 3;
+
+    /**
+     * 有效imei（TAC及Luhn校验，含易混淆字符修复）
+     */
+    public static final int VALIDATOR_IMEI = 0;
+    /**
+     * sn字符类且长度在[10,20]之间（含易混淆字符修复），结果转为大写
+     */
+    public static final int VALIDATOR_SN = 1;
+    /**
+     * 非空文本，去掉首尾空白
+     */
+    public static final int VALIDATOR_TEXT = 2;
+
+    private static final String[] LOCATION_NAMES = {"same_line", "next_line", "next_block", "horizontal"};
+    private static final String[] VALIDATOR_NAMES = {"imei", "sn", "text"};
+    private static final String[] FIELD_NAMES = {DeviceInfo.KEY_IMEI1, DeviceInfo.KEY_IMEI2, DeviceInfo.KEY_SN};
+
+    private final String[] mKeywords;
+    private final int mField;
+    private final int mLocation;
+    private final int mValidator;
+    private final boolean mPrefixOnly;
+
+    private LabelRule(Builder builder) {
+        mKeywords = builder.mKeywords.toArray(new String[0]);
+        mField = builder.mField;
+        mLocation = builder.mLocation;
+        mValidator = builder.mValidator;
+        mPrefixOnly = builder.mPrefixOnly;
+    }
+
+    public String[] getKeywords() {
+        return mKeywords.clone();
+    }
+
+    /**
+     * @return DeviceInfo.FIELD_*
+     */
+    public int getField() {
+        return mField;
+    }
+
+    /**
+     * @return LOCATION_*
+     */
+    public int getLocation() {
+        return mLocation;
+    }
+
+    /**
+     * @return VALIDATOR_*
+     */
+    public int getValidator() {
+        return mValidator;
+    }
+
+    /**
+     * 关键字是否必须位于行首（忽略前导空白）
+     */
+    public boolean isPrefixOnly() {
+        return mPrefixOnly;
+    }
+
+    /**
+     * 解析一行文本描述的规则，各项以;分隔，项名与值以=分隔，关键字之间以|分隔
+     * 项：keywords（必填）、field（imei1/imei2/sn，必填）、location（默认same_line）、
+     * validator（默认按字段：imei字段为imei，sn字段为sn）、prefix（true/false，默认false）
+     *
+     * @param spec
+     * @return
+     */
+    public static LabelRule parse(String spec) {
+        if (spec == null) {
+            throw new IllegalArgumentException("rule spec must not be null");
+        }
+        Builder builder = new Builder();
+        boolean hasField = false;
+        boolean hasValidator = false;
+        for (String item : spec.split(";")) {
+            item = item.trim();
+            if (item.length() == 0) {
+                continue;
+            }
+            int separator = item.indexOf('=');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("invalid rule item: " + item);
+            }
+            String name = item.substring(0, separator).trim().toLowerCase(Locale.US);
+            String value = item.substring(separator + 1).trim();
+            switch (name) {
+                case "keywords":
+                    for (String keyword : value.split("\\|")) {
+                        if (keyword.trim().length() > 0) {
+                            builder.addKeyword(keyword.trim());
+                        }
+                    }
+                    break;
+                case "field":
+                    builder.setField(indexOf(FIELD_NAMES, value, name));
+                    hasField = true;
+                    break;
+                case "location":
+                    builder.setLocation(indexOf(LOCATION_NAMES, value, name));
+                    break;
+                case "validator":
+                    builder.setValidator(indexOf(VALIDATOR_NAMES, value, name));
+                    hasValidator = true;
+                    break;
+                case "prefix":
+                    builder.setPrefixOnly(Boolean.parseBoolean(value));
+                    break;
+                default:
+                    throw new IllegalArgumentException("unknown rule item: " + name);
+            }
+        }
+        if (!hasField) {
+            throw new IllegalArgumentException("rule field is required: " + spec);
+        }
+        if (!hasValidator) {
+            builder.setValidator(builder.mField == DeviceInfo.FIELD_SN ? VALIDATOR_SN : VALIDATOR_IMEI);
+        }
+        return builder.build();
+    }
+
+    private static int indexOf(String[] names, String value, String item) {
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].equalsIgnoreCase(value)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("invalid " + item + ": " + value);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("keywords=");
+        for (int i = 0; i < mKeywords.length; i++) {
+            if (i > 0) {
+                builder.append('|');
+            }
+            builder.append(mKeywords[i]);
+        }
+        return builder.append("; field=").append(FIELD_NAMES[mField])
+                .append("; location=").append(LOCATION_NAMES[mLocation])
+                .append("; validator=").append(VALIDATOR_NAMES[mValidator])
+                .append("; prefix=").append(mPrefixOnly)
+                .toString();
+    }
+
+    /**
+     * 规则构建器
+     */
+    public static final class Builder {
+        private final List<String> mKeywords = new ArrayList<>();
+        private int mField = DeviceInfo.FIELD_IMEI1;
+        private int mLocation = LOCATION_SAME_LINE;
+        private int mValidator = VALIDATOR_IMEI;
+        private boolean mPrefixOnly;
+
+        /**
+         * @param keyword 不区分大小写
+         */
+        public Builder addKeyword(String keyword) {
+            if (keyword == null || keyword.length() == 0) {
+                throw new IllegalArgumentException("keyword must not be empty");
+            }
+            mKeywords.add(keyword);
+            return this;
+        }
+
+        /**
+         * @param field DeviceInfo.FIELD_*，imei1规则在imei1已有值时填入imei2
+         */
+        public Builder setField(int field) {
+            if (field < 0 || field >= DeviceInfo.FIELD_COUNT) {
+                throw new IllegalArgumentException("invalid field: " + field);
+            }
+            mField = field;
+            return this;
+        }
+
+        public Builder setLocation(int location) {
+            if (location < LOCATION_SAME_LINE || location > LOCATION_HORIZONTAL) {
+                throw new IllegalArgumentException("invalid location: " + location);
+            }
+            mLocation = location;
+            return this;
+        }
+
+        public Builder setValidator(int validator) {
+            if (validator < VALIDATOR_IMEI || validator > VALIDATOR_TEXT) {
+                throw new IllegalArgumentException("invalid validator: " + validator);
+            }
+            mValidator = validator;
+            return this;
+        }
+
+        public Builder setPrefixOnly(boolean prefixOnly) {
+            mPrefixOnly = prefixOnly;
+            return this;
+        }
+
+        public LabelRule build() {
+            if (mKeywords.isEmpty()) {
+                throw new IllegalArgumentException("rule requires at least one keyword");
+            }
+            return new LabelRule(this);
+        }
+    }
+}
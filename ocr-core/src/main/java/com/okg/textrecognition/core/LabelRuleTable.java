@@ -0,0 +1,304 @@
+package com.okg.textrecognition.core;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @author okg
+ * @date 2026-10-18
+ * 描述：标签规则编译后的决策表
+ * 所有规则的所有关键字合并为一个KeywordMatcher，每行只扫描一次；关键字下标直接映射到决策表的一行，
+ * 每行4个int：目标字段、值位置、校验器、标志位。规则数量只影响自动机大小，不增加每行的扫描次数
+ * 只填充尚未解析到的字段，编译后不可变，可被多个线程共享
+ */
+public final class LabelRuleTable {
+    private static final String TAG = "Mlkit-LabelRuleTable";
+
+    private static final int COLUMN_FIELD = 0;
+    private static final int COLUMN_LOCATION = 1;
+    private static final int COLUMN_VALIDATOR = 2;
+    private static final int COLUMN_FLAGS = 3;
+    private static final int ROW_STRIDE = 4;
+
+    private static final int FLAG_PREFIX_ONLY = 1;
+    /**
+     * 规则关键字的类型，决策表不使用类型掩码
+     */
+    private static final int KIND_RULE = 1;
+
+    private final KeywordMatcher mMatcher;
+    /**
+     * 关键字下标对应的决策表行
+     */
+    private final int[] mKeywordRows;
+    private final int[] mTable;
+    private final int mRuleCount;
+
+    private LabelRuleTable(KeywordMatcher matcher, int[] keywordRows, int[] table, int ruleCount) {
+        mMatcher = matcher;
+        mKeywordRows = keywordRows;
+        mTable = table;
+        mRuleCount = ruleCount;
+    }
+
+    /**
+     * 编译规则，同一关键字出现在多条规则中时，先添加的规则优先
+     *
+     * @param rules
+     * @return
+     */
+    public static LabelRuleTable compile(List<LabelRule> rules) {
+        KeywordMatcher.Builder matcherBuilder = new KeywordMatcher.Builder();
+        List<Integer> keywordRows = new ArrayList<>();
+        int[] table = new int[rules.size() * ROW_STRIDE];
+        for (int row = 0; row < rules.size(); row++) {
+            LabelRule rule = rules.get(row);
+            int offset = row * ROW_STRIDE;
+            table[offset + COLUMN_FIELD] = rule.getField();
+            table[offset + COLUMN_LOCATION] = rule.getLocation();
+            table[offset + COLUMN_VALIDATOR] = rule.getValidator();
+            table[offset + COLUMN_FLAGS] = rule.isPrefixOnly() ? FLAG_PREFIX_ONLY : 0;
+            for (String keyword : rule.getKeywords()) {
+                matcherBuilder.add(keyword, KIND_RULE);
+                keywordRows.add(row);
+            }
+        }
+        int[] rows = new int[keywordRows.size()];
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = keywordRows.get(i);
+        }
+        return new LabelRuleTable(matcherBuilder.build(), rows, table, rules.size());
+    }
+
+    /**
+     * 编译文本描述的规则，格式见LabelRule.parse
+     */
+    public static LabelRuleTable compile(String... specs) {
+        List<LabelRule> rules = new ArrayList<>(specs.length);
+        for (String spec : specs) {
+            rules.add(LabelRule.parse(spec));
+        }
+        return compile(rules);
+    }
+
+    public int getRuleCount() {
+        return mRuleCount;
+    }
+
+    /**
+     * 遍历一次文档，按决策表填充尚未解析到的字段
+     *
+     * @param document
+     * @param result   已有值的字段不会被覆盖
+     * @return 是否填充了至少一个字段
+     */
+    public boolean apply(OcrDocument document, DeviceInfo.Builder result) {
+        if (mRuleCount == 0 || document == null || isComplete(result)) {
+            return false;
+        }
+        char[] text = document.getTextBuffer();
+        KeywordHits hits = new KeywordHits();
+        char[] buffer = new char[Math.max(ImeiValidator.IMEI_LENGTH, ImeiSnParser.SN_MAX_LENGTH)];
+        BlockSpatialIndex spatialIndex = null;
+        int[] queryBuffer = null;
+        boolean filled = false;
+        int blockCount = document.getBlockCount();
+        for (int block = 0; block < blockCount; block++) {
+            int lineEnd = document.getBlockLineEnd(block);
+            for (int line = document.getBlockLineStart(block); line < lineEnd; line++) {
+                int start = document.getLineTextStart(line);
+                int end = document.getLineTextEnd(line);
+                mMatcher.scan(text, start, end, hits);
+                int lineStart = CharClass.trimStart(text, start, end);
+                for (int hit = 0; hit < hits.getCount(); hit++) {
+                    if (isShadowed(hits, hit)) {
+                        continue;
+                    }
+                    int offset = mKeywordRows[hits.getKeyword(hit)] * ROW_STRIDE;
+                    if ((mTable[offset + COLUMN_FLAGS] & FLAG_PREFIX_ONLY) != 0 && hits.getStart(hit) != lineStart) {
+                        continue;
+                    }
+                    int field = targetField(result, mTable[offset + COLUMN_FIELD]);
+                    if (field < 0) {
+                        continue;
+                    }
+                    // 定位值所在的行或block
+                    int valueBlock = block;
+                    int valueLine = line;
+                    int valueStart;
+                    int valueEnd;
+                    switch (mTable[offset + COLUMN_LOCATION]) {
+                        case LabelRule.LOCATION_SAME_LINE:
+                            valueStart = skipSeparators(text, hits.getEnd(hit), end);
+                            valueEnd = end;
+                            break;
+                        case LabelRule.LOCATION_NEXT_LINE:
+                            if (line + 1 < lineEnd) {
+                                valueLine = line + 1;
+                            } else {
+                                valueBlock = block + 1;
+                                valueLine = valueBlock < blockCount && document.getBlockLineCount(valueBlock) > 0 ? document.getBlockLineStart(valueBlock) : -1;
+                            }
+                            valueStart = valueLine < 0 ? 0 : document.getLineTextStart(valueLine);
+                            valueEnd = valueLine < 0 ? 0 : document.getLineTextEnd(valueLine);
+                            break;
+                        case LabelRule.LOCATION_NEXT_BLOCK:
+                            valueBlock = block + 1;
+                            valueLine = valueBlock < blockCount && document.getBlockLineCount(valueBlock) > 0 ? document.getBlockLineStart(valueBlock) : -1;
+                            valueStart = valueLine < 0 ? 0 : document.getLineTextStart(valueLine);
+                            valueEnd = valueLine < 0 ? 0 : document.getLineTextEnd(valueLine);
+                            break;
+                        default:
+                            // 横向邻居只在规则命中时才需要空间索引
+                            if (spatialIndex == null) {
+                                spatialIndex = BlockSpatialIndex.from(document);
+                                queryBuffer = spatialIndex.newResultBuffer();
+                            }
+                            valueBlock = spatialIndex.findNearestRight(block, queryBuffer);
+                            valueLine = -1;
+                            valueStart = valueBlock < 0 ? 0 : document.getBlockTextStart(valueBlock);
+                            valueEnd = valueBlock < 0 ? 0 : document.getBlockTextEnd(valueBlock);
+                            break;
+                    }
+                    String value = validate(mTable[offset + COLUMN_VALIDATOR], text, valueStart, valueEnd, buffer);
+                    if (value == null || (field == DeviceInfo.FIELD_IMEI2 && value.equals(result.get(DeviceInfo.FIELD_IMEI1)))) {
+                        continue;
+                    }
+                    if (valueLine >= 0) {
+                        result.setFromLine(field, value, document, valueBlock, valueLine);
+                    } else {
+                        result.setFromBlock(field, value, document, valueBlock);
+                    }
+                    OcrLog.d(TAG, "规则命中：{} -> {}", mMatcher.getKeyword(hits.getKeyword(hit)), value);
+                    filled = true;
+                    if (isComplete(result)) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return filled;
+    }
+
+    /**
+     * 被同一位置开始的更长关键字覆盖的命中（如"imei"与"imei2"）不处理
+     */
+    private static boolean isShadowed(KeywordHits hits, int hit) {
+        int start = hits.getStart(hit);
+        int end = hits.getEnd(hit);
+        for (int other = 0; other < hits.getCount(); other++) {
+            if (other != hit && hits.getStart(other) <= start && hits.getEnd(other) >= end
+                    && hits.getEnd(other) - hits.getStart(other) > end - start) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * imei1规则在imei1已有值时填入imei2
+     *
+     * @return 目标字段，已有值时返回-1
+     */
+    private static int targetField(DeviceInfo.Builder result, int field) {
+        if (!result.has(field)) {
+            return field;
+        }
+        if (field == DeviceInfo.FIELD_IMEI1 && !result.has(DeviceInfo.FIELD_IMEI2)) {
+            return DeviceInfo.FIELD_IMEI2;
+        }
+        return -1;
+    }
+
+    /**
+     * 按校验器从text[start, end)中取出值
+     *
+     * @return 不满足校验时返回null
+     */
+    private static String validate(int validator, char[] text, int start, int end, char[] buffer) {
+        switch (validator) {
+            case LabelRule.VALIDATOR_IMEI:
+                return findImei(text, start, end, buffer);
+            case LabelRule.VALIDATOR_SN:
+                return findSn(text, start, end, buffer);
+            default:
+                start = CharClass.trimStart(text, start, end);
+                end = CharClass.trimEnd(text, start, end);
+                return start < end ? new String(text, start, end - start) : null;
+        }
+    }
+
+    /**
+     * 第一个恰好15位的有效数字串，没有时尝试修复含易混淆字符的15位串
+     */
+    private static String findImei(char[] text, int start, int end, char[] buffer) {
+        int digitStart = -1;
+        int likeStart = -1;
+        boolean hasConfusion = false;
+        for (int i = start; i <= end; i++) {
+            char c = i < end ? text[i] : 0;
+            if (i < end && CharClass.isDigit(c)) {
+                if (digitStart < 0) {
+                    digitStart = i;
+                }
+            } else {
+                if (digitStart >= 0 && i - digitStart == ImeiValidator.IMEI_LENGTH && ImeiValidator.isValidDigits(text, digitStart)) {
+                    return new String(text, digitStart, ImeiValidator.IMEI_LENGTH);
+                }
+                digitStart = -1;
+            }
+            if (i < end && ConfusionRepair.isDigitLike(c)) {
+                if (likeStart < 0) {
+                    likeStart = i;
+                    hasConfusion = false;
+                }
+                hasConfusion |= !CharClass.isDigit(c);
+                continue;
+            }
+            if (likeStart >= 0 && hasConfusion && i - likeStart == ImeiValidator.IMEI_LENGTH && ConfusionRepair.repairImei(text, likeStart, i, buffer, 0)) {
+                return new String(buffer, 0, ImeiValidator.IMEI_LENGTH);
+            }
+            likeStart = -1;
+        }
+        return null;
+    }
+
+    /**
+     * 第一个以空白分隔、长度在[10,20]之间的sn串（可经修复），转为大写
+     */
+    private static String findSn(char[] text, int start, int end, char[] buffer) {
+        int i = start;
+        while (i < end) {
+            if (text[i] <= ' ') {
+                i++;
+                continue;
+            }
+            int tokenEnd = i;
+            while (tokenEnd < end && text[tokenEnd] > ' ') {
+                tokenEnd++;
+            }
+            int length = tokenEnd - i;
+            if (length >= ImeiSnParser.SN_MIN_LENGTH && length <= ImeiSnParser.SN_MAX_LENGTH) {
+                if (CharClass.matchesAll(text, i, tokenEnd, CharClass.SN)) {
+                    return new String(text, i, length).toUpperCase();
+                }
+                if (ConfusionRepair.repairSn(text, i, tokenEnd, buffer) > 0) {
+                    return new String(buffer, 0, length).toUpperCase();
+                }
+            }
+            i = tokenEnd;
+        }
+        return null;
+    }
+
+    private static int skipSeparators(char[] text, int start, int end) {
+        while (start < end && (text[start] <= ' ' || text[start] == ':' || text[start] == '：' || text[start] == '#' || text[start] == '=')) {
+            start++;
+        }
+        return start;
+    }
+
+    private static boolean isComplete(DeviceInfo.Builder result) {
+        return result.has(DeviceInfo.FIELD_IMEI1) && result.has(DeviceInfo.FIELD_IMEI2) && result.has(DeviceInfo.FIELD_SN);
+    }
+}
@@ -0,0 +1,131 @@
+package com.okg.textrecognition.core;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * @author okg
+ * @date 2026-10-18
+ * 描述：固定分桶的耗时直方图，无锁，可在多个线程中同时记录
+ * 桶边界从100µs开始按2^(1/4)递增（相邻桶相差约19%），共64个桶覆盖到约5.5s，更长的耗时落入溢出桶
+ * 分位数在桶内线性插值，不超过记录到的最大值；记录只做一次二分查找及几次原子操作，不分配对象
+ */
+public final class LatencyHistogram {
+    static final int BUCKET_COUNT = 64;
+    private static final long MIN_BOUND_NANOS = 100_000L;
+    /**
+     * 第i个桶的上界（不含），溢出桶没有上界
+     */
+    private static final long[] BOUNDS = new long[BUCKET_COUNT];
+
+    static {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            BOUNDS[i] = Math.round(MIN_BOUND_NANOS * Math.pow(2, i / 4.0));
+        }
+    }
+
+    private final AtomicLongArray mCounts = new AtomicLongArray(BUCKET_COUNT + 1);
+    private final AtomicLong mCount = new AtomicLong();
+    private final AtomicLong mSumNanos = new AtomicLong();
+    private final AtomicLong mMaxNanos = new AtomicLong();
+
+    /**
+     * 记录一次耗时
+     *
+     * @param nanos 纳秒，负数按0处理
+     */
+    public void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        mCounts.incrementAndGet(bucketOf(nanos));
+        mCount.incrementAndGet();
+        mSumNanos.addAndGet(nanos);
+        long max;
+        while (nanos > (max = mMaxNanos.get())) {
+            if (mMaxNanos.compareAndSet(max, nanos)) {
+                break;
+            }
+        }
+    }
+
+    public long getCount() {
+        return mCount.get();
+    }
+
+    public long getMaxNanos() {
+        return mMaxNanos.get();
+    }
+
+    public long getMeanNanos() {
+        long count = mCount.get();
+        return count == 0 ? 0 : mSumNanos.get() / count;
+    }
+
+    /**
+     * 估算分位数
+     *
+     * @param percentile (0, 100]
+     * @return 纳秒，没有记录时返回0
+     */
+    public long getPercentileNanos(double percentile) {
+        if (percentile <= 0 || percentile > 100) {
+            throw new IllegalArgumentException("percentile must be in (0, 100]: " + percentile);
+        }
+        // 记录过程中并发读取时，各桶之和可能与总数短暂不一致，以各桶之和为准
+        long[] counts = new long[BUCKET_COUNT + 1];
+        long total = 0;
+        for (int i = 0; i <= BUCKET_COUNT; i++) {
+            counts[i] = mCounts.get(i);
+            total += counts[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long max = mMaxNanos.get();
+        double rank = percentile / 100 * total;
+        long seen = 0;
+        for (int i = 0; i <= BUCKET_COUNT; i++) {
+            if (counts[i] == 0) {
+                continue;
+            }
+            if (seen + counts[i] >= rank) {
+                if (i == BUCKET_COUNT) {
+                    // 溢出桶没有上界，取最大值
+                    return max;
+                }
+                long lower = i == 0 ? 0 : BOUNDS[i - 1];
+                long value = lower + (long) ((BOUNDS[i] - lower) * ((rank - seen) / counts[i]));
+                return Math.min(value, max);
+            }
+            seen += counts[i];
+        }
+        return max;
+    }
+
+    /**
+     * 清空记录，与record并发调用时可能丢失少量记录
+     */
+    public void reset() {
+        for (int i = 0; i <= BUCKET_COUNT; i++) {
+            mCounts.set(i, 0);
+        }
+        mCount.set(0);
+        mSumNanos.set(0);
+        mMaxNanos.set(0);
+    }
+
+    static int bucketOf(long nanos) {
+        int low = 0;
+        int high = BUCKET_COUNT;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (nanos < BOUNDS[mid]) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,89 @@
+package com.okg.textrecognition.core;
+
+import java.util.Arrays;
+
+/**
+ * @author okg
+ * @date 2026-10-18
+ * 描述：单次遍历文档时收集的布局证据，每条记录对应一个命中了关键字的行，按文档顺序排列
+ * 各布局的解析只遍历这些记录，不再重新扫描文本；没有命中关键字的行不会产生记录
+ */
+final class LayoutEvidence {
+    private int[] mBlocks = new int[8];
+    private int[] mLines = new int[8];
+    private int[] mKinds = new int[8];
+    private int[] mPrefixKinds = new int[8];
+    private int[] mSnStarts = new int[8];
+    private int mCount;
+
+    void add(int block, int line, int kinds, int prefixKinds, int snStart) {
+        if (mCount == mBlocks.length) {
+            int capacity = mCount << 1;
+            mBlocks = Arrays.copyOf(mBlocks, capacity);
+            mLines = Arrays.copyOf(mLines, capacity);
+            mKinds = Arrays.copyOf(mKinds, capacity);
+            mPrefixKinds = Arrays.copyOf(mPrefixKinds, capacity);
+            mSnStarts = Arrays.copyOf(mSnStarts, capacity);
+        }
+        mBlocks[mCount] = block;
+        mLines[mCount] = line;
+        mKinds[mCount] = kinds;
+        mPrefixKinds[mCount] = prefixKinds;
+        mSnStarts[mCount] = snStart;
+        mCount++;
+    }
+
+    int getCount() {
+        return mCount;
+    }
+
+    int getBlock(int entry) {
+        return mBlocks[entry];
+    }
+
+    int getLine(int entry) {
+        return mLines[entry];
+    }
+
+    /**
+     * 该行命中的关键字类型（任意位置）
+     */
+    int getKinds(int entry) {
+        return mKinds[entry];
+    }
+
+    /**
+     * 该行以哪些类型的关键字开头
+     */
+    int getPrefixKinds(int entry) {
+        return mPrefixKinds[entry];
+    }
+
+    boolean contains(int entry, int kindMask) {
+        return (mKinds[entry] & kindMask) != 0;
+    }
+
+    boolean startsWith(int entry, int kindMask) {
+        return (mPrefixKinds[entry] & kindMask) != 0;
+    }
+
+    /**
+     * 按关键字表优先级截取的sn子串起点
+     *
+     * @return 该行没有sn类关键字时返回-1
+     */
+    int getSnStart(int entry) {
+        return mSnStarts[entry];
+    }
+
+    /**
+     * 同一block的记录是连续的，返回下一个block第一条记录的下标
+     */
+    int nextBlockEntry(int entry) {
+        int block = mBlocks[entry];
+        while (entry < mCount && mBlocks[entry] == block) {
+            entry++;
+        }
+        return entry;
+    }
+}
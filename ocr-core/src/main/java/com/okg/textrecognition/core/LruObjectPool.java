@@ -0,0 +1,211 @@
+package com.okg.textrecognition.core;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @author okg
+ * @date 2026-10-18
+ * 描述：按尺寸及像素格式复用对象（如Bitmap）的LRU池，以字节数为预算，超出预算时淘汰最久未使用的对象
+ * 只有尺寸及格式完全相同的对象才会复用，取出时优先取最近放入的对象；被淘汰或放不下的对象交给Evictor释放
+ * 模块本身不依赖Android，格式以整数表示（如Bitmap.Config.ordinal()）；池中通常只有几个对象，按最近使用顺序线性查找
+ * 统计写入MetricsRegistry的计数器：前缀+hits、misses、evictions、resident_bytes（池中字节数）、hit_rate（命中率%）
+ * 所有方法使用对象锁，可在多个线程中调用，Evictor在锁外调用
+ */
+public final class LruObjectPool<T> {
+    static final String COUNTER_HITS = "hits";
+    static final String COUNTER_MISSES = "misses";
+    static final String COUNTER_EVICTIONS = "evictions";
+    static final String COUNTER_RESIDENT_BYTES = "resident_bytes";
+    static final String COUNTER_HIT_RATE = "hit_rate";
+
+    /**
+     * 释放被淘汰的对象
+     */
+    public interface Evictor<T> {
+        void evict(T object);
+    }
+
+    private final long mMaxBytes;
+    private final Evictor<T> mEvictor;
+    private final MetricsRegistry mMetrics;
+    private final String mHitsName;
+    private final String mMissesName;
+    private final String mEvictionsName;
+    private final String mResidentBytesName;
+    private final String mHitRateName;
+    /**
+     * 池中的对象，按放入顺序排列，末尾为最近放入的
+     */
+    private final List<Entry<T>> mEntries = new ArrayList<>();
+    private long mResidentBytes;
+    private long mHits;
+    private long mMisses;
+
+    /**
+     * @param maxBytes      字节数预算
+     * @param evictor
+     * @param metrics
+     * @param counterPrefix 计数器名称前缀，如"bitmap_pool."
+     */
+    public LruObjectPool(long maxBytes, Evictor<T> evictor, MetricsRegistry metrics, String counterPrefix) {
+        if (maxBytes < 0) {
+            throw new IllegalArgumentException("maxBytes must be >= 0: " + maxBytes);
+        }
+        if (evictor == null || metrics == null) {
+            throw new IllegalArgumentException("evictor and metrics must not be null");
+        }
+        mMaxBytes = maxBytes;
+        mEvictor = evictor;
+        mMetrics = metrics;
+        mHitsName = counterPrefix + COUNTER_HITS;
+        mMissesName = counterPrefix + COUNTER_MISSES;
+        mEvictionsName = counterPrefix + COUNTER_EVICTIONS;
+        mResidentBytesName = counterPrefix + COUNTER_RESIDENT_BYTES;
+        mHitRateName = counterPrefix + COUNTER_HIT_RATE;
+    }
+
+    /**
+     * 取出一个尺寸及格式相同的对象
+     *
+     * @return 没有可复用的对象时返回null
+     */
+    public T get(int width, int height, int format) {
+        T object = null;
+        long hitRate;
+        synchronized (this) {
+            for (int i = mEntries.size() - 1; i >= 0; i--) {
+                Entry<T> entry = mEntries.get(i);
+                if (entry.width == width && entry.height == height && entry.format == format) {
+                    mEntries.remove(i);
+                    mResidentBytes -= entry.bytes;
+                    object = entry.object;
+                    break;
+                }
+            }
+            if (object != null) {
+                mHits++;
+            } else {
+                mMisses++;
+            }
+            hitRate = mHits * 100 / (mHits + mMisses);
+        }
+        mMetrics.add(object != null ? mHitsName : mMissesName, 1);
+        mMetrics.set(mHitRateName, hitRate);
+        if (object != null) {
+            mMetrics.set(mResidentBytesName, getResidentBytes());
+        }
+        return object;
+    }
+
+    /**
+     * 放入一个不再使用的对象，超出预算时淘汰最久未使用的对象；单个对象超过预算时直接释放
+     *
+     * @param object
+     * @param bytes  对象占用的字节数
+     */
+    public void put(T object, int width, int height, int format, long bytes) {
+        if (object == null) {
+            return;
+        }
+        if (bytes > mMaxBytes) {
+            evict(object);
+            return;
+        }
+        List<T> evicted = null;
+        long residentBytes;
+        synchronized (this) {
+            for (int i = 0; i < mEntries.size(); i++) {
+                if (mEntries.get(i).object == object) {
+                    // 重复放入同一个对象，只更新为最近使用
+                    mEntries.add(mEntries.remove(i));
+                    return;
+                }
+            }
+            mEntries.add(new Entry<>(object, width, height, format, bytes));
+            mResidentBytes += bytes;
+            while (mResidentBytes > mMaxBytes) {
+                Entry<T> eldest = mEntries.remove(0);
+                mResidentBytes -= eldest.bytes;
+                if (evicted == null) {
+                    evicted = new ArrayList<>(2);
+                }
+                evicted.add(eldest.object);
+            }
+            residentBytes = mResidentBytes;
+        }
+        mMetrics.set(mResidentBytesName, residentBytes);
+        if (evicted != null) {
+            for (T eldest : evicted) {
+                evict(eldest);
+            }
+        }
+    }
+
+    /**
+     * 释放池中所有对象
+     */
+    public void clear() {
+        List<T> evicted = new ArrayList<>();
+        synchronized (this) {
+            for (Entry<T> entry : mEntries) {
+                evicted.add(entry.object);
+            }
+            mEntries.clear();
+            mResidentBytes = 0;
+        }
+        mMetrics.set(mResidentBytesName, 0);
+        for (T object : evicted) {
+            evict(object);
+        }
+    }
+
+    public synchronized long getResidentBytes() {
+        return mResidentBytes;
+    }
+
+    public synchronized int getSize() {
+        return mEntries.size();
+    }
+
+    public long getMaxBytes() {
+        return mMaxBytes;
+    }
+
+    public synchronized long getHitCount() {
+        return mHits;
+    }
+
+    public synchronized long getMissCount() {
+        return mMisses;
+    }
+
+    /**
+     * 命中率，没有取过对象时为0
+     */
+    public synchronized float getHitRate() {
+        long total = mHits + mMisses;
+        return total == 0 ? 0 : (float) mHits / total;
+    }
+
+    private void evict(T object) {
+        mMetrics.add(mEvictionsName, 1);
+        mEvictor.evict(object);
+    }
+
+    private static final class Entry<T> {
+        final T object;
+        final int width;
+        final int height;
+        final int format;
+        final long bytes;
+
+        Entry(T object, int width, int height, int format, long bytes) {
+            this.object = object;
+            this.width = width;
+            this.height = height;
+            this.format = format;
+            this.bytes = bytes;
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package com.okg.textrecognition.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @author okg
+ * @date 2026-10-18
+ * 描述：按阶段名称登记的耗时直方图，统计拍照到出结果各阶段的p50/p95/p99，以及计数器（如bitmap内存统计）
+ * 耗时由StageTimer以单调时钟计时后整体记录，阶段名称第一次出现时创建直方图，之后的记录不加锁、不分配对象
+ * 计数器可以累加，也可以作为当前值或最大值使用
+ * 输出为文本表格（调试浮层、日志）或JSON（附带机型等信息后上报，按机型对比）
+ */
+public final class MetricsRegistry {
+    /**
+     * StageTimer总耗时对应的名称
+     */
+    public static final String STAGE_TOTAL = "total";
+
+    private static final double[] PERCENTILES = {50, 95, 99};
+
+    private static volatile MetricsRegistry mInstance;
+
+    private final ConcurrentHashMap<String, LatencyHistogram> mHistograms = new ConcurrentHashMap<>();
+    /**
+     * 按第一次出现的顺序输出
+     */
+    private final List<String> mNames = new CopyOnWriteArrayList<>();
+    private final ConcurrentHashMap<String, AtomicLong> mCounters = new ConcurrentHashMap<>();
+    private final List<String> mCounterNames = new CopyOnWriteArrayList<>();
+
+    /**
+     * 应用内共享的实例
+     */
+    public static MetricsRegistry getInstance() {
+        if (mInstance == null) {
+            synchronized (MetricsRegistry.class) {
+                if (mInstance == null) {
+                    mInstance = new MetricsRegistry();
+                }
+            }
+        }
+        return mInstance;
+    }
+
+    /**
+     * 获取阶段对应的直方图，不存在时创建
+     */
+    public LatencyHistogram getHistogram(String name) {
+        LatencyHistogram histogram = mHistograms.get(name);
+        if (histogram == null) {
+            LatencyHistogram created = new LatencyHistogram();
+            histogram = mHistograms.putIfAbsent(name, created);
+            if (histogram == null) {
+                histogram = created;
+                mNames.add(name);
+            }
+        }
+        return histogram;
+    }
+
+    public void record(String name, long nanos) {
+        getHistogram(name).record(nanos);
+    }
+
+    /**
+     * 记录StageTimer的每个阶段及总耗时
+     */
+    public void record(StageTimer timer) {
+        for (int i = 0; i < timer.getStageCount(); i++) {
+            record(timer.getStageName(i), timer.getStageNanos(i));
+        }
+        record(STAGE_TOTAL, timer.getTotalNanos());
+    }
+
+    /**
+     * 获取计数器，不存在时创建
+     */
+    public AtomicLong getCounter(String name) {
+        AtomicLong counter = mCounters.get(name);
+        if (counter == null) {
+            AtomicLong created = new AtomicLong();
+            counter = mCounters.putIfAbsent(name, created);
+            if (counter == null) {
+                counter = created;
+                mCounterNames.add(name);
+            }
+        }
+        return counter;
+    }
+
+    public void add(String name, long delta) {
+        getCounter(name).addAndGet(delta);
+    }
+
+    public void set(String name, long value) {
+        getCounter(name).set(value);
+    }
+
+    /**
+     * 计数器取较大值，用于记录峰值
+     */
+    public void updateMax(String name, long value) {
+        AtomicLong counter = getCounter(name);
+        long max;
+        while (value > (max = counter.get())) {
+            if (counter.compareAndSet(max, value)) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * 计数器的值，不存在时为0
+     */
+    public long getCounterValue(String name) {
+        AtomicLong counter = mCounters.get(name);
+        return counter == null ? 0 : counter.get();
+    }
+
+    /**
+     * 已登记的阶段名称，按第一次出现的顺序
+     */
+    public List<String> getNames() {
+        return new ArrayList<>(mNames);
+    }
+
+    public void reset() {
+        for (String name : mNames) {
+            mHistograms.get(name).reset();
+        }
+        for (String name : mCounterNames) {
+            mCounters.get(name).set(0);
+        }
+    }
+
+    /**
+     * 文本表格，耗时单位ms
+     */
+    public String toText() {
+        StringBuilder builder = new StringBuilder(64 + mNames.size() * 48);
+        builder.append(String.format(Locale.US, "%-12s%6s%8s%8s%8s%8s", "stage", "n", "p50", "p95", "p99", "max"));
+        for (String name : mNames) {
+            LatencyHistogram histogram = mHistograms.get(name);
+            builder.append('\n').append(String.format(Locale.US, "%-12s%6d", name, histogram.getCount()));
+            for (double percentile : PERCENTILES) {
+                builder.append(String.format(Locale.US, "%8.1f", histogram.getPercentileNanos(percentile) / 1e6));
+            }
+            builder.append(String.format(Locale.US, "%8.1f", histogram.getMaxNanos() / 1e6));
+        }
+        for (String name : mCounterNames) {
+            builder.append('\n').append(name).append(' ').append(mCounters.get(name).get());
+        }
+        return builder.toString();
+    }
+
+    /**
+     * JSON，耗时单位µs，如{"stages":[{"name":"parse","count":3,"mean":800,"p50":700,"p95":1200,"p99":1200,"max":1250}],"counters":{"bitmap.recycled":3}}
+     */
+    public String toJson() {
+        StringBuilder builder = new StringBuilder(32 + mNames.size() * 96);
+        builder.append("{\"stages\":[");
+        boolean first = true;
+        for (String name : mNames) {
+            LatencyHistogram histogram = mHistograms.get(name);
+            if (!first) {
+                builder.append(',');
+            }
+            first = false;
+            builder.append("{\"name\":\"").append(name).append("\",\"count\":").append(histogram.getCount())
+                    .append(",\"mean\":").append(histogram.getMeanNanos() / 1000);
+            for (double percentile : PERCENTILES) {
+                builder.append(",\"p").append((int) percentile).append("\":").append(histogram.getPercentileNanos(percentile) / 1000);
+            }
+            builder.append(",\"max\":").append(histogram.getMaxNanos() / 1000).append('}');
+        }
+        builder.append("],\"counters\":{");
+        first = true;
+        for (String name : mCounterNames) {
+            if (!first) {
+                builder.append(',');
+            }
+            first = false;
+            builder.append('"').append(name).append("\":").append(mCounters.get(name).get());
+        }
+        return builder.append("}}").toString();
+    }
+}
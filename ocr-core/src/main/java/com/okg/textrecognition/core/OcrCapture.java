@@ -0,0 +1,256 @@
+package com.okg.textrecognition.core;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * @author okg
+ * @date 2026-10-18
+ * 描述：识别结果的二进制采集格式，保存ML Kit识别结果的block、line、边界框、角点及文本，供离线回放解析
+ * 格式（大端）：
+ * 魔数"OKGC"、版本号(1字节)、采集时间(long)、附加信息(UTF)、采集时解析到的imei1/imei2/sn(各一个UTF)，
+ * 之后为记录序列，每条记录以1字节标签开头：
+ * TAG_BLOCK：边界框4个变长整数
+ * TAG_LINE：文本(UTF)、边界框4个变长整数、标志位(1字节)，有角点时再跟8个变长整数及角度(float)
+ * TAG_END：结束
+ * 变长整数为zigzag编码后的7位分组，坐标通常只占1~2字节
+ */
+public final class OcrCapture {
+    public static final String FILE_EXTENSION = ".ocrc";
+
+    private static final int MAGIC = 0x4F4B4743;
+    private static final int VERSION = 1;
+    private static final int TAG_END = 0;
+    private static final int TAG_BLOCK = 1;
+    private static final int TAG_LINE = 2;
+    private static final int FLAG_CORNERS = 1;
+
+    private final long mTimestamp;
+    private final String mMetadata;
+    private final String[] mRecordedValues;
+    private final OcrDocument mDocument;
+
+    private OcrCapture(long timestamp, String metadata, String[] recordedValues, OcrDocument document) {
+        mTimestamp = timestamp;
+        mMetadata = metadata;
+        mRecordedValues = recordedValues;
+        mDocument = document;
+    }
+
+    /**
+     * 采集时间，毫秒
+     */
+    public long getTimestamp() {
+        return mTimestamp;
+    }
+
+    /**
+     * 采集时附加的信息，如机型、应用版本
+     */
+    public String getMetadata() {
+        return mMetadata;
+    }
+
+    /**
+     * 采集时设备上解析到的字段值
+     *
+     * @param field DeviceInfo.FIELD_*
+     */
+    public String getRecordedValue(int field) {
+        return mRecordedValues[field];
+    }
+
+    /**
+     * 按采集内容重建的文档，以角点采集的行同样会做基线纠偏
+     */
+    public OcrDocument getDocument() {
+        return mDocument;
+    }
+
+    /**
+     * 读取一个采集，不关闭输入流
+     *
+     * @param input
+     * @return
+     * @throws IOException 格式或版本不正确、内容截断或损坏时抛出
+     */
+    public static OcrCapture read(InputStream input) throws IOException {
+        DataInputStream in = new DataInputStream(input);
+        if (in.readInt() != MAGIC) {
+            throw new IOException("not an ocr capture");
+        }
+        int version = in.readUnsignedByte();
+        if (version != VERSION) {
+            throw new IOException("unsupported capture version: " + version);
+        }
+        long timestamp = in.readLong();
+        String metadata = in.readUTF();
+        String[] recorded = new String[DeviceInfo.FIELD_COUNT];
+        for (int field = 0; field < DeviceInfo.FIELD_COUNT; field++) {
+            recorded[field] = in.readUTF();
+        }
+        OcrDocument.Builder builder = new OcrDocument.Builder();
+        int[] corners = new int[8];
+        boolean blockStarted = false;
+        while (true) {
+            int tag = in.readUnsignedByte();
+            if (tag == TAG_END) {
+                break;
+            }
+            if (tag == TAG_BLOCK) {
+                builder.beginBlock(readVarInt(in), readVarInt(in), readVarInt(in), readVarInt(in));
+                blockStarted = true;
+            } else if (tag == TAG_LINE) {
+                if (!blockStarted) {
+                    throw new IOException("line before block");
+                }
+                String text = in.readUTF();
+                int left = readVarInt(in);
+                int top = readVarInt(in);
+                int right = readVarInt(in);
+                int bottom = readVarInt(in);
+                int flags = in.readUnsignedByte();
+                if ((flags & FLAG_CORNERS) != 0) {
+                    for (int i = 0; i < 8; i++) {
+                        corners[i] = readVarInt(in);
+                    }
+                    builder.addLine(text, corners, in.readFloat());
+                } else {
+                    builder.addLine(text, left, top, right, bottom);
+                }
+            } else {
+                throw new IOException("unknown capture tag: " + tag);
+            }
+        }
+        return new OcrCapture(timestamp, metadata, recorded, builder.build());
+    }
+
+    private static int readVarInt(DataInputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = in.read();
+            if (b < 0) {
+                throw new EOFException();
+            }
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return (value >>> 1) ^ -(value & 1);
+            }
+        }
+        throw new IOException("malformed varint");
+    }
+
+    /**
+     * 采集写入器，按block、line的顺序调用，最后调用finish()
+     * 写入过程中的IOException先保存下来，在finish()中抛出，便于与OcrDocument.Builder共用同一次遍历
+     * 写入器不关闭输出流，非线程安全
+     */
+    public static final class Writer implements OcrDocumentSink {
+        private final DataOutputStream mOut;
+        private boolean mFinished;
+        /**
+         * 第一次写入失败的异常，之后的写入直接忽略
+         */
+        private IOException mError;
+
+        /**
+         * 写入文件头
+         *
+         * @param output
+         * @param timestamp 采集时间，毫秒
+         * @param metadata  附加信息，可为null
+         * @param recorded  采集时设备上的解析结果，可为null
+         */
+        public Writer(OutputStream output, long timestamp, String metadata, DeviceInfo recorded) throws IOException {
+            mOut = new DataOutputStream(output);
+            mOut.writeInt(MAGIC);
+            mOut.writeByte(VERSION);
+            mOut.writeLong(timestamp);
+            mOut.writeUTF(metadata == null ? "" : metadata);
+            for (int field = 0; field < DeviceInfo.FIELD_COUNT; field++) {
+                mOut.writeUTF(recorded == null ? "" : recorded.getValue(field));
+            }
+        }
+
+        @Override
+        public Writer beginBlock(int left, int top, int right, int bottom) {
+            if (mError != null) {
+                return this;
+            }
+            try {
+                mOut.writeByte(TAG_BLOCK);
+                writeVarInt(left);
+                writeVarInt(top);
+                writeVarInt(right);
+                writeVarInt(bottom);
+            } catch (IOException e) {
+                mError = e;
+            }
+            return this;
+        }
+
+        /**
+         * @param text
+         * @param left    没有边界信息时为OcrDocument.NO_BOUND
+         * @param top
+         * @param right
+         * @param bottom
+         * @param corners 8个int：左上、右上、右下、左下的x、y，可为null
+         * @param angle   行的旋转角度（度），没有时为NaN
+         */
+        @Override
+        public Writer addLine(CharSequence text, int left, int top, int right, int bottom, int[] corners, float angle) {
+            if (mError != null) {
+                return this;
+            }
+            try {
+                mOut.writeByte(TAG_LINE);
+                mOut.writeUTF(text == null ? "" : text.toString());
+                writeVarInt(left);
+                writeVarInt(top);
+                writeVarInt(right);
+                writeVarInt(bottom);
+                boolean hasCorners = corners != null && corners.length >= 8;
+                mOut.writeByte(hasCorners ? FLAG_CORNERS : 0);
+                if (hasCorners) {
+                    for (int i = 0; i < 8; i++) {
+                        writeVarInt(corners[i]);
+                    }
+                    mOut.writeFloat(angle);
+                }
+            } catch (IOException e) {
+                mError = e;
+            }
+            return this;
+        }
+
+        /**
+         * 写入结束标签并flush
+         *
+         * @throws IOException 之前的写入失败时抛出第一次失败的异常
+         */
+        public void finish() throws IOException {
+            if (mError != null) {
+                throw mError;
+            }
+            if (!mFinished) {
+                mFinished = true;
+                mOut.writeByte(TAG_END);
+                mOut.flush();
+            }
+        }
+
+        private void writeVarInt(int value) throws IOException {
+            int zigzag = (value << 1) ^ (value >> 31);
+            while ((zigzag & ~0x7F) != 0) {
+                mOut.writeByte((zigzag & 0x7F) | 0x80);
+                zigzag >>>= 7;
+            }
+            mOut.writeByte(zigzag);
+        }
+    }
+}
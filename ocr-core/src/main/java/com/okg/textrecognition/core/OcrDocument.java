@@ -0,0 +1,342 @@
+package com.okg.textrecognition.core;
+
+import java.util.Arrays;
+
+/**
+ * @author okg
+ * @date 2026-10-18
+ * 描述：识别结果的紧凑文档模型，由ML Kit的Text转换一次后供所有解析器使用
+ * 边界框以int[]平铺存储（每个block/line占4个int：left、top、right、bottom），
+ * 所有文本共用一个char[]缓冲区，行与行之间以'\n'分隔，block文本即其首行起点到末行终点的区间
+ * 以角点添加行时，构建时估计文本的主基线角度并把所有边界框旋转到基线坐标系，之后的重叠、邻近查询不受拍摄倾斜影响
+ */
+public final class OcrDocument {
+    /**
+     * 无边界信息时的占位值，此类block/line不会与任何其它block重叠
+     */
+    public static final int NO_BOUND = Integer.MIN_VALUE;
+
+    private final int mBlockCount;
+    private final int mLineCount;
+    private final int[] mBlockBoxes;
+    private final int[] mLineBoxes;
+    /**
+     * 长度为blockCount + 1，block i的行下标区间为[mBlockLineOffsets[i], mBlockLineOffsets[i + 1])
+     */
+    private final int[] mBlockLineOffsets;
+    private final int[] mLineStarts;
+    private final int[] mLineEnds;
+    private final char[] mText;
+    private final int mTextLength;
+    private final float mBaselineAngle;
+
+    private OcrDocument(Builder builder) {
+        mBlockCount = builder.mBlockCount;
+        mLineCount = builder.mLineCount;
+        mBlockBoxes = builder.mBlockBoxes;
+        mLineBoxes = builder.mLineBoxes;
+        mBlockLineOffsets = builder.mBlockLineOffsets;
+        mLineStarts = builder.mLineStarts;
+        mLineEnds = builder.mLineEnds;
+        mText = builder.mText;
+        mTextLength = builder.mTextLength;
+        mBaselineAngle = builder.mBaselineAngle;
+    }
+
+    public int getBlockCount() {
+        return mBlockCount;
+    }
+
+    /**
+     * 文本主基线相对图像水平方向的角度（度，顺时针为正），不为0时所有边界框均位于旋转了该角度的基线坐标系中
+     */
+    public float getBaselineAngle() {
+        return mBaselineAngle;
+    }
+
+    public int getLineCount() {
+        return mLineCount;
+    }
+
+    /**
+     * block边界数组，每个block占4个int，不可修改
+     *
+     * @return
+     */
+    public int[] getBlockBoxes() {
+        return mBlockBoxes;
+    }
+
+    public int getBlockLeft(int block) {
+        return mBlockBoxes[block << 2];
+    }
+
+    public int getBlockTop(int block) {
+        return mBlockBoxes[(block << 2) + 1];
+    }
+
+    public int getBlockRight(int block) {
+        return mBlockBoxes[(block << 2) + 2];
+    }
+
+    public int getBlockBottom(int block) {
+        return mBlockBoxes[(block << 2) + 3];
+    }
+
+    public int getBlockCenterY(int block) {
+        return (getBlockTop(block) + getBlockBottom(block)) >> 1;
+    }
+
+    public int getLineLeft(int line) {
+        return mLineBoxes[line << 2];
+    }
+
+    public int getLineTop(int line) {
+        return mLineBoxes[(line << 2) + 1];
+    }
+
+    public int getLineRight(int line) {
+        return mLineBoxes[(line << 2) + 2];
+    }
+
+    public int getLineBottom(int line) {
+        return mLineBoxes[(line << 2) + 3];
+    }
+
+    /**
+     * block第一行的行下标
+     */
+    public int getBlockLineStart(int block) {
+        return mBlockLineOffsets[block];
+    }
+
+    /**
+     * block最后一行的下一个行下标
+     */
+    public int getBlockLineEnd(int block) {
+        return mBlockLineOffsets[block + 1];
+    }
+
+    public int getBlockLineCount(int block) {
+        return mBlockLineOffsets[block + 1] - mBlockLineOffsets[block];
+    }
+
+    /**
+     * 共享的文本缓冲区，只读，有效长度为getTextLength()
+     *
+     * @return
+     */
+    public char[] getTextBuffer() {
+        return mText;
+    }
+
+    public int getTextLength() {
+        return mTextLength;
+    }
+
+    public int getLineTextStart(int line) {
+        return mLineStarts[line];
+    }
+
+    public int getLineTextEnd(int line) {
+        return mLineEnds[line];
+    }
+
+    public int getBlockTextStart(int block) {
+        if (getBlockLineCount(block) == 0) {
+            return 0;
+        }
+        return mLineStarts[mBlockLineOffsets[block]];
+    }
+
+    public int getBlockTextEnd(int block) {
+        if (getBlockLineCount(block) == 0) {
+            return 0;
+        }
+        return mLineEnds[mBlockLineOffsets[block + 1] - 1];
+    }
+
+    /**
+     * 获取行文本，会创建新的String，热路径上优先直接使用文本缓冲区
+     */
+    public String getLineText(int line) {
+        return new String(mText, mLineStarts[line], mLineEnds[line] - mLineStarts[line]);
+    }
+
+    /**
+     * 获取block文本（各行以'\n'连接），与Text.TextBlock.getText()一致
+     */
+    public String getBlockText(int block) {
+        int start = getBlockTextStart(block);
+        return new String(mText, start, getBlockTextEnd(block) - start);
+    }
+
+    /**
+     * 获取全部文本（各block以'\n'连接），与Text.getText()一致
+     */
+    public String getFullText() {
+        return new String(mText, 0, mTextLength);
+    }
+
+    /**
+     * 文档构建器，按block、line的顺序依次添加
+     */
+    public static final class Builder implements OcrDocumentSink {
+        private int mBlockCount;
+        private int mLineCount;
+        private int[] mBlockBoxes;
+        private int[] mLineBoxes;
+        private int[] mBlockLineOffsets;
+        private int[] mLineStarts;
+        private int[] mLineEnds;
+        private char[] mText;
+        private int mTextLength;
+        /**
+         * 各行角点，每行8个int（左上、右上、右下、左下的x、y），只在以角点添加过行时创建，没有角点的行第一个值为NO_BOUND
+         */
+        private int[] mLineCorners;
+        private float[] mLineAngles;
+        private float mBaselineAngle;
+
+        public Builder() {
+            this(16, 32, 512);
+        }
+
+        /**
+         * @param blockCapacity 预估block数量
+         * @param lineCapacity  预估line数量
+         * @param textCapacity  预估文本长度
+         */
+        public Builder(int blockCapacity, int lineCapacity, int textCapacity) {
+            blockCapacity = Math.max(blockCapacity, 1);
+            lineCapacity = Math.max(lineCapacity, 1);
+            mBlockBoxes = new int[blockCapacity << 2];
+            mBlockLineOffsets = new int[blockCapacity + 1];
+            mLineBoxes = new int[lineCapacity << 2];
+            mLineStarts = new int[lineCapacity];
+            mLineEnds = new int[lineCapacity];
+            mText = new char[Math.max(textCapacity, 16)];
+        }
+
+        /**
+         * 开始一个新的block，之后添加的line均属于该block
+         */
+        @Override
+        public Builder beginBlock(int left, int top, int right, int bottom) {
+            if (mBlockCount + 1 >= mBlockLineOffsets.length) {
+                int capacity = (mBlockLineOffsets.length - 1) << 1;
+                mBlockLineOffsets = Arrays.copyOf(mBlockLineOffsets, capacity + 1);
+                mBlockBoxes = Arrays.copyOf(mBlockBoxes, capacity << 2);
+            }
+            int offset = mBlockCount << 2;
+            mBlockBoxes[offset] = left;
+            mBlockBoxes[offset + 1] = top;
+            mBlockBoxes[offset + 2] = right;
+            mBlockBoxes[offset + 3] = bottom;
+            mBlockCount++;
+            mBlockLineOffsets[mBlockCount] = mLineCount;
+            return this;
+        }
+
+        /**
+         * 向当前block添加一行
+         */
+        public Builder addLine(CharSequence text, int left, int top, int right, int bottom) {
+            if (mBlockCount == 0) {
+                throw new IllegalStateException("beginBlock() must be called before addLine()");
+            }
+            if (mLineCount == mLineStarts.length) {
+                int capacity = mLineStarts.length << 1;
+                mLineStarts = Arrays.copyOf(mLineStarts, capacity);
+                mLineEnds = Arrays.copyOf(mLineEnds, capacity);
+                mLineBoxes = Arrays.copyOf(mLineBoxes, capacity << 2);
+            }
+            int length = text == null ? 0 : text.length();
+            ensureTextCapacity(mTextLength + length + 1);
+            if (mLineCount > 0) {
+                mText[mTextLength++] = '\n';
+            }
+            mLineStarts[mLineCount] = mTextLength;
+            for (int i = 0; i < length; i++) {
+                mText[mTextLength++] = text.charAt(i);
+            }
+            mLineEnds[mLineCount] = mTextLength;
+            int offset = mLineCount << 2;
+            mLineBoxes[offset] = left;
+            mLineBoxes[offset + 1] = top;
+            mLineBoxes[offset + 2] = right;
+            mLineBoxes[offset + 3] = bottom;
+            if (mLineCorners != null) {
+                ensureCornerCapacity();
+                mLineCorners[mLineCount << 3] = NO_BOUND;
+            }
+            mLineCount++;
+            mBlockLineOffsets[mBlockCount] = mLineCount;
+            return this;
+        }
+
+        /**
+         * 以角点向当前block添加一行，边界框为角点的外接矩形
+         *
+         * @param text
+         * @param corners 8个int：左上、右上、右下、左下的x、y（ML Kit的Text.Line.getCornerPoints()），为null时没有边界信息
+         * @param angle   行的旋转角度（度，顺时针为正，ML Kit的Text.Line.getAngle()），为NaN时由角点计算
+         */
+        public Builder addLine(CharSequence text, int[] corners, float angle) {
+            if (corners == null || corners.length < 8) {
+                return addLine(text, NO_BOUND, NO_BOUND, NO_BOUND, NO_BOUND);
+            }
+            int left = Math.min(Math.min(corners[0], corners[2]), Math.min(corners[4], corners[6]));
+            int top = Math.min(Math.min(corners[1], corners[3]), Math.min(corners[5], corners[7]));
+            int right = Math.max(Math.max(corners[0], corners[2]), Math.max(corners[4], corners[6]));
+            int bottom = Math.max(Math.max(corners[1], corners[3]), Math.max(corners[5], corners[7]));
+            if (mLineCorners == null) {
+                // 第一次以角点添加行，之前的行均没有角点
+                mLineCorners = new int[mLineStarts.length << 3];
+                mLineAngles = new float[mLineStarts.length];
+                for (int i = 0; i < mLineCount; i++) {
+                    mLineCorners[i << 3] = NO_BOUND;
+                }
+            }
+            int line = mLineCount;
+            addLine(text, left, top, right, bottom);
+            System.arraycopy(corners, 0, mLineCorners, line << 3, 8);
+            mLineAngles[line] = Float.isNaN(angle) ? BaselineDeskew.angleOf(corners) : angle;
+            return this;
+        }
+
+        /**
+         * 向当前block添加一行，有角点时以角点添加，否则以边界框添加
+         */
+        @Override
+        public Builder addLine(CharSequence text, int left, int top, int right, int bottom, int[] corners, float angle) {
+            if (corners != null && corners.length >= 8) {
+                return addLine(text, corners, angle);
+            }
+            return addLine(text, left, top, right, bottom);
+        }
+
+        /**
+         * 生成文档，文档直接引用构建器内部数组，构建后不要再继续使用该构建器
+         */
+        public OcrDocument build() {
+            if (mLineCorners != null) {
+                mBaselineAngle = BaselineDeskew.apply(mBlockCount, mBlockBoxes, mBlockLineOffsets, mLineCount, mLineBoxes, mLineCorners, mLineAngles);
+            }
+            return new OcrDocument(this);
+        }
+
+        private void ensureCornerCapacity() {
+            if (mLineCorners.length < mLineStarts.length << 3) {
+                mLineCorners = Arrays.copyOf(mLineCorners, mLineStarts.length << 3);
+                mLineAngles = Arrays.copyOf(mLineAngles, mLineStarts.length);
+            }
+        }
+
+        private void ensureTextCapacity(int capacity) {
+            if (capacity > mText.length) {
+                mText = Arrays.copyOf(mText, Math.max(capacity, mText.length << 1));
+            }
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.okg.textrecognition.core;
+
+/**
+ * @author okg
+ * @date 2026-10-18
+ * 描述：按block、line的顺序接收识别结果，OcrDocument.Builder（构建文档）及OcrCapture.Writer（保存采集）均实现该接口，
+ * 应用中由同一次遍历驱动，保证保存的采集回放时重建出与设备上解析的文档完全相同的文档
+ */
+public interface OcrDocumentSink {
+
+    /**
+     * 开始一个新的block，之后添加的line均属于该block
+     */
+    OcrDocumentSink beginBlock(int left, int top, int right, int bottom);
+
+    /**
+     * 向当前block添加一行，有角点时以角点为准（边界框为角点的外接矩形），否则使用边界框
+     *
+     * @param text
+     * @param left    没有边界信息时为OcrDocument.NO_BOUND
+     * @param top
+     * @param right
+     * @param bottom
+     * @param corners 8个int：左上、右上、右下、左下的x、y，可为null
+     * @param angle   行的旋转角度（度），没有时为NaN
+     */
+    OcrDocumentSink addLine(CharSequence text, int left, int top, int right, int bottom, int[] corners, float angle);
+}
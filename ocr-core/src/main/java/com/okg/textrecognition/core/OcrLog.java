@@ -0,0 +1,187 @@
+package com.okg.textrecognition.core;
+
+/**
+ * @author okg
+ * @date 2026-10-18
+ * 描述：分级日志门面，解析模块及应用统一使用，模块本身不依赖Android，由宿主设置具体的日志输出及最低级别
+ * 日志内容在确认需要输出后才生成：
+ * 1. 带{}占位符的格式化方法，参数直接传入对象，低于最低级别时不拼接字符串（基本类型参数仍会装箱，热路径上先用isLoggable判断）
+ * 2. Message接口，内容需要计算（如取block文本）时使用
+ * 3. 需要多行计算时用isLoggable包裹，只用于DEBUG及以下级别（发布包混淆时视为false）
+ * 发布构建可通过混淆规则（-assumenosideeffects、-assumevalues）在编译期去掉v/d/i调用及isLoggable包裹的代码，见app/proguard-rules.pro
+ */
+public final class OcrLog {
+    /**
+     * 级别取值与android.util.Log一致，宿主可直接转发
+     */
+    public static final int VERBOSE = 2;
+    public static final int DEBUG = 3;
+    public static final int INFO = 4;
+    public static final int WARN = 5;
+    public static final int ERROR = 6;
+    /**
+     * 关闭所有日志
+     */
+    public static final int NONE = Integer.MAX_VALUE;
+
+    /**
+     * 日志输出接口
+     */
+    public interface Printer {
+        /**
+         * @param level 级别，见OcrLog.VERBOSE等
+         * @param tag
+         * @param msg
+         * @param tr    可为null
+         */
+        void print(int level, String tag, String msg, Throwable tr);
+    }
+
+    /**
+     * 延迟生成的日志内容，只在需要输出时调用
+     */
+    public interface Message {
+        String get();
+    }
+
+    private static volatile Printer sPrinter;
+    private static volatile int sMinLevel = NONE;
+
+    private OcrLog() {
+
+    }
+
+    /**
+     * 设置日志输出，传null关闭日志
+     *
+     * @param printer
+     * @param minLevel 低于该级别的日志不输出
+     */
+    public static void setPrinter(Printer printer, int minLevel) {
+        sPrinter = printer;
+        sMinLevel = printer == null ? NONE : minLevel;
+    }
+
+    /**
+     * 该级别的日志是否会输出，拼接日志内容需要额外计算或创建对象时先判断
+     */
+    public static boolean isLoggable(int level) {
+        return shouldPrint(level);
+    }
+
+    public static void v(String tag, String msg) {
+        print(VERBOSE, tag, msg, null);
+    }
+
+    public static void d(String tag, String msg) {
+        print(DEBUG, tag, msg, null);
+    }
+
+    public static void d(String tag, String format, Object arg) {
+        if (shouldPrint(DEBUG)) {
+            print(DEBUG, tag, format(format, arg, null, null, 1), null);
+        }
+    }
+
+    public static void d(String tag, String format, Object arg1, Object arg2) {
+        if (shouldPrint(DEBUG)) {
+            print(DEBUG, tag, format(format, arg1, arg2, null, 2), null);
+        }
+    }
+
+    public static void d(String tag, String format, Object arg1, Object arg2, Object arg3) {
+        if (shouldPrint(DEBUG)) {
+            print(DEBUG, tag, format(format, arg1, arg2, arg3, 3), null);
+        }
+    }
+
+    public static void d(String tag, Message message) {
+        if (shouldPrint(DEBUG)) {
+            print(DEBUG, tag, message.get(), null);
+        }
+    }
+
+    public static void i(String tag, String msg) {
+        print(INFO, tag, msg, null);
+    }
+
+    public static void i(String tag, String format, Object arg) {
+        if (shouldPrint(INFO)) {
+            print(INFO, tag, format(format, arg, null, null, 1), null);
+        }
+    }
+
+    public static void i(String tag, String format, Object arg1, Object arg2) {
+        if (shouldPrint(INFO)) {
+            print(INFO, tag, format(format, arg1, arg2, null, 2), null);
+        }
+    }
+
+    public static void w(String tag, String msg) {
+        print(WARN, tag, msg, null);
+    }
+
+    public static void w(String tag, String msg, Throwable tr) {
+        print(WARN, tag, msg, tr);
+    }
+
+    public static void w(String tag, String format, Object arg) {
+        if (shouldPrint(WARN)) {
+            print(WARN, tag, format(format, arg, null, null, 1), null);
+        }
+    }
+
+    public static void w(String tag, String format, Object arg1, Object arg2) {
+        if (shouldPrint(WARN)) {
+            print(WARN, tag, format(format, arg1, arg2, null, 2), null);
+        }
+    }
+
+    public static void e(String tag, String msg) {
+        print(ERROR, tag, msg, null);
+    }
+
+    public static void e(String tag, String msg, Throwable tr) {
+        print(ERROR, tag, msg, tr);
+    }
+
+    public static void e(String tag, String format, Object arg) {
+        if (shouldPrint(ERROR)) {
+            print(ERROR, tag, format(format, arg, null, null, 1), null);
+        }
+    }
+
+    /**
+     * 内部判断不经过isLoggable，发布包的混淆规则把isLoggable视为false时不影响WARN、ERROR的格式化输出
+     */
+    private static boolean shouldPrint(int level) {
+        return level >= sMinLevel && sPrinter != null;
+    }
+
+    private static void print(int level, String tag, String msg, Throwable tr) {
+        Printer printer = sPrinter;
+        if (printer != null && level >= sMinLevel) {
+            printer.print(level, tag, msg, tr);
+        }
+    }
+
+    /**
+     * 依次用参数替换format中的{}，多余的{}原样保留
+     */
+    static String format(String format, Object arg1, Object arg2, Object arg3, int argCount) {
+        StringBuilder builder = new StringBuilder(format.length() + 32 * argCount);
+        int arg = 0;
+        int start = 0;
+        while (true) {
+            int placeholder = arg < argCount ? format.indexOf("{}", start) : -1;
+            if (placeholder < 0) {
+                builder.append(format, start, format.length());
+                return builder.toString();
+            }
+            builder.append(format, start, placeholder);
+            builder.append(arg == 0 ? arg1 : arg == 1 ? arg2 : arg3);
+            arg++;
+            start = placeholder + 2;
+        }
+    }
+}
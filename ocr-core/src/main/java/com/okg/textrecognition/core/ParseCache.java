@@ -0,0 +1,173 @@
+package com.okg.textrecognition.core;
+
+/**
+ * @author okg
+ * @date 2026-10-18
+ * 描述：解析结果缓存，手机保持不动时连续几帧的识别文本相同，直接返回上次的解析结果
+ * 键为文档指纹：逐行归一化（ASCII字母转小写、跳过空白字符）后的行文本、每个block的行数及按网格量化后的block边界框的64位哈希，
+ * 只有大小写、空白或边界框几个像素不同的文档得到相同的键，返回的结果（含来源边界框）为第一次解析时的结果
+ * 固定容量，按最近使用淘汰，条目以数组存储，查找时线性扫描（容量很小），不装箱、不分配内存；线程安全
+ */
+public final class ParseCache {
+    public static final int DEFAULT_CAPACITY = 8;
+    /**
+     * 默认量化网格，单位像素
+     */
+    public static final int DEFAULT_GRID_SIZE = 16;
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final int mGridSize;
+    private final long[] mKeys;
+    private final DeviceInfo[] mValues;
+    /**
+     * 最近一次使用的序号，0表示空条目
+     */
+    private final long[] mLastUses;
+    private long mClock;
+    private long mHitCount;
+    private long mMissCount;
+
+    public ParseCache() {
+        this(DEFAULT_CAPACITY, DEFAULT_GRID_SIZE);
+    }
+
+    /**
+     * @param capacity 最多缓存的结果数
+     * @param gridSize 边界框量化网格，单位像素，为1时不量化
+     */
+    public ParseCache(int capacity, int gridSize) {
+        if (capacity < 1 || gridSize < 1) {
+            throw new IllegalArgumentException("capacity and gridSize must be positive");
+        }
+        mGridSize = gridSize;
+        mKeys = new long[capacity];
+        mValues = new DeviceInfo[capacity];
+        mLastUses = new long[capacity];
+    }
+
+    /**
+     * 先查缓存，未命中时解析并放入缓存
+     *
+     * @param parser
+     * @param document
+     * @return 解析结果，不会返回null
+     */
+    public DeviceInfo parse(ImeiSnParser parser, OcrDocument document) {
+        if (document == null || document.getBlockCount() == 0) {
+            return DeviceInfo.EMPTY;
+        }
+        long key = fingerprint(document, mGridSize);
+        DeviceInfo cached = get(key);
+        if (cached != null) {
+            return cached;
+        }
+        // 解析不持有锁，多个线程同时未命中同一个键时各自解析，结果相同
+        DeviceInfo result = parser.parse(document);
+        put(key, result);
+        return result;
+    }
+
+    /**
+     * @return 缓存的结果，没有时返回null
+     */
+    public synchronized DeviceInfo get(long key) {
+        int index = indexOf(key);
+        if (index < 0) {
+            mMissCount++;
+            return null;
+        }
+        mHitCount++;
+        mLastUses[index] = ++mClock;
+        return mValues[index];
+    }
+
+    public synchronized void put(long key, DeviceInfo value) {
+        int index = indexOf(key);
+        if (index < 0) {
+            // 淘汰最久未使用的条目，空条目的序号为0会被优先使用
+            index = 0;
+            for (int i = 1; i < mLastUses.length; i++) {
+                if (mLastUses[i] < mLastUses[index]) {
+                    index = i;
+                }
+            }
+        }
+        mKeys[index] = key;
+        mValues[index] = value;
+        mLastUses[index] = ++mClock;
+    }
+
+    public synchronized void clear() {
+        for (int i = 0; i < mLastUses.length; i++) {
+            mValues[i] = null;
+            mLastUses[i] = 0;
+        }
+    }
+
+    public synchronized long getHitCount() {
+        return mHitCount;
+    }
+
+    public synchronized long getMissCount() {
+        return mMissCount;
+    }
+
+    public synchronized void resetCounters() {
+        mHitCount = 0;
+        mMissCount = 0;
+    }
+
+    private int indexOf(long key) {
+        for (int i = 0; i < mKeys.length; i++) {
+            if (mLastUses[i] != 0 && mKeys[i] == key) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 计算文档指纹（FNV-1a），与缓存状态无关，行文本逐字符归一化后参与哈希，不创建中间字符串
+     *
+     * @param document
+     * @param gridSize 边界框量化网格，单位像素
+     * @return
+     */
+    public static long fingerprint(OcrDocument document, int gridSize) {
+        long hash = FNV_OFFSET;
+        char[] text = document.getTextBuffer();
+        int lineCount = document.getLineCount();
+        for (int line = 0; line < lineCount; line++) {
+            int end = document.getLineTextEnd(line);
+            for (int i = document.getLineTextStart(line); i < end; i++) {
+                char c = text[i];
+                if (!CharClass.is(c, CharClass.TRIMMABLE)) {
+                    hash = (hash ^ CharClass.foldCase(c)) * FNV_PRIME;
+                }
+            }
+            // 行分隔符本身是空白字符，单独混入，换行位置不同的文档仍然区分
+            hash = (hash ^ '\n') * FNV_PRIME;
+        }
+        int blockCount = document.getBlockCount();
+        hash = mix(hash, blockCount);
+        int[] boxes = document.getBlockBoxes();
+        for (int block = 0; block < blockCount; block++) {
+            hash = mix(hash, document.getBlockLineCount(block));
+            int offset = block << 2;
+            for (int i = 0; i < 4; i++) {
+                int bound = boxes[offset + i];
+                hash = mix(hash, bound == OcrDocument.NO_BOUND ? bound : Math.floorDiv(bound, gridSize));
+            }
+        }
+        return hash;
+    }
+
+    private static long mix(long hash, int value) {
+        for (int shift = 0; shift < 32; shift += 8) {
+            hash = (hash ^ ((value >>> shift) & 0xff)) * FNV_PRIME;
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,90 @@
+package com.okg.textrecognition.core;
+
+import java.util.Locale;
+
+/**
+ * @author okg
+ * @date 2026-10-18
+ * 描述：一次识别流程的分阶段计时，使用单调时钟System.nanoTime()
+ * 每次mark结束当前阶段并记录其耗时及所在线程，用于确认各阶段运行在预期的线程上、主线程上的阶段不超过一帧
+ * 各阶段可在不同线程中依次标记（线程间通过executor/Handler投递保证先后顺序），不支持并发标记
+ */
+public final class StageTimer {
+    /**
+     * 60fps下一帧的时长，主线程阶段超过该值会导致掉帧
+     */
+    public static final long FRAME_BUDGET_NANOS = 16_666_667L;
+    private static final int MAX_STAGES = 12;
+
+    private final String mName;
+    private final String[] mStages = new String[MAX_STAGES];
+    private final String[] mThreads = new String[MAX_STAGES];
+    private final long[] mDurations = new long[MAX_STAGES];
+    private final long mStartNanos;
+    private long mLastNanos;
+    private int mCount;
+
+    /**
+     * @param name 流程名称，用于输出
+     */
+    public StageTimer(String name) {
+        mName = name;
+        mStartNanos = System.nanoTime();
+        mLastNanos = mStartNanos;
+    }
+
+    /**
+     * 结束当前阶段，超过最大阶段数后的标记被忽略
+     *
+     * @param stage 阶段名称
+     * @return 该阶段耗时（纳秒）
+     */
+    public long mark(String stage) {
+        long now = System.nanoTime();
+        long duration = now - mLastNanos;
+        mLastNanos = now;
+        if (mCount < MAX_STAGES) {
+            mStages[mCount] = stage;
+            mThreads[mCount] = Thread.currentThread().getName();
+            mDurations[mCount] = duration;
+            mCount++;
+        }
+        return duration;
+    }
+
+    public int getStageCount() {
+        return mCount;
+    }
+
+    public String getStageName(int stage) {
+        return mStages[stage];
+    }
+
+    public String getStageThread(int stage) {
+        return mThreads[stage];
+    }
+
+    public long getStageNanos(int stage) {
+        return mDurations[stage];
+    }
+
+    /**
+     * 从创建到最后一次标记的总耗时
+     */
+    public long getTotalNanos() {
+        return mLastNanos - mStartNanos;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder(64 + mCount * 40);
+        builder.append(mName).append(':');
+        for (int i = 0; i < mCount; i++) {
+            builder.append(' ').append(mStages[i]).append('=')
+                    .append(String.format(Locale.US, "%.1fms", mDurations[i] / 1e6))
+                    .append('@').append(mThreads[i]);
+        }
+        builder.append(String.format(Locale.US, " total=%.1fms", getTotalNanos() / 1e6));
+        return builder.toString();
+    }
+}
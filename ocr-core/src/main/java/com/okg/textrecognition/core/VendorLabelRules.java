@@ -0,0 +1,43 @@
+package com.okg.textrecognition.core;
+
+/**
+ * @author okg
+ * @date 2026-10-18
+ * 描述：厂商标签规则表，新增标签格式只需在此登记，格式见LabelRule.parse
+ * 应用与离线回放（benchmark模块的ReplayRunner）共用同一份规则，保证回放时的解析与设备上一致
+ */
+public final class VendorLabelRules {
+    private static final String[] SPECS = {
+            "keywords=串号|IMEI号|IMEI No.; field=imei1; location=same_line; validator=imei",
+            "keywords=串号; field=imei1; location=next_line; validator=imei; prefix=true",
+            "keywords=SN码|产品序列号|Serial No.; field=sn; location=same_line; validator=sn",
+            "keywords=SN码|Serial No.; field=sn; location=horizontal; validator=sn",
+    };
+
+    private VendorLabelRules() {
+
+    }
+
+    /**
+     * 规则的文本形式
+     *
+     * @return 副本，可修改
+     */
+    public static String[] getSpecs() {
+        return SPECS.clone();
+    }
+
+    /**
+     * 编译为决策表
+     */
+    public static LabelRuleTable newDefaultTable() {
+        return LabelRuleTable.compile(SPECS);
+    }
+
+    /**
+     * 使用默认关键字表及厂商标签规则的解析器，与应用中使用的解析器相同
+     */
+    public static ImeiSnParser newDefaultParser() {
+        return new ImeiSnParser(KeywordTable.newDefaultMatcher(), newDefaultTable());
+    }
+}
@@ -0,0 +1,122 @@
+package com.okg.textrecognition.core;
+
+import java.nio.ByteBuffer;
+
+/**
+ * @author okg
+ * @date 2026-10-18
+ * 描述：预览帧取景框区域裁剪，在YUV_420_888的Y/UV平面上直接裁剪出取景框内的像素，输出NV21，只拷贝取景框内的数据
+ * 构造时通过FrameRegion把界面上取景框的坐标换算为传感器方向（未旋转）的帧坐标，每次相机会话只需计算一次
+ * 裁剪区域按2对齐，保证与色度平面（2x2采样）对应；输出仍为传感器方向，识别时按原旋转角度传入
+ * 模块本身不依赖Android，平面数据以ByteBuffer及行、像素跨距传入；实例不可变，可在多个线程中同时使用
+ */
+public final class YuvRoiCropper {
+    private final int mFrameWidth;
+    private final int mFrameHeight;
+    private final int mLeft;
+    private final int mTop;
+    private final int mWidth;
+    private final int mHeight;
+
+    /**
+     * @param viewLeft        取景框在界面上的坐标
+     * @param viewTop
+     * @param viewRight
+     * @param viewBottom
+     * @param viewWidth       预览界面尺寸
+     * @param viewHeight
+     * @param frameWidth      帧尺寸（传感器方向）
+     * @param frameHeight
+     * @param rotationDegrees 帧顺时针旋转该角度后与界面方向一致，只能为0、90、180、270
+     */
+    public YuvRoiCropper(float viewLeft, float viewTop, float viewRight, float viewBottom, int viewWidth, int viewHeight,
+                         int frameWidth, int frameHeight, int rotationDegrees) {
+        FrameRegion region = FrameRegion.fromView(viewLeft, viewTop, viewRight, viewBottom, viewWidth, viewHeight,
+                frameWidth, frameHeight, rotationDegrees, 2);
+        mFrameWidth = frameWidth;
+        mFrameHeight = frameHeight;
+        mLeft = region.getLeft();
+        mTop = region.getTop();
+        mWidth = region.getWidth();
+        mHeight = region.getHeight();
+    }
+
+    /**
+     * 裁剪为NV21（Y平面后接VU交错的色度平面）
+     *
+     * @param y             Y平面，像素跨距为1
+     * @param yRowStride
+     * @param u             U平面
+     * @param v             V平面
+     * @param uvRowStride   U、V平面的行跨距
+     * @param uvPixelStride U、V平面的像素跨距
+     * @param out           输出缓冲，长度不小于getNv21Size()
+     */
+    public void cropToNv21(ByteBuffer y, int yRowStride, ByteBuffer u, ByteBuffer v, int uvRowStride, int uvPixelStride, byte[] out) {
+        if (out == null || out.length < getNv21Size()) {
+            throw new IllegalArgumentException("out must hold at least " + getNv21Size() + " bytes");
+        }
+        // 整行的Y数据批量拷贝，使用duplicate()不改变调用方缓冲的position
+        ByteBuffer yRows = y.duplicate();
+        int offset = 0;
+        for (int row = 0; row < mHeight; row++) {
+            yRows.position((mTop + row) * yRowStride + mLeft);
+            yRows.get(out, offset, mWidth);
+            offset += mWidth;
+        }
+        int chromaLeft = mLeft / 2;
+        int chromaTop = mTop / 2;
+        int chromaWidth = mWidth / 2;
+        int chromaHeight = mHeight / 2;
+        for (int row = 0; row < chromaHeight; row++) {
+            int index = (chromaTop + row) * uvRowStride + chromaLeft * uvPixelStride;
+            for (int col = 0; col < chromaWidth; col++) {
+                out[offset++] = v.get(index);
+                out[offset++] = u.get(index);
+                index += uvPixelStride;
+            }
+        }
+    }
+
+    /**
+     * NV21输出的字节数
+     */
+    public int getNv21Size() {
+        return mWidth * mHeight * 3 / 2;
+    }
+
+    /**
+     * 裁剪区域在帧中的位置及尺寸（传感器方向）
+     */
+    public int getLeft() {
+        return mLeft;
+    }
+
+    public int getTop() {
+        return mTop;
+    }
+
+    public int getWidth() {
+        return mWidth;
+    }
+
+    public int getHeight() {
+        return mHeight;
+    }
+
+    public int getFrameWidth() {
+        return mFrameWidth;
+    }
+
+    public int getFrameHeight() {
+        return mFrameHeight;
+    }
+
+    /**
+     * 裁剪区域占整帧像素的比例
+     */
+    public float getAreaRatio() {
+        return (float) mWidth * mHeight / ((float) mFrameWidth * mFrameHeight);
+    }
+
+}
@@ -0,0 +1,58 @@
+package com.okg.textrecognition.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * 图片内存账本的单元测试，以普通对象代替Bitmap
+ */
+public class BitmapLedgerTest {
+
+    @Test
+    public void scan_tracksBytesPerStageAndPeak() {
+        MetricsRegistry metrics = new MetricsRegistry();
+        BitmapLedger ledger = new BitmapLedger(metrics);
+        Object decoded = new Object();
+        Object rotated = new Object();
+        Object cropped = new Object();
+        ledger.beginScan();
+        ledger.onAllocated(decoded, "decode", 1000);
+        ledger.onAllocated(rotated, "rotate", 1000);
+        assertTrue(ledger.onRecycled(decoded, false, "rotate"));
+        ledger.onAllocated(cropped, "crop", 200);
+        // createBitmap直接返回原图时不重复计入
+        ledger.onAllocated(cropped, "crop", 200);
+        assertTrue(ledger.onRecycled(rotated, false, "crop"));
+
+        assertEquals(2000, ledger.endScan());
+        assertEquals(200, ledger.getLiveBytes());
+        assertEquals(1, ledger.getLiveCount());
+        assertEquals(1000, metrics.getCounterValue(BitmapLedger.COUNTER_BYTES_PREFIX + "decode"));
+        assertEquals(200, metrics.getCounterValue(BitmapLedger.COUNTER_BYTES_PREFIX + "crop"));
+        assertEquals(3, metrics.getCounterValue(BitmapLedger.COUNTER_ALLOCATED));
+        assertEquals(2, metrics.getCounterValue(BitmapLedger.COUNTER_RECYCLED));
+        assertEquals(2000, metrics.getCounterValue(BitmapLedger.COUNTER_PEAK_BYTES));
+        assertEquals(2000, metrics.getCounterValue(BitmapLedger.COUNTER_SCAN_PEAK_BYTES));
+
+        // 下一次扫描的峰值从当前存活字节数开始
+        ledger.beginScan();
+        assertEquals(200, ledger.endScan());
+    }
+
+    @Test
+    public void onRecycled_countsDoubleRecycleAndUseAfterRecycle() {
+        MetricsRegistry metrics = new MetricsRegistry();
+        BitmapLedger ledger = new BitmapLedger(metrics);
+        Object bitmap = new Object();
+        ledger.onAllocated(bitmap, "decode", 100);
+        assertTrue(ledger.onRecycled(bitmap, false, "first"));
+        assertFalse(ledger.onRecycled(bitmap, true, "second"));
+        ledger.onUseAfterRecycle("show");
+        assertEquals(0, ledger.getLiveBytes());
+        assertEquals(1, metrics.getCounterValue(BitmapLedger.COUNTER_RECYCLED));
+        assertEquals(1, metrics.getCounterValue(BitmapLedger.COUNTER_DOUBLE_RECYCLE));
+        assertEquals(1, metrics.getCounterValue(BitmapLedger.COUNTER_USE_AFTER_RECYCLE));
+        assertTrue(metrics.toJson().contains("\"bitmap.double_recycle\":1"));
+    }
+}
@@ -0,0 +1,85 @@
+package com.okg.textrecognition.core;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * 空间索引单元测试，与逐块扫描方式的结果对比；解析耗时随block数的变化见benchmark模块的ParserBenchmark
+ */
+public class BlockSpatialIndexTest {
+
+    @Test
+    public void findOverlapping_matchesLinearScan() {
+        Random random = new Random(7);
+        for (int round = 0; round < 50; round++) {
+            int blockCount = 1 + random.nextInt(80);
+            int[][] boxes = randomLabel(random, blockCount);
+            BlockSpatialIndex index = new BlockSpatialIndex(interleave(boxes), boxes[0].length);
+            int[] buffer = index.newResultBuffer();
+            for (int i = 0; i < blockCount; i++) {
+                int count = index.findOverlapping(i, buffer);
+                int expected = 0;
+                for (int j = 0; j < blockCount; j++) {
+                    if (BlockSpatialIndex.isYOverlap(boxes[1][i], boxes[3][i], boxes[1][j], boxes[3][j])) {
+                        assertTrue(expected < count);
+                        assertEquals(j, buffer[expected++]);
+                    }
+                }
+                assertEquals(expected, count);
+            }
+        }
+    }
+
+    @Test
+    public void findNearestRight_picksClosestBlockOnSameRow() {
+        // 同一行：关键字、远处值、近处值；另起一行的值不应命中
+        int[] lefts = {0, 500, 200, 200};
+        int[] tops = {0, 2, 4, 100};
+        int[] rights = {100, 700, 400, 400};
+        int[] bottoms = {40, 42, 38, 140};
+        BlockSpatialIndex index = new BlockSpatialIndex(interleave(new int[][]{lefts, tops, rights, bottoms}), lefts.length);
+        int[] buffer = index.newResultBuffer();
+        assertEquals(2, index.findNearestRight(0, buffer));
+        assertEquals(1, index.findNearestRight(2, buffer));
+        assertEquals(-1, index.findNearestRight(1, buffer));
+        assertEquals(-1, index.findNearestRight(3, buffer));
+    }
+
+    private static int[] interleave(int[][] boxes) {
+        int count = boxes[0].length;
+        int[] result = new int[count << 2];
+        for (int i = 0; i < count; i++) {
+            for (int k = 0; k < 4; k++) {
+                result[(i << 2) + k] = boxes[k][i];
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 生成类似包装箱标签的排版：多行，每行2~3个block，高度有抖动
+     */
+    private static int[][] randomLabel(Random random, int blockCount) {
+        int[] lefts = new int[blockCount];
+        int[] tops = new int[blockCount];
+        int[] rights = new int[blockCount];
+        int[] bottoms = new int[blockCount];
+        int row = 0;
+        int column = 0;
+        for (int i = 0; i < blockCount; i++) {
+            if (column == 3 || (column > 1 && random.nextBoolean())) {
+                row++;
+                column = 0;
+            }
+            lefts[i] = column * 300 + random.nextInt(20);
+            rights[i] = lefts[i] + 200 + random.nextInt(80);
+            tops[i] = row * 50 + random.nextInt(12) - 6;
+            bottoms[i] = tops[i] + 30 + random.nextInt(20);
+            column++;
+        }
+        return new int[][]{lefts, tops, rights, bottoms};
+    }
+}
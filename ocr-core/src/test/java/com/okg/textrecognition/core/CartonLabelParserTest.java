@@ -0,0 +1,97 @@
+package com.okg.textrecognition.core;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * 外箱标签解析的单元测试
+ */
+public class CartonLabelParserTest {
+
+    /**
+     * 生成第index个有效imei
+     */
+    private static String imei(int index) {
+        String body = "86123456" + String.format("%06d", index);
+        int sum = 0;
+        for (int i = 0; i < 14; i++) {
+            int digit = body.charAt(13 - i) - '0';
+            if ((i & 1) == 0) {
+                digit <<= 1;
+                if (digit > 9) {
+                    digit -= 9;
+                }
+            }
+            sum += digit;
+        }
+        return body + (10 - sum % 10) % 10;
+    }
+
+    private static String sn(int index) {
+        return "R58N" + String.format("%06d", index) + "X";
+    }
+
+    @Test
+    public void parse_groupsColumnsIntoRows() {
+        int rows = 30;
+        OcrDocument.Builder builder = new OcrDocument.Builder()
+                .beginBlock(0, 0, 200, 30).addLine("IMEI", 0, 0, 200, 30)
+                .beginBlock(400, 0, 520, 30).addLine("S/N", 400, 0, 520, 30);
+        // imei列与sn列分别识别为一个多行block，顺序与行无关
+        builder.beginBlock(0, 40, 300, 40 + rows * 40);
+        for (int i = 0; i < rows; i++) {
+            builder.addLine(imei(i), 0, 40 + i * 40, 300, 70 + i * 40);
+        }
+        builder.beginBlock(380, 40, 600, 40 + rows * 40);
+        for (int i = rows - 1; i >= 0; i--) {
+            // sn列的行边界与imei列有几个像素的偏差
+            builder.addLine(sn(i), 380, 43 + i * 40, 600, 72 + i * 40);
+        }
+        List<DeviceInfo> records = new CartonLabelParser().parse(builder.build());
+        assertEquals(rows, records.size());
+        for (int i = 0; i < rows; i++) {
+            DeviceInfo record = records.get(i);
+            assertEquals(imei(i), record.getImei1());
+            assertEquals("", record.getImei2());
+            assertEquals(sn(i), record.getSn());
+            assertEquals(ImeiSnParser.TYPE_LAYOUT_CARTON, record.getLayoutType());
+        }
+    }
+
+    @Test
+    public void parse_splitsTwoDevicesPerRow() {
+        OcrDocument document = new OcrDocument.Builder()
+                .beginBlock(0, 0, 1000, 30)
+                .addLine("IMEI:" + imei(1) + " SN:" + sn(1) + " IMEI:" + imei(2) + " SN:" + sn(2), 0, 0, 1000, 30)
+                .beginBlock(0, 40, 1000, 70)
+                .addLine(imei(3) + " " + imei(4) + " SN:" + sn(3), 0, 40, 1000, 70)
+                // 条码下方重复印出的imei不会产生新记录
+                .beginBlock(0, 80, 300, 110)
+                .addLine(imei(3), 0, 80, 300, 110)
+                .build();
+        List<DeviceInfo> records = new CartonLabelParser().parse(document);
+        assertEquals(3, records.size());
+        assertEquals(imei(1), records.get(0).getImei1());
+        assertEquals(sn(1), records.get(0).getSn());
+        assertEquals(imei(2), records.get(1).getImei1());
+        assertEquals(sn(2), records.get(1).getSn());
+        assertEquals(imei(3), records.get(2).getImei1());
+        assertEquals(imei(4), records.get(2).getImei2());
+        assertEquals(sn(3), records.get(2).getSn());
+    }
+
+    @Test
+    public void parse_ignoresTokensOutsideSnColumn() {
+        OcrDocument document = new OcrDocument.Builder()
+                .beginBlock(0, 0, 1000, 30).addLine("MODEL ABCDEFGHIJK", 0, 0, 1000, 30)
+                .beginBlock(0, 40, 300, 70).addLine(imei(5), 0, 40, 300, 70)
+                .build();
+        List<DeviceInfo> records = new CartonLabelParser().parse(document);
+        assertEquals(1, records.size());
+        assertEquals("", records.get(0).getSn());
+        assertTrue(new CartonLabelParser().parse(null).isEmpty());
+    }
+}
@@ -0,0 +1,54 @@
+package com.okg.textrecognition.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * CmdTokenizer与原先String.split实现的一致性测试
+ */
+public class CmdTokenizerTest {
+    private static final String[] SAMPLES = {
+            "IMEI1:861234567890127", "IMEI1: 861234567890127", "IMEI2 861234567890135", "SN:R58M:12",
+            "IMEI:", "IMEI::", "IMEI::x", ":abc", "IMEI", "", "IMEI  861234567890127", "S/N R58M12345AB ",
+            "IMEI 1:2 3", "   ", "a b:"
+    };
+
+    @Test
+    public void split_matchesStringSplit() {
+        CmdTokenizer tokenizer = new CmdTokenizer();
+        for (String sample : SAMPLES) {
+            char[] text = ("#" + sample + "#").toCharArray();
+            boolean split = tokenizer.split(text, 1, text.length - 1);
+            String[] expected = legacySplit(sample);
+            assertEquals(sample, expected.length > 1, split);
+            if (split) {
+                assertEquals(sample, expected[1], tokenizer.getValue(text));
+                assertEquals(sample, expected[1].isEmpty(), tokenizer.isValueEmpty());
+                assertEquals(1, tokenizer.getKeyStart());
+            }
+        }
+    }
+
+    @Test
+    public void charClass_matchesSnPattern() {
+        String[] samples = {"R58M12345AB", "AB_12/34-56", "R58M 12345", "R58M#12345", "序列号", ""};
+        for (String sample : samples) {
+            char[] text = sample.toCharArray();
+            assertEquals(sample, sample.matches("^[A-Za-z0-9_/-]+$"), CharClass.matchesAll(text, 0, text.length, CharClass.SN));
+            assertEquals(sample, sample.matches("^[A-Za-z0-9_/-]+$"), CharClass.matchesAll(sample, CharClass.SN));
+        }
+        char[] padded = " \t86x \n".toCharArray();
+        int start = CharClass.trimStart(padded, 0, padded.length);
+        assertEquals(2, start);
+        assertEquals(5, CharClass.trimEnd(padded, start, padded.length));
+    }
+
+    private static String[] legacySplit(String text) {
+        String[] textArrays = text.split(":");
+        if (textArrays.length < 2) {
+            textArrays = text.split(" ");
+        }
+        return textArrays;
+    }
+}
@@ -0,0 +1,52 @@
+package com.okg.textrecognition.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * 易混淆字符修复的单元测试
+ */
+public class ConfusionRepairTest {
+
+    @Test
+    public void repairImei_substitutesConfusedGlyphs() {
+        char[] out = new char[ImeiValidator.IMEI_LENGTH];
+        assertTrue(repair("86I234S67B9O127", out));
+        assertEquals("861234567890127", new String(out));
+        // 小写b可读作6或8，只有读作6时通过校验
+        assertTrue(repair("8b1234567890127", out));
+        assertEquals("861234567890127", new String(out));
+        // 替换后校验失败
+        assertFalse(repair("86I234567890128", out));
+        // 超过最大替换数
+        assertFalse(repair("8OIOIO567890127", out));
+        // 含不可能是数字的字符
+        assertFalse(repair("86X234567890127", out));
+    }
+
+    @Test
+    public void repairSn_replacesOnlyOutOfClassChars() {
+        char[] text = "R58M|2$45AB".toCharArray();
+        char[] out = new char[text.length];
+        assertEquals(2, ConfusionRepair.repairSn(text, 0, text.length, out));
+        assertEquals("R58MI2S45AB", new String(out));
+        char[] unknown = "R58M#12345".toCharArray();
+        assertEquals(-1, ConfusionRepair.repairSn(unknown, 0, unknown.length, new char[unknown.length]));
+        assertEquals('A', ConfusionRepair.toSnChar('Ａ'));
+    }
+
+    @Test
+    public void collect_acceptsRepairedCandidates() {
+        OcrDocument document = new OcrDocument.Builder()
+                .beginBlock(0, 0, 400, 40).addLine("IMEI 86I2345678gO127", 0, 0, 400, 40)
+                .build();
+        ImeiCandidateScorer scorer = new ImeiCandidateScorer();
+        assertEquals(1, scorer.collect(document));
+        assertEquals("861234567890127", scorer.getValue(0));
+    }
+
+    private static boolean repair(String text, char[] out) {
+        return ConfusionRepair.repairImei(text.toCharArray(), 0, text.length(), out, 0);
+    }
+}
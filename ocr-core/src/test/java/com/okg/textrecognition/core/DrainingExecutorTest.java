@@ -0,0 +1,81 @@
+package com.okg.textrecognition.core;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.*;
+
+/**
+ * 识别后处理线程包装的单元测试，以登记的任务模拟进行中的识别，release()模拟识别完成的回调
+ */
+public class DrainingExecutorTest {
+
+    @Test
+    public void shutdownWhenIdle_waitsForAcquiredTasks() throws Exception {
+        ExecutorService delegate = Executors.newSingleThreadExecutor();
+        DrainingExecutor executor = new DrainingExecutor(delegate);
+        assertTrue(executor.tryAcquire());
+
+        executor.shutdownWhenIdle();
+        assertFalse(delegate.isShutdown());
+        assertFalse(executor.tryAcquire());
+        assertFalse(executor.tryExecute(new Runnable() {
+            @Override
+            public void run() {
+                fail("rejected task must not run");
+            }
+        }));
+
+        // 关闭请求之后识别完成，回调仍在内部线程中执行
+        final CountDownLatch callback = new CountDownLatch(1);
+        final AtomicBoolean onDelegate = new AtomicBoolean();
+        final Thread caller = Thread.currentThread();
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                onDelegate.set(Thread.currentThread() != caller);
+                callback.countDown();
+            }
+        });
+        assertTrue(callback.await(5, TimeUnit.SECONDS));
+        assertTrue(onDelegate.get());
+        assertFalse(delegate.isShutdown());
+
+        executor.release();
+        assertTrue(delegate.isShutdown());
+        assertTrue(delegate.awaitTermination(5, TimeUnit.SECONDS));
+        assertEquals(0, executor.getPendingCount());
+    }
+
+    @Test
+    public void execute_afterTermination_runsOnCaller() throws Exception {
+        ExecutorService delegate = Executors.newSingleThreadExecutor();
+        DrainingExecutor executor = new DrainingExecutor(delegate);
+        executor.shutdownWhenIdle();
+        assertTrue(delegate.awaitTermination(5, TimeUnit.SECONDS));
+
+        final AtomicBoolean ran = new AtomicBoolean();
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                ran.set(true);
+            }
+        });
+        assertTrue(ran.get());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void release_withoutAcquire_throws() {
+        ExecutorService delegate = Executors.newSingleThreadExecutor();
+        try {
+            new DrainingExecutor(delegate).release();
+        } finally {
+            delegate.shutdown();
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.okg.textrecognition.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * 多帧投票的单元测试
+ */
+public class FrameConsensusTest {
+    private static final String IMEI1 = "861234567890127";
+    private static final String IMEI2 = "861234567890135";
+
+    private static DeviceInfo frame(String imei1, String imei2, String sn) {
+        return new DeviceInfo.Builder(ImeiSnParser.TYPE_LAYOUT_CMD)
+                .set(DeviceInfo.FIELD_IMEI1, imei1, 0, 0, 0, 100, 20)
+                .set(DeviceInfo.FIELD_IMEI2, imei2, 1, 0, 30, 100, 50)
+                .set(DeviceInfo.FIELD_SN, sn, 2, 0, 60, 100, 80)
+                .build();
+    }
+
+    @Test
+    public void offer_votesPerCharacterPosition() {
+        FrameConsensus consensus = new FrameConsensus(2, 5);
+        // 每帧各有一位误识别，但每个位置的多数一致
+        assertFalse(consensus.offer(frame(IMEI1, "", "R58N12ABCDX")));
+        assertFalse(consensus.offer(frame(IMEI1, "", "R58N12ABCDE")));
+        assertTrue(consensus.offer(frame("", "", "R58N12ABCDE")));
+        DeviceInfo result = consensus.getResult();
+        assertTrue(consensus.isAgreed());
+        assertEquals(3, consensus.getFrameCount());
+        assertEquals(IMEI1, result.getImei1());
+        assertEquals("", result.getImei2());
+        assertEquals("R58N12ABCDE", result.getSn());
+        assertEquals(2, result.getSourceBlock(DeviceInfo.FIELD_SN));
+        assertEquals(ImeiSnParser.TYPE_LAYOUT_CMD, result.getLayoutType());
+        // 已得到结果后忽略新的帧
+        assertTrue(consensus.offer(frame(IMEI2, "", "")));
+        assertEquals(3, consensus.getFrameCount());
+    }
+
+    @Test
+    public void offer_waitsForMajorityFields() {
+        FrameConsensus consensus = new FrameConsensus(2, 8);
+        assertFalse(consensus.offer(frame(IMEI1, "", "ABC123XYZ9")));
+        // sn在多数帧中出现但还未一致，imei1已一致也继续等待
+        assertFalse(consensus.offer(frame(IMEI1, "", "ABC12")));
+        assertTrue(consensus.offer(frame(IMEI1, IMEI2, "ABC123XYZ9")));
+        assertEquals("ABC123XYZ9", consensus.getResult().getSn());
+        // imei2只在少数帧中出现，视为误识别，不阻塞结果
+        assertEquals("", consensus.getResult().getImei2());
+    }
+
+    @Test
+    public void offer_fallsBackToPluralityAtFrameCap() {
+        FrameConsensus consensus = new FrameConsensus(3, 3);
+        assertFalse(consensus.offer(frame("", "", "ABC123XYZ9")));
+        assertFalse(consensus.offer(frame("", "", "ABC123XYZ9")));
+        assertTrue(consensus.offer(frame("", "", "ABC128XYZ9")));
+        assertFalse(consensus.isAgreed());
+        assertEquals("ABC123XYZ9", consensus.getResult().getSn());
+        // 票数最多的值与最后一帧不同，没有来源信息
+        assertEquals(DeviceInfo.NO_SOURCE, consensus.getResult().getSourceBlock(DeviceInfo.FIELD_SN));
+
+        consensus.reset();
+        assertNull(consensus.getResult());
+        assertEquals(0, consensus.getFrameCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructor_rejectsCapBelowAgreement() {
+        new FrameConsensus(3, 2);
+    }
+}
@@ -0,0 +1,48 @@
+package com.okg.textrecognition.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * 取景框区域换算及解码采样倍数的单元测试
+ */
+public class FrameRegionTest {
+
+    @Test
+    public void fromView_mapsPortraitViewToLandscapeJpeg() {
+        // 竖屏界面1080x1920，拍照图片为传感器方向4000x2250，需顺时针旋转90度
+        FrameRegion region = FrameRegion.fromView(60, 810, 1020, 1110, 1080, 1920, 4000, 2250, 90, 1);
+        assertEquals(1687, region.getLeft());
+        assertEquals(2313, region.getRight());
+        assertTrue(Math.abs(region.getTop() - 125) <= 1);
+        assertTrue(Math.abs(region.getBottom() - 2125) <= 1);
+        // 文字高度方向为图片的横向
+        assertEquals(region.getWidth(), region.getUprightHeight());
+        assertTrue(region.getAreaRatio() < 0.2f);
+    }
+
+    @Test
+    public void fromView_upsideDownRotationMirrorsBothAxes() {
+        FrameRegion region = FrameRegion.fromView(10, 20, 30, 40, 100, 100, 100, 100, 180, 1);
+        assertEquals(70, region.getLeft());
+        assertEquals(90, region.getRight());
+        assertEquals(60, region.getTop());
+        assertEquals(80, region.getBottom());
+        assertEquals(region.getHeight(), region.getUprightHeight());
+    }
+
+    @Test
+    public void computeSampleSize_keepsMinimumCharacterHeight() {
+        FrameRegion region = FrameRegion.fromView(60, 810, 1020, 1110, 1080, 1920, 4000, 2250, 90, 1);
+        // 区域文字方向约626像素，按8行估算字符高度约78像素，采样2倍后仍不低于24像素
+        assertEquals(2, region.computeSampleSize(FrameRegion.DEFAULT_LINES_PER_REGION, FrameRegion.DEFAULT_MIN_CHAR_PIXELS));
+        assertEquals(1, region.computeSampleSize(FrameRegion.DEFAULT_LINES_PER_REGION, 100));
+        assertEquals(16, region.computeSampleSize(1, 1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void fromView_rejectsInvalidAlignment() {
+        FrameRegion.fromView(0, 0, 10, 10, 10, 10, 10, 10, 0, 0);
+    }
+}
@@ -0,0 +1,100 @@
+package com.okg.textrecognition.core;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * 帧调度器的单元测试，以字符串代替预览帧，处理过程由测试手动完成
+ */
+public class FrameSchedulerTest {
+
+    private final List<String> mProcessing = new ArrayList<>();
+    private final List<Long> mTickets = new ArrayList<>();
+    private final List<String> mReleased = new ArrayList<>();
+
+    private FrameScheduler<String> newScheduler(int maxInFlight, MetricsRegistry metrics) {
+        return new FrameScheduler<>(maxInFlight, new FrameScheduler.Processor<String>() {
+            @Override
+            public void process(String frame, long ticket) {
+                mProcessing.add(frame);
+                mTickets.add(ticket);
+            }
+        }, new FrameScheduler.Releaser<String>() {
+            @Override
+            public void release(String frame) {
+                mReleased.add(frame);
+            }
+        }, metrics, "frame.");
+    }
+
+    @Test
+    public void submit_keepsOnlyLatestPendingFrame() {
+        MetricsRegistry metrics = new MetricsRegistry();
+        FrameScheduler<String> scheduler = newScheduler(1, metrics);
+        scheduler.submit("f1");
+        scheduler.submit("f2");
+        scheduler.submit("f3");
+        scheduler.submit("f4");
+
+        assertEquals(1, mProcessing.size());
+        assertEquals("f1", mProcessing.get(0));
+        assertEquals(2, mReleased.size());
+        assertEquals("f2", mReleased.get(0));
+        assertEquals("f3", mReleased.get(1));
+        assertTrue(scheduler.hasPending());
+
+        // 完成后接着处理最新的帧
+        scheduler.finish(mTickets.get(0));
+        assertEquals(2, mProcessing.size());
+        assertEquals("f4", mProcessing.get(1));
+        assertFalse(scheduler.hasPending());
+        scheduler.finish(mTickets.get(1));
+        assertEquals(0, scheduler.getInFlightCount());
+
+        assertEquals(4, metrics.getCounterValue("frame." + FrameScheduler.COUNTER_SUBMITTED));
+        assertEquals(2, metrics.getCounterValue("frame." + FrameScheduler.COUNTER_PROCESSED));
+        assertEquals(2, metrics.getCounterValue("frame." + FrameScheduler.COUNTER_DROPPED));
+    }
+
+    @Test
+    public void acceptResult_rejectsOlderAndCancelledFrames() {
+        MetricsRegistry metrics = new MetricsRegistry();
+        FrameScheduler<String> scheduler = newScheduler(2, metrics);
+        scheduler.submit("f1");
+        scheduler.submit("f2");
+        assertEquals(2, mProcessing.size());
+
+        // 后提交的帧先出结果，更早的帧的结果过时
+        assertTrue(scheduler.acceptResult(mTickets.get(1)));
+        assertFalse(scheduler.acceptResult(mTickets.get(0)));
+        scheduler.finish(mTickets.get(1));
+        scheduler.finish(mTickets.get(0));
+
+        scheduler.submit("f3");
+        scheduler.submit("f4");
+        scheduler.submit("f5");
+        scheduler.cancel();
+        assertFalse(scheduler.hasPending());
+        assertEquals("f5", mReleased.get(mReleased.size() - 1));
+        assertFalse(scheduler.acceptResult(mTickets.get(2)));
+        assertFalse(scheduler.acceptResult(mTickets.get(3)));
+        scheduler.finish(mTickets.get(2));
+        scheduler.finish(mTickets.get(3));
+
+        // 取消后提交的帧正常处理
+        scheduler.submit("f6");
+        assertEquals("f6", mProcessing.get(mProcessing.size() - 1));
+        assertTrue(scheduler.acceptResult(mTickets.get(mTickets.size() - 1)));
+        assertEquals(3, scheduler.getObsoleteCount());
+        assertEquals(1, scheduler.getDroppedCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructor_rejectsZeroInFlight() {
+        newScheduler(0, new MetricsRegistry());
+    }
+}
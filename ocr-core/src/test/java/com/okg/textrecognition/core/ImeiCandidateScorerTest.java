@@ -0,0 +1,56 @@
+package com.okg.textrecognition.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * imei校验及候选排序的单元测试
+ */
+public class ImeiCandidateScorerTest {
+
+    @Test
+    public void validator_checksLuhnAndTac() {
+        assertTrue(ImeiValidator.isValid("490154203237518"));
+        assertTrue(ImeiValidator.isValid("352099001761481"));
+        assertFalse(ImeiValidator.isValid("490154203237517"));
+        // Luhn正确但发证机构代码未登记
+        assertFalse(ImeiValidator.isValid("200000000000004"));
+        assertFalse(ImeiValidator.isValid("49015420323751"));
+        assertFalse(ImeiValidator.isValid("49015420323751A"));
+        assertEquals(6, ImeiValidator.findValid("IMEI: 490154203237518/01"));
+        assertEquals(-1, ImeiValidator.findValid("4490154203237518"));
+    }
+
+    @Test
+    public void collect_keepsOnlyValidFifteenDigitRuns() {
+        OcrDocument document = new OcrDocument.Builder()
+                .beginBlock(0, 0, 600, 90)
+                .addLine("IMEI1:490154203237518 IMEI2:490154203237517", 0, 0, 600, 40)
+                .addLine("3520990017614810", 0, 50, 600, 90)
+                .beginBlock(0, 100, 600, 140)
+                .addLine("S/N 352099001761481", 0, 100, 600, 140)
+                .build();
+        ImeiCandidateScorer scorer = new ImeiCandidateScorer();
+        assertEquals(2, scorer.collect(document));
+        assertEquals("490154203237518", scorer.getValue(0));
+        assertEquals(0, scorer.getLine(0));
+        assertEquals("352099001761481", scorer.getValue(1));
+        assertEquals(1, scorer.getBlock(1));
+    }
+
+    @Test
+    public void findNearest_prefersCandidatesAfterKeyword() {
+        OcrDocument document = new OcrDocument.Builder()
+                .beginBlock(0, 0, 300, 40).addLine("490154203237518", 0, 0, 300, 40)
+                .beginBlock(0, 100, 100, 140).addLine("IMEI", 0, 100, 100, 140)
+                .beginBlock(0, 180, 300, 220).addLine("352099001761481", 0, 180, 300, 220)
+                .build();
+        ImeiCandidateScorer scorer = new ImeiCandidateScorer();
+        scorer.collect(document);
+        // 上方候选距离60，下方候选距离40
+        assertEquals(1, scorer.findNearest(0, 100, 100, 140, null));
+        assertEquals(0, scorer.findNearest(0, 100, 100, 140, "352099001761481"));
+        assertEquals(-1, new ImeiCandidateScorer().findNearest(0, 0, 0, 0, null));
+    }
+}
@@ -0,0 +1,202 @@
+package com.okg.textrecognition.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * ImeiSnParser各布局解析的单元测试
+ */
+public class ImeiSnParserTest {
+    private final ImeiSnParser parser = new ImeiSnParser();
+
+    @Test
+    public void parse_cmdLayout() {
+        OcrDocument document = new OcrDocument.Builder()
+                .beginBlock(0, 0, 600, 200)
+                .addLine("IMEI1:861234567890127", 0, 0, 600, 40)
+                .addLine("IMEI2:861234567890135", 0, 50, 600, 90)
+                .addLine("SN:r58m12345ab", 0, 100, 600, 140)
+                .build();
+        DeviceInfo result = parser.parse(document);
+        assertEquals(ImeiSnParser.TYPE_LAYOUT_CMD, result.getLayoutType());
+        assertEquals("861234567890127", result.getImei1());
+        assertEquals("861234567890135", result.getImei2());
+        assertEquals("R58M12345AB", result.getSn());
+    }
+
+    @Test
+    public void parse_verticalLayout() {
+        OcrDocument document = new OcrDocument.Builder()
+                .beginBlock(0, 0, 400, 90)
+                .addLine("IMEI1", 0, 0, 200, 40)
+                .addLine("861234567890127", 0, 50, 400, 90)
+                .beginBlock(0, 100, 400, 140)
+                .addLine("IMEI2", 0, 100, 200, 140)
+                .beginBlock(0, 150, 400, 190)
+                .addLine("861234567890135", 0, 150, 400, 190)
+                .build();
+        DeviceInfo result = parser.parse(document);
+        assertEquals(ImeiSnParser.TYPE_LAYOUT_VERTICAL, result.getLayoutType());
+        assertEquals("861234567890127", result.getImei1());
+        assertEquals("861234567890135", result.getImei2());
+    }
+
+    @Test
+    public void parse_horizontalLayout() {
+        OcrDocument document = new OcrDocument.Builder()
+                .beginBlock(0, 0, 100, 40).addLine("IMEI1", 0, 0, 100, 40)
+                .beginBlock(150, 0, 500, 40).addLine("861234567890127", 150, 0, 500, 40)
+                .beginBlock(0, 60, 100, 100).addLine("IMEI2", 0, 60, 100, 100)
+                .beginBlock(150, 60, 500, 100).addLine("861234567890135", 150, 60, 500, 100)
+                .beginBlock(0, 120, 100, 160).addLine("SN", 0, 120, 100, 160)
+                .beginBlock(150, 120, 500, 160).addLine("r58m12345ab", 150, 120, 500, 160)
+                .build();
+        DeviceInfo result = parser.parse(document);
+        assertEquals(ImeiSnParser.TYPE_LAYOUT_HORIZONTAL, result.getLayoutType());
+        assertEquals("861234567890127", result.getImei1());
+        assertEquals("861234567890135", result.getImei2());
+        assertEquals("R58M12345AB", result.getSn());
+    }
+
+    /**
+     * 添加一个单行block，边界框绕原点顺时针旋转degrees度，与倾斜拍摄时ML Kit给出的角点一致
+     */
+    private static void addTiltedBlock(OcrDocument.Builder builder, String text, int left, int top, int right, int bottom, double degrees) {
+        double radians = Math.toRadians(degrees);
+        int[] upright = {left, top, right, top, right, bottom, left, bottom};
+        int[] corners = new int[8];
+        int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE, maxX = Integer.MIN_VALUE, maxY = Integer.MIN_VALUE;
+        for (int i = 0; i < 8; i += 2) {
+            corners[i] = (int) Math.round(upright[i] * Math.cos(radians) - upright[i + 1] * Math.sin(radians));
+            corners[i + 1] = (int) Math.round(upright[i] * Math.sin(radians) + upright[i + 1] * Math.cos(radians));
+            minX = Math.min(minX, corners[i]);
+            maxX = Math.max(maxX, corners[i]);
+            minY = Math.min(minY, corners[i + 1]);
+            maxY = Math.max(maxY, corners[i + 1]);
+        }
+        builder.beginBlock(minX, minY, maxX, maxY).addLine(text, corners, Float.NaN);
+    }
+
+    @Test
+    public void parse_tiltedHorizontalLayout() {
+        OcrDocument.Builder builder = new OcrDocument.Builder();
+        // 倾斜15°后右侧的值比左侧标签低约40~130像素，图像坐标系中与标签不在同一水平带
+        addTiltedBlock(builder, "IMEI1", 0, 0, 100, 40, 15);
+        addTiltedBlock(builder, "861234567890127", 150, 0, 500, 40, 15);
+        addTiltedBlock(builder, "IMEI2", 0, 60, 100, 100, 15);
+        addTiltedBlock(builder, "861234567890135", 150, 60, 500, 100, 15);
+        OcrDocument document = builder.build();
+        assertEquals(15f, document.getBaselineAngle(), 0.5f);
+        assertTrue(BlockSpatialIndex.isYOverlap(document.getBlockTop(0), document.getBlockBottom(0), document.getBlockTop(1), document.getBlockBottom(1)));
+        DeviceInfo result = parser.parse(document);
+        assertEquals(ImeiSnParser.TYPE_LAYOUT_HORIZONTAL, result.getLayoutType());
+        assertEquals("861234567890127", result.getImei1());
+        assertEquals("861234567890135", result.getImei2());
+        // 来源边界框位于基线坐标系中，换算回图像坐标后与倾斜的角点一致
+        assertEquals(document.getBaselineAngle(), result.getSourceAngle(DeviceInfo.FIELD_IMEI1), 0f);
+        float[] corners = new float[8];
+        assertTrue(result.getSourceCorners(DeviceInfo.FIELD_IMEI1, corners));
+        double radians = Math.toRadians(15);
+        assertEquals(150 * Math.cos(radians), corners[0], 3);
+        assertEquals(150 * Math.sin(radians), corners[1], 3);
+        assertEquals(500 * Math.cos(radians) - 40 * Math.sin(radians), corners[4], 3);
+        assertEquals(500 * Math.sin(radians) + 40 * Math.cos(radians), corners[5], 3);
+    }
+
+    @Test
+    public void parse_snOnly() {
+        OcrDocument document = new OcrDocument.Builder()
+                .beginBlock(0, 0, 300, 40).addLine("Model: ABC-1", 0, 0, 300, 40)
+                .beginBlock(0, 50, 300, 90).addLine("序列号", 0, 50, 300, 90)
+                .beginBlock(0, 100, 300, 140).addLine("R58M12345AB", 0, 100, 300, 140)
+                .build();
+        DeviceInfo result = parser.parse(document);
+        assertEquals(ImeiSnParser.TYPE_LAYOUT_NONE, result.getLayoutType());
+        assertEquals("", result.getImei1());
+        assertEquals("R58M12345AB", result.getSn());
+    }
+
+    @Test
+    public void parse_rejectsChecksumInvalidImei() {
+        OcrDocument document = new OcrDocument.Builder()
+                .beginBlock(0, 0, 600, 200)
+                .addLine("IMEI1:861234567890128", 0, 0, 600, 40)
+                .addLine("IMEI2: 861234567890135", 0, 50, 600, 90)
+                .build();
+        DeviceInfo result = parser.parse(document);
+        assertEquals("", result.getImei1());
+        assertEquals(DeviceInfo.NO_SOURCE, result.getSourceBlock(DeviceInfo.FIELD_IMEI1));
+        assertEquals("861234567890135", result.getImei2());
+    }
+
+    @Test
+    public void parse_repairsConfusedImeiAndSn() {
+        OcrDocument document = new OcrDocument.Builder()
+                .beginBlock(0, 0, 600, 140)
+                .addLine("IMEI1:86I2345678gOl27", 0, 0, 600, 40)
+                .addLine("IMEI2:861234567890135", 0, 50, 600, 90)
+                .addLine("SN:r58m|2345ab", 0, 100, 600, 140)
+                .build();
+        DeviceInfo result = parser.parse(document);
+        assertEquals("861234567890127", result.getImei1());
+        assertEquals("861234567890135", result.getImei2());
+        assertEquals("R58MI2345AB", result.getSn());
+    }
+
+    @Test
+    public void parse_picksNearestValidCandidate() {
+        // 关键字右侧block是误识别的值，有效imei在其下方，更远处还有另一个有效imei
+        OcrDocument document = new OcrDocument.Builder()
+                .beginBlock(0, 0, 100, 40).addLine("IMEI", 0, 0, 100, 40)
+                .beginBlock(150, 0, 500, 40).addLine("86I23456789O128", 150, 0, 500, 40)
+                .beginBlock(150, 50, 500, 90).addLine("861234567890127", 150, 50, 500, 90)
+                .beginBlock(150, 400, 500, 440).addLine("352099001761481", 150, 400, 500, 440)
+                .build();
+        DeviceInfo result = parser.parse(document);
+        assertEquals("861234567890127", result.getImei1());
+        assertEquals(2, result.getSourceBlock(DeviceInfo.FIELD_IMEI1));
+    }
+
+    @Test
+    public void parse_recordsSourceAndJson() {
+        OcrDocument document = new OcrDocument.Builder()
+                .beginBlock(0, 0, 100, 40).addLine("SN", 0, 0, 100, 40)
+                .beginBlock(150, 0, 500, 40).addLine("r58m\"12345ab", 150, 0, 500, 40)
+                .beginBlock(0, 60, 100, 100).addLine("IMEI", 0, 60, 100, 100)
+                .beginBlock(150, 60, 500, 100).addLine("861234567890127", 150, 60, 500, 100)
+                .build();
+        DeviceInfo result = parser.parse(document);
+        assertEquals(3, result.getSourceBlock(DeviceInfo.FIELD_IMEI1));
+        assertEquals(150, result.getSourceLeft(DeviceInfo.FIELD_IMEI1));
+        assertEquals(100, result.getSourceBottom(DeviceInfo.FIELD_IMEI1));
+        assertEquals(1, result.getSourceBlock(DeviceInfo.FIELD_SN));
+        assertEquals(DeviceInfo.NO_SOURCE, result.getSourceBlock(DeviceInfo.FIELD_IMEI2));
+        assertEquals("{\"imei1\":\"861234567890127\",\"imei2\":\"\",\"sn\":\"R58M\\\"12345AB\",\"layoutType\":3}", result.toJson());
+    }
+
+    @Test
+    public void parse_emptyDocument() {
+        DeviceInfo result = parser.parse(new OcrDocument.Builder().build());
+        assertEquals(ImeiSnParser.TYPE_LAYOUT_NONE, result.getLayoutType());
+        assertEquals("", result.getSn());
+        assertSame(DeviceInfo.EMPTY, result);
+        assertFalse(result.hasAnyValue());
+    }
+
+    @Test
+    public void document_textRangesMatchBlocksAndLines() {
+        OcrDocument document = new OcrDocument.Builder(1, 1, 1)
+                .beginBlock(0, 0, 10, 10).addLine("ab", 0, 0, 10, 5).addLine("cd", 0, 5, 10, 10)
+                .beginBlock(0, 20, 10, 30)
+                .beginBlock(0, 40, 10, 50).addLine("ef", 0, 40, 10, 50)
+                .build();
+        assertEquals(3, document.getBlockCount());
+        assertEquals("ab\ncd", document.getBlockText(0));
+        assertEquals("", document.getBlockText(1));
+        assertEquals("ef", document.getBlockText(2));
+        assertEquals("cd", document.getLineText(1));
+        assertEquals("ab\ncd\nef", document.getFullText());
+        assertEquals(25, document.getBlockCenterY(1));
+    }
+}
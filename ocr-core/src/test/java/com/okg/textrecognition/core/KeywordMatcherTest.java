@@ -0,0 +1,90 @@
+package com.okg.textrecognition.core;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * 关键字自动机单元测试
+ */
+public class KeywordMatcherTest {
+
+    @Test
+    public void scan_findsAllKeywordsCaseInsensitively() {
+        KeywordMatcher matcher = KeywordTable.newDefaultMatcher();
+        KeywordHits hits = new KeywordHits();
+        char[] text = "IMEI2: 86 序列号 S/N Serial".toCharArray();
+        matcher.scan(text, 0, text.length, hits);
+        assertTrue(hits.startsWith(KeywordTable.KIND_IMEI));
+        assertTrue(hits.contains(KeywordTable.KIND_IMEI2));
+        assertTrue(hits.contains(KeywordTable.KIND_SN_LABEL));
+        assertFalse(hits.startsWith(KeywordTable.KIND_SN));
+        int best = hits.findBest(matcher, KeywordTable.KIND_SN_ANY);
+        assertEquals("序列号", matcher.getKeyword(hits.getKeyword(best)));
+        assertEquals(10, hits.getStart(best));
+    }
+
+    @Test
+    public void scan_respectsRangeForPrefixChecks() {
+        KeywordMatcher matcher = KeywordTable.newDefaultMatcher();
+        KeywordHits hits = new KeywordHits();
+        char[] text = "xx\nsn:R58M".toCharArray();
+        matcher.scan(text, 3, text.length, hits);
+        assertTrue(hits.startsWith(KeywordTable.KIND_SN));
+        matcher.scan(text, 0, 2, hits);
+        assertEquals(0, hits.getCount());
+    }
+
+    @Test
+    public void scan_supportsExtendedKeywords() {
+        KeywordMatcher.Builder builder = KeywordTable.newDefaultBuilder();
+        builder.add("串号", KeywordTable.KIND_IMEI);
+        builder.add("meid", KeywordTable.KIND_IMEI);
+        KeywordMatcher matcher = builder.build();
+        KeywordHits hits = new KeywordHits();
+        char[] text = "串号".toCharArray();
+        matcher.scan(text, 0, text.length, hits);
+        assertTrue(hits.startsWith(KeywordTable.KIND_IMEI));
+        text = "MEID:A0000".toCharArray();
+        matcher.scan(text, 0, text.length, hits);
+        assertTrue(hits.startsWith(KeywordTable.KIND_IMEI));
+    }
+
+    @Test
+    public void scan_matchesNaiveSearch() {
+        String[] keywords = {"imei", "imei2", "序列号", "serial", "s/n", "sn", "号码", "ei", "eid", "meid"};
+        KeywordMatcher.Builder builder = new KeywordMatcher.Builder();
+        for (String keyword : keywords) {
+            builder.add(keyword, 1);
+        }
+        KeywordMatcher matcher = builder.build();
+        KeywordHits hits = new KeywordHits();
+        String alphabet = "imeIE2snSN/rialdD序列号码 :";
+        Random random = new Random(3);
+        for (int round = 0; round < 500; round++) {
+            char[] text = new char[random.nextInt(40)];
+            for (int i = 0; i < text.length; i++) {
+                text[i] = alphabet.charAt(random.nextInt(alphabet.length()));
+            }
+            matcher.scan(text, 0, text.length, hits);
+            String lower = new String(text).toLowerCase();
+            int expected = 0;
+            for (String keyword : keywords) {
+                for (int from = lower.indexOf(keyword); from >= 0; from = lower.indexOf(keyword, from + 1)) {
+                    expected++;
+                    boolean found = false;
+                    for (int h = 0; h < hits.getCount(); h++) {
+                        if (keywords[hits.getKeyword(h)].equals(keyword) && hits.getStart(h) == from) {
+                            found = true;
+                            break;
+                        }
+                    }
+                    assertTrue(keyword + " in " + lower, found);
+                }
+            }
+            assertEquals(expected, hits.getCount());
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.okg.textrecognition.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * 标签规则决策表的单元测试
+ */
+public class LabelRuleTableTest {
+
+    @Test
+    public void parse_readsTextSpec() {
+        LabelRule rule = LabelRule.parse("keywords=串号|IMEI No.; field=imei1; location=next_line; prefix=true");
+        assertArrayEquals(new String[]{"串号", "IMEI No."}, rule.getKeywords());
+        assertEquals(DeviceInfo.FIELD_IMEI1, rule.getField());
+        assertEquals(LabelRule.LOCATION_NEXT_LINE, rule.getLocation());
+        assertEquals(LabelRule.VALIDATOR_IMEI, rule.getValidator());
+        assertTrue(rule.isPrefixOnly());
+        assertEquals(rule.toString(), LabelRule.parse(rule.toString()).toString());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void parse_rejectsUnknownLocation() {
+        LabelRule.parse("keywords=x; field=sn; location=diagonal");
+    }
+
+    @Test
+    public void apply_fillsFieldsByLocation() {
+        LabelRuleTable table = LabelRuleTable.compile(
+                "keywords=串号; field=imei1; location=next_line",
+                "keywords=MEID No; field=imei2; location=same_line",
+                "keywords=产品编码; field=sn; location=horizontal");
+        OcrDocument document = new OcrDocument.Builder()
+                .beginBlock(0, 0, 300, 90)
+                .addLine("串号", 0, 0, 300, 40)
+                .addLine("86I234567890127", 0, 50, 300, 90)
+                .beginBlock(0, 100, 600, 140).addLine("MEID No# 861234567890135", 0, 100, 600, 140)
+                .beginBlock(0, 150, 120, 190).addLine("产品编码", 0, 150, 120, 190)
+                .beginBlock(200, 150, 500, 190).addLine("r58m12345ab", 200, 150, 500, 190)
+                .build();
+        DeviceInfo.Builder result = new DeviceInfo.Builder(ImeiSnParser.TYPE_LAYOUT_NONE);
+        assertTrue(table.apply(document, result));
+        assertEquals("861234567890127", result.get(DeviceInfo.FIELD_IMEI1));
+        assertEquals("861234567890135", result.get(DeviceInfo.FIELD_IMEI2));
+        assertEquals("R58M12345AB", result.get(DeviceInfo.FIELD_SN));
+        assertEquals(3, result.build().getSourceBlock(DeviceInfo.FIELD_SN));
+    }
+
+    @Test
+    public void parser_usesRulesOnlyForMissingFields() {
+        LabelRuleTable table = LabelRuleTable.compile("keywords=产品编码; field=sn; location=same_line");
+        ImeiSnParser parser = new ImeiSnParser(KeywordTable.newDefaultMatcher(), table);
+        OcrDocument document = new OcrDocument.Builder()
+                .beginBlock(0, 0, 600, 40).addLine("IMEI1:861234567890127", 0, 0, 600, 40)
+                .beginBlock(0, 50, 600, 90).addLine("产品编码：R58M12345AB", 0, 50, 600, 90)
+                .build();
+        DeviceInfo result = parser.parse(document);
+        assertEquals(ImeiSnParser.TYPE_LAYOUT_CMD, result.getLayoutType());
+        assertEquals("861234567890127", result.getImei1());
+        assertEquals("R58M12345AB", result.getSn());
+
+        OcrDocument snOnly = new OcrDocument.Builder()
+                .beginBlock(0, 0, 600, 40).addLine("产品编码 R58M12345AB", 0, 0, 600, 40)
+                .build();
+        assertEquals(ImeiSnParser.TYPE_LAYOUT_RULE, parser.parse(snOnly).getLayoutType());
+    }
+
+    @Test
+    public void vendorRules_compileAndApplyByDefault() {
+        assertEquals(VendorLabelRules.getSpecs().length, VendorLabelRules.newDefaultTable().getRuleCount());
+        OcrDocument document = new OcrDocument.Builder()
+                .beginBlock(0, 0, 600, 40).addLine("串号：861234567890127", 0, 0, 600, 40)
+                .build();
+        assertEquals("", new ImeiSnParser().parse(document).getImei1());
+        DeviceInfo result = VendorLabelRules.newDefaultParser().parse(document);
+        assertEquals(ImeiSnParser.TYPE_LAYOUT_RULE, result.getLayoutType());
+        assertEquals("861234567890127", result.getImei1());
+    }
+}
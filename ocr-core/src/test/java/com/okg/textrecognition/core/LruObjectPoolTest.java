@@ -0,0 +1,74 @@
+package com.okg.textrecognition.core;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * 对象池的单元测试，以普通对象代替Bitmap
+ */
+public class LruObjectPoolTest {
+
+    private final List<Object> mEvicted = new ArrayList<>();
+
+    private LruObjectPool<Object> newPool(long maxBytes, MetricsRegistry metrics) {
+        return new LruObjectPool<>(maxBytes, new LruObjectPool.Evictor<Object>() {
+            @Override
+            public void evict(Object object) {
+                mEvicted.add(object);
+            }
+        }, metrics, "pool.");
+    }
+
+    @Test
+    public void get_reusesOnlySameSizeAndFormat() {
+        MetricsRegistry metrics = new MetricsRegistry();
+        LruObjectPool<Object> pool = newPool(1000, metrics);
+        Object bitmap = new Object();
+        pool.put(bitmap, 10, 20, 1, 200);
+
+        assertNull(pool.get(20, 10, 1));
+        assertNull(pool.get(10, 20, 2));
+        assertSame(bitmap, pool.get(10, 20, 1));
+        assertNull(pool.get(10, 20, 1));
+
+        assertEquals(1, metrics.getCounterValue("pool." + LruObjectPool.COUNTER_HITS));
+        assertEquals(3, metrics.getCounterValue("pool." + LruObjectPool.COUNTER_MISSES));
+        assertEquals(25, metrics.getCounterValue("pool." + LruObjectPool.COUNTER_HIT_RATE));
+        assertEquals(0, metrics.getCounterValue("pool." + LruObjectPool.COUNTER_RESIDENT_BYTES));
+        assertEquals(0.25f, pool.getHitRate(), 1e-6);
+    }
+
+    @Test
+    public void put_evictsLeastRecentlyUsedOverBudget() {
+        MetricsRegistry metrics = new MetricsRegistry();
+        LruObjectPool<Object> pool = newPool(500, metrics);
+        Object first = new Object();
+        Object second = new Object();
+        Object third = new Object();
+        pool.put(first, 10, 10, 1, 200);
+        pool.put(second, 20, 10, 1, 200);
+        // 再次放入first，first成为最近使用
+        pool.put(first, 10, 10, 1, 200);
+        pool.put(third, 30, 10, 1, 200);
+
+        assertEquals(1, mEvicted.size());
+        assertSame(second, mEvicted.get(0));
+        assertEquals(400, pool.getResidentBytes());
+        assertEquals(400, metrics.getCounterValue("pool." + LruObjectPool.COUNTER_RESIDENT_BYTES));
+
+        // 超过预算的对象直接释放
+        Object large = new Object();
+        pool.put(large, 100, 100, 1, 600);
+        assertSame(large, mEvicted.get(1));
+        assertEquals(2, pool.getSize());
+
+        pool.clear();
+        assertEquals(4, mEvicted.size());
+        assertEquals(0, pool.getResidentBytes());
+        assertEquals(4, metrics.getCounterValue("pool." + LruObjectPool.COUNTER_EVICTIONS));
+    }
+}
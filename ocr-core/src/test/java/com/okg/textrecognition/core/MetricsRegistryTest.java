@@ -0,0 +1,78 @@
+package com.okg.textrecognition.core;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * 耗时直方图及指标登记的单元测试
+ */
+public class MetricsRegistryTest {
+
+    @Test
+    public void histogram_percentilesWithinBucketResolution() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        // 1ms..100ms各一次
+        for (int ms = 1; ms <= 100; ms++) {
+            histogram.record(ms * 1_000_000L);
+        }
+        assertEquals(100, histogram.getCount());
+        assertEquals(100_000_000L, histogram.getMaxNanos());
+        assertEquals(50.5e6, histogram.getMeanNanos(), 1);
+        // 相邻桶相差约19%
+        assertEquals(50e6, histogram.getPercentileNanos(50), 50e6 * 0.2);
+        assertEquals(95e6, histogram.getPercentileNanos(95), 95e6 * 0.2);
+        assertEquals(100_000_000L, histogram.getPercentileNanos(100));
+        histogram.reset();
+        assertEquals(0, histogram.getPercentileNanos(99));
+    }
+
+    @Test
+    public void histogram_overflowBucketCappedByMax() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(20_000_000_000L);
+        histogram.record(-5);
+        assertEquals(0, LatencyHistogram.bucketOf(0));
+        assertEquals(LatencyHistogram.BUCKET_COUNT, LatencyHistogram.bucketOf(20_000_000_000L));
+        assertEquals(20_000_000_000L, histogram.getPercentileNanos(99));
+    }
+
+    @Test
+    public void histogram_concurrentRecordsAreNotLost() throws InterruptedException {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < 10000; i++) {
+                        histogram.record(i * 1000L);
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(40000, histogram.getCount());
+        assertEquals(9_999_000L, histogram.getMaxNanos());
+    }
+
+    @Test
+    public void record_stageTimerAddsStagesAndTotal() {
+        MetricsRegistry registry = new MetricsRegistry();
+        StageTimer timer = new StageTimer("test");
+        timer.mark("parse");
+        timer.mark("ui");
+        registry.record(timer);
+        registry.record("parse", 2_000_000L);
+        assertEquals(Arrays.asList("parse", "ui", MetricsRegistry.STAGE_TOTAL), registry.getNames());
+        assertEquals(2, registry.getHistogram("parse").getCount());
+        String json = registry.toJson();
+        assertTrue(json, json.startsWith("{\"stages\":[{\"name\":\"parse\",\"count\":2,"));
+        assertTrue(registry.toText().contains("total"));
+    }
+}
@@ -0,0 +1,134 @@
+package com.okg.textrecognition.core;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+
+/**
+ * 识别结果采集格式的单元测试
+ */
+public class OcrCaptureTest {
+
+    @Test
+    public void read_restoresDocumentAndRecordedResult() throws IOException {
+        DeviceInfo recorded = new DeviceInfo.Builder(ImeiSnParser.TYPE_LAYOUT_HORIZONTAL)
+                .replaceValue(DeviceInfo.FIELD_IMEI1, "861234567890127")
+                .build();
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        new OcrCapture.Writer(output, 1234L, "test", recorded)
+                .beginBlock(0, 0, 200, 40)
+                .addLine("IMEI1:", 0, 0, 200, 40, null, Float.NaN)
+                .beginBlock(OcrDocument.NO_BOUND, OcrDocument.NO_BOUND, OcrDocument.NO_BOUND, OcrDocument.NO_BOUND)
+                .addLine("861234567890127", OcrDocument.NO_BOUND, OcrDocument.NO_BOUND, OcrDocument.NO_BOUND, OcrDocument.NO_BOUND, null, Float.NaN)
+                .finish();
+
+        OcrCapture capture = OcrCapture.read(new ByteArrayInputStream(output.toByteArray()));
+        assertEquals(1234L, capture.getTimestamp());
+        assertEquals("test", capture.getMetadata());
+        assertEquals("861234567890127", capture.getRecordedValue(DeviceInfo.FIELD_IMEI1));
+        assertEquals("", capture.getRecordedValue(DeviceInfo.FIELD_SN));
+        OcrDocument document = capture.getDocument();
+        assertEquals(2, document.getBlockCount());
+        assertEquals("IMEI1:", document.getLineText(0));
+        assertEquals(200, document.getBlockRight(0));
+        assertEquals(OcrDocument.NO_BOUND, document.getLineLeft(1));
+        assertEquals("861234567890127", new ImeiSnParser().parse(document).getImei1());
+    }
+
+    @Test
+    public void read_reappliesDeskewFromCorners() throws IOException {
+        // 两行均倾斜约10°
+        int[] first = {0, 0, 300, 53, 293, 92, -7, 39};
+        int[] second = {0, 100, 300, 153, 293, 192, -7, 139};
+        OcrDocument.Builder builder = new OcrDocument.Builder().beginBlock(-7, 0, 300, 192);
+        builder.addLine("first", first, Float.NaN).addLine("second", second, 10f);
+        OcrDocument expected = builder.build();
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        new OcrCapture.Writer(output, 0L, null, null)
+                .beginBlock(-7, 0, 300, 192)
+                .addLine("first", -7, 0, 300, 92, first, Float.NaN)
+                .addLine("second", -7, 100, 300, 192, second, 10f)
+                .finish();
+        OcrDocument document = OcrCapture.read(new ByteArrayInputStream(output.toByteArray())).getDocument();
+
+        assertEquals(expected.getBaselineAngle(), document.getBaselineAngle(), 0f);
+        assertTrue(Math.abs(document.getBaselineAngle()) > BaselineDeskew.MIN_DESKEW_ANGLE);
+        for (int line = 0; line < 2; line++) {
+            assertEquals(expected.getLineTop(line), document.getLineTop(line));
+            assertEquals(expected.getLineBottom(line), document.getLineBottom(line));
+        }
+    }
+
+    @Test
+    public void read_matchesDocumentBuiltFromSameTraversal() throws IOException {
+        OcrDocument.Builder builder = new OcrDocument.Builder();
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        OcrCapture.Writer writer = new OcrCapture.Writer(output, 0L, null, null);
+        // 应用中由OcrDocumentFactory.traverse同时驱动两者，这里以相同的调用序列模拟
+        feedLabel(builder);
+        feedLabel(writer);
+        writer.finish();
+        OcrDocument expected = builder.build();
+        OcrDocument document = OcrCapture.read(new ByteArrayInputStream(output.toByteArray())).getDocument();
+
+        assertEquals(expected.getBlockCount(), document.getBlockCount());
+        assertEquals(expected.getLineCount(), document.getLineCount());
+        assertEquals(expected.getFullText(), document.getFullText());
+        assertEquals(expected.getBaselineAngle(), document.getBaselineAngle(), 0f);
+        assertArrayEquals(expected.getBlockBoxes(), document.getBlockBoxes());
+        for (int block = 0; block < expected.getBlockCount(); block++) {
+            assertEquals(expected.getBlockLineStart(block), document.getBlockLineStart(block));
+            assertEquals(expected.getBlockLineEnd(block), document.getBlockLineEnd(block));
+        }
+        for (int line = 0; line < expected.getLineCount(); line++) {
+            assertEquals(expected.getLineLeft(line), document.getLineLeft(line));
+            assertEquals(expected.getLineTop(line), document.getLineTop(line));
+            assertEquals(expected.getLineRight(line), document.getLineRight(line));
+            assertEquals(expected.getLineBottom(line), document.getLineBottom(line));
+        }
+        assertEquals(ParseCache.fingerprint(expected, ParseCache.DEFAULT_GRID_SIZE), ParseCache.fingerprint(document, ParseCache.DEFAULT_GRID_SIZE));
+    }
+
+    /**
+     * 倾斜的标签：带角点的行、没有角点的行、没有边界的行及没有行的block
+     */
+    private static void feedLabel(OcrDocumentSink sink) {
+        sink.beginBlock(-7, 0, 300, 192)
+                .addLine("IMEI1", -7, 0, 300, 92, new int[]{0, 0, 300, 53, 293, 92, -7, 39}, 10f)
+                .addLine("861234567890127", -7, 100, 300, 192, new int[]{0, 100, 300, 153, 293, 192, -7, 139}, Float.NaN);
+        sink.beginBlock(0, 200, 200, 240);
+        sink.beginBlock(0, 250, 300, 290)
+                .addLine("SN:R58M12345AB", 0, 250, 300, 290, null, Float.NaN)
+                .addLine("?", OcrDocument.NO_BOUND, OcrDocument.NO_BOUND, OcrDocument.NO_BOUND, OcrDocument.NO_BOUND, null, Float.NaN);
+    }
+
+    @Test(expected = IOException.class)
+    public void read_rejectsLineBeforeBlock() throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        new OcrCapture.Writer(output, 0L, null, null)
+                .addLine("IMEI1:861234567890127", 0, 0, 300, 40, null, Float.NaN)
+                .finish();
+        OcrCapture.read(new ByteArrayInputStream(output.toByteArray()));
+    }
+
+    @Test(expected = IOException.class)
+    public void read_rejectsTruncatedCapture() throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        new OcrCapture.Writer(output, 0L, null, null)
+                .beginBlock(0, 0, 300, 40)
+                .addLine("IMEI1:861234567890127", 0, 0, 300, 40, null, Float.NaN)
+                .finish();
+        byte[] bytes = output.toByteArray();
+        OcrCapture.read(new ByteArrayInputStream(bytes, 0, bytes.length - 4));
+    }
+
+    @Test(expected = IOException.class)
+    public void read_rejectsOtherFormats() throws IOException {
+        OcrCapture.read(new ByteArrayInputStream(new byte[]{'P', 'K', 3, 4, 0, 0, 0, 0}));
+    }
+}
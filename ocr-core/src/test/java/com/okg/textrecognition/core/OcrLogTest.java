@@ -0,0 +1,61 @@
+package com.okg.textrecognition.core;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * 分级日志门面的单元测试
+ */
+public class OcrLogTest {
+    private static final String TAG_NAME = "test";
+
+    private final List<String> mPrinted = new ArrayList<>();
+
+    private void install(int minLevel) {
+        OcrLog.setPrinter(new OcrLog.Printer() {
+            @Override
+            public void print(int level, String tag, String msg, Throwable tr) {
+                mPrinted.add(level + ":" + msg);
+            }
+        }, minLevel);
+    }
+
+    @After
+    public void tearDown() {
+        OcrLog.setPrinter(null, OcrLog.NONE);
+    }
+
+    @Test
+    public void format_replacesPlaceholdersInOrder() {
+        assertEquals("a=1,b=x", OcrLog.format("a={},b={}", 1, "x", null, 2));
+        assertEquals("only 1 {}", OcrLog.format("only {} {}", 1, null, null, 1));
+        assertEquals("no args", OcrLog.format("no args", "x", null, null, 1));
+    }
+
+    @Test
+    public void print_filtersBelowMinLevelWithoutEvaluatingMessage() {
+        install(OcrLog.WARN);
+        OcrLog.d(TAG_NAME, new OcrLog.Message() {
+            @Override
+            public String get() {
+                throw new AssertionError("message evaluated below min level");
+            }
+        });
+        OcrLog.d(TAG_NAME, "debug {}", "x");
+        OcrLog.w(TAG_NAME, "warn {}", "y");
+        assertFalse(OcrLog.isLoggable(OcrLog.DEBUG));
+        assertEquals(1, mPrinted.size());
+        assertEquals(OcrLog.WARN + ":warn y", mPrinted.get(0));
+    }
+
+    @Test
+    public void setPrinter_nullDisablesAllLevels() {
+        OcrLog.setPrinter(null, OcrLog.VERBOSE);
+        assertFalse(OcrLog.isLoggable(OcrLog.ERROR));
+    }
+}
@@ -0,0 +1,88 @@
+package com.okg.textrecognition.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * 解析结果缓存的单元测试
+ */
+public class ParseCacheTest {
+
+    private static OcrDocument document(String imeiLine, int top) {
+        return new OcrDocument.Builder()
+                .beginBlock(0, top, 500, top + 40)
+                .addLine(imeiLine, 0, top, 500, top + 40)
+                .build();
+    }
+
+    @Test
+    public void parse_returnsCachedResultForNearIdenticalDocument() {
+        ParseCache cache = new ParseCache(2, 16);
+        ImeiSnParser parser = new ImeiSnParser();
+        DeviceInfo first = cache.parse(parser, document("IMEI1:861234567890127", 0));
+        // 边界框只偏移了几个像素，仍落在同一网格
+        DeviceInfo second = cache.parse(parser, document("IMEI1:861234567890127", 3));
+        assertSame(first, second);
+        assertEquals("861234567890127", second.getImei1());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+
+        DeviceInfo other = cache.parse(parser, document("IMEI1:861234567890135", 0));
+        assertEquals("861234567890135", other.getImei1());
+        assertEquals(2, cache.getMissCount());
+    }
+
+    @Test
+    public void put_evictsLeastRecentlyUsed() {
+        ParseCache cache = new ParseCache(2, 1);
+        DeviceInfo a = new DeviceInfo.Builder(ImeiSnParser.TYPE_LAYOUT_CMD).build();
+        DeviceInfo b = new DeviceInfo.Builder(ImeiSnParser.TYPE_LAYOUT_VERTICAL).build();
+        DeviceInfo c = new DeviceInfo.Builder(ImeiSnParser.TYPE_LAYOUT_HORIZONTAL).build();
+        cache.put(1L, a);
+        cache.put(2L, b);
+        assertSame(a, cache.get(1L));
+        cache.put(3L, c);
+        assertNull(cache.get(2L));
+        assertSame(a, cache.get(1L));
+        assertSame(c, cache.get(3L));
+        assertEquals(3, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    public void fingerprint_distinguishesLineBreaksAndBlocks() {
+        OcrDocument oneLine = new OcrDocument.Builder()
+                .beginBlock(0, 0, 100, 100).addLine("SN ABC", 0, 0, 100, 100)
+                .build();
+        OcrDocument twoLines = new OcrDocument.Builder()
+                .beginBlock(0, 0, 100, 100).addLine("SN", 0, 0, 100, 50).addLine("ABC", 0, 50, 100, 100)
+                .build();
+        OcrDocument twoBlocks = new OcrDocument.Builder()
+                .beginBlock(0, 0, 100, 100).addLine("SN", 0, 0, 100, 50)
+                .beginBlock(0, 0, 100, 100).addLine("ABC", 0, 50, 100, 100)
+                .build();
+        long a = ParseCache.fingerprint(oneLine, 16);
+        long b = ParseCache.fingerprint(twoLines, 16);
+        long c = ParseCache.fingerprint(twoBlocks, 16);
+        assertNotEquals(a, b);
+        assertNotEquals(b, c);
+    }
+
+    @Test
+    public void fingerprint_ignoresCaseAndWhitespace() {
+        OcrDocument first = new OcrDocument.Builder()
+                .beginBlock(0, 0, 100, 100).addLine("IMEI1: 861234567890127", 0, 0, 100, 50).addLine("sn abc123", 0, 50, 100, 100)
+                .build();
+        OcrDocument second = new OcrDocument.Builder()
+                .beginBlock(0, 0, 100, 100).addLine("imei1 :861234567890127 ", 0, 0, 100, 50).addLine("SN\tABC123", 0, 50, 100, 100)
+                .build();
+        assertEquals(ParseCache.fingerprint(first, 16), ParseCache.fingerprint(second, 16));
+
+        ParseCache cache = new ParseCache(2, 16);
+        ImeiSnParser parser = new ImeiSnParser();
+        DeviceInfo result = cache.parse(parser, first);
+        assertSame(result, cache.parse(parser, second));
+        assertEquals(1, cache.getHitCount());
+    }
+}
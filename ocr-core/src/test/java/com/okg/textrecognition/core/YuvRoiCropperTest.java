@@ -0,0 +1,80 @@
+package com.okg.textrecognition.core;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.*;
+
+/**
+ * 取景框区域裁剪的单元测试，以小尺寸的合成帧验证坐标换算及平面拷贝
+ */
+public class YuvRoiCropperTest {
+
+    @Test
+    public void constructor_mapsPortraitViewToRotatedFrame() {
+        // 竖屏界面1080x1920，取景框为中间一条横带；帧为横向1920x1080，需顺时针旋转90度
+        YuvRoiCropper cropper = new YuvRoiCropper(60, 810, 1020, 1110, 1080, 1920, 1920, 1080, 90);
+        // 界面的纵向对应帧的横向，界面的横向反向对应帧的纵向
+        assertEquals(810, cropper.getLeft());
+        assertEquals(300, cropper.getWidth());
+        assertEquals(60, cropper.getTop());
+        assertEquals(960, cropper.getHeight());
+        assertTrue(cropper.getAreaRatio() < 0.2f);
+    }
+
+    @Test
+    public void constructor_alignsToEvenAndClampsToFrame() {
+        YuvRoiCropper cropper = new YuvRoiCropper(-10, 3, 2000, 7, 100, 10, 100, 10, 0);
+        assertEquals(0, cropper.getLeft());
+        assertEquals(100, cropper.getWidth());
+        assertEquals(2, cropper.getTop());
+        assertEquals(6, cropper.getHeight());
+        assertEquals(0, cropper.getLeft() % 2);
+    }
+
+    @Test
+    public void cropToNv21_copiesOnlyRoiFromSemiPlanarFrame() {
+        int width = 8;
+        int height = 4;
+        byte[] yData = new byte[width * height];
+        for (int i = 0; i < yData.length; i++) {
+            yData[i] = (byte) i;
+        }
+        // 色度平面4x2，像素跨距为2（VU交错存放），U、V平面共用同一块内存
+        byte[] vu = new byte[width * height / 2];
+        for (int i = 0; i < vu.length; i += 2) {
+            vu[i] = (byte) (100 + i / 2);
+            vu[i + 1] = (byte) (-100 - i / 2);
+        }
+        ByteBuffer v = ByteBuffer.wrap(vu, 0, vu.length - 1).slice();
+        ByteBuffer u = ByteBuffer.wrap(vu, 1, vu.length - 1).slice();
+        YuvRoiCropper cropper = new YuvRoiCropper(2, 2, 6, 4, width, height, width, height, 0);
+        assertEquals(2, cropper.getLeft());
+        assertEquals(2, cropper.getTop());
+        byte[] out = new byte[cropper.getNv21Size()];
+        cropper.cropToNv21(ByteBuffer.wrap(yData), width, u, v, width, 2, out);
+
+        assertArrayEquals(new byte[]{18, 19, 20, 21, 26, 27, 28, 29, 105, -105, 106, -106}, out);
+    }
+
+    @Test
+    public void cropToNv21_interleavesPlanarChroma() {
+        int width = 4;
+        int height = 2;
+        ByteBuffer y = ByteBuffer.wrap(new byte[]{1, 2, 3, 4, 5, 6, 7, 8});
+        ByteBuffer u = ByteBuffer.wrap(new byte[]{10, 11});
+        ByteBuffer v = ByteBuffer.wrap(new byte[]{20, 21});
+        YuvRoiCropper cropper = new YuvRoiCropper(0, 0, 4, 2, width, height, width, height, 0);
+        byte[] out = new byte[cropper.getNv21Size()];
+        cropper.cropToNv21(y, width, u, v, 2, 1, out);
+
+        assertArrayEquals(new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 20, 10, 21, 11}, out);
+        assertEquals(0, y.position());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructor_rejectsInvalidRotation() {
+        new YuvRoiCropper(0, 0, 10, 10, 10, 10, 10, 10, 45);
+    }
+}